@@ -0,0 +1,33 @@
+package io.reflectoring.carshippingbackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Distribution of one numeric field (price, year or mileage) over the listings matching a filter set, for
+ * the range sliders: the smallest and largest value and the listing count per bucket.
+ *
+ * Buckets are [from, to) except the last one, which also holds max. min and max are null when no matching
+ * listing has a value; missing counts the matching listings without one.
+ */
+@Data
+@AllArgsConstructor
+public class Histogram {
+    private String field;
+    private Double min;
+    private Double max;
+    private long count;
+    private long missing;
+    private double interval;
+    private List<Bucket> buckets;
+
+    @Data
+    @AllArgsConstructor
+    public static class Bucket {
+        private double from;
+        private double to;
+        private long count;
+    }
+}
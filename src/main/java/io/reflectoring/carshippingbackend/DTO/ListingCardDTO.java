@@ -0,0 +1,29 @@
+package io.reflectoring.carshippingbackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * What a search result card shows. Selected column by column with a constructor expression,
+ * so list pages never read the description, features or custom spec LOBs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListingCardDTO {
+    private String vehicleType;
+    private Long id;
+    private String refNo;
+    private String brand;
+    private String model;
+    private Integer year;
+    private Double price;
+    private String location;
+    private String imageUrl;
+
+    // Used by the JPQL constructor expression; vehicleType and imageUrl are filled in afterwards
+    public ListingCardDTO(Long id, String refNo, String brand, String model, Integer year, Double price, String location) {
+        this(null, id, refNo, brand, model, year, price, location, null);
+    }
+}
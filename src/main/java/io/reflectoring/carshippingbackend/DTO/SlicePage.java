@@ -0,0 +1,32 @@
+package io.reflectoring.carshippingbackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.data.domain.Slice;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * One page of a listing asked for with ?slice=true, for infinite scroll: the query fetches size + 1 rows
+ * to learn hasNext and runs no COUNT. total is only filled in when it is known without counting (from the
+ * catalog index, or the facet counters for an unfiltered listing), otherwise it is null.
+ */
+@Data
+@AllArgsConstructor
+public class SlicePage<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private Long total;
+
+    public static <T> SlicePage<T> of(Slice<T> slice, Long total) {
+        return new SlicePage<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(), total);
+    }
+
+    public <R> SlicePage<R> map(Function<T, R> mapper) {
+        return new SlicePage<>(content.stream().map(mapper).collect(Collectors.toList()), page, size, hasNext, total);
+    }
+}
@@ -0,0 +1,34 @@
+package io.reflectoring.carshippingbackend.DTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of GET /api/search: cards of every vehicle type merged in sort order (each card carries its
+ * vehicleType), plus how many listings of each type matched.
+ *
+ * When a vehicle type did not answer within the time budget it is left out of content, its summary
+ * says so and partial is true; totalElements then only counts the types that answered.
+ */
+@Data
+@AllArgsConstructor
+public class UnifiedSearchPage {
+    private List<ListingCardDTO> content;
+    private int page;
+    private int size;
+    private long totalElements;
+    private int totalPages;
+    private boolean partial;
+    private Map<String, TypeSummary> types;
+
+    @Data
+    @AllArgsConstructor
+    public static class TypeSummary {
+        // OK, TIMEOUT or FAILED
+        private String status;
+        private long total;
+    }
+}
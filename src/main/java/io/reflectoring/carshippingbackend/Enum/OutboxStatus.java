@@ -0,0 +1,9 @@
+package io.reflectoring.carshippingbackend.Enum;
+
+// Lifecycle of an email_outbox row
+public enum OutboxStatus {
+    PENDING,
+    SENDING,
+    SENT,
+    DEAD
+}
@@ -0,0 +1,8 @@
+package io.reflectoring.carshippingbackend.Enum;
+
+// Values match the sourceType column stored on each listing table
+public enum VehicleType {
+    CAR,
+    MOTORCYCLE,
+    COMMERCIALVEHICLE
+}
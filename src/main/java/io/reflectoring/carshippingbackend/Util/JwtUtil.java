@@ -3,27 +3,49 @@ package io.reflectoring.carshippingbackend.Util;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
 import io.reflectoring.carshippingbackend.Enum.Role;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
-import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Function;
 
+/**
+ * Issues and verifies the JWTs. The signing key and parser are built once; {@link #verify} checks a
+ * token's signature and expiry in a single parse and remembers the claims of recently verified tokens
+ * until they expire, so a session's later requests skip the HMAC and JSON parsing altogether.
+ */
 @Component
 public class JwtUtil {
 
+    private record Verified(Claims claims, long expiresAt) {}
+
     @Value("${app.jwt.secret}")
     private String secret;
 
     @Value("${app.jwt.expiration}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${app.jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    // Keyed by the whole token: a map hit needs an exact match, which a forged token cannot give
+    private Map<String, Verified> verified;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        int maxEntries = verifiedCacheSize;
+        verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > maxEntries;
+            }
+        };
     }
 
     public String generateToken(String email, Set<Role> roles) {
@@ -36,23 +58,45 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    // Fixed: This method now only takes one parameter (token)
-    public Boolean validateToken(String token) {
+    /**
+     * The claims of a token with a valid signature that has not expired, or empty. Callers must not
+     * modify the returned claims: they are shared with later requests bearing the same token.
+     */
+    public Optional<Claims> verify(String token) {
+        if (token == null || token.isBlank()) return Optional.empty();
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            Verified hit = verified.get(token);
+            if (hit != null) {
+                if (now < hit.expiresAt()) return Optional.of(hit.claims());
+                verified.remove(token);
+            }
+        }
+
+        Claims claims;
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            claims = parser.parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return Optional.empty();
+        }
+        // Tokens without an expiry are still accepted, just never remembered
+        if (claims.getExpiration() != null) {
+            synchronized (verified) {
+                verified.put(token, new Verified(claims, claims.getExpiration().getTime()));
+            }
         }
+        return Optional.of(claims);
+    }
+
+    public Boolean validateToken(String token) {
+        return verify(token).isPresent();
     }
 
     // Optional: Keep the two-parameter version if you need it elsewhere
@@ -69,6 +113,12 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
 
+    // The jti claim; tokens issued before it was added are told apart by their issue time
+    public static String tokenId(Claims claims) {
+        if (claims.getId() != null) return claims.getId();
+        return String.valueOf(claims.getIssuedAt() == null ? 0 : claims.getIssuedAt().getTime());
+    }
+
     public Date extractExpiration(String token) {
         return extractClaim(token, Claims::getExpiration);
     }
@@ -79,33 +129,26 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verify(token).orElseThrow(() -> new JwtException("Invalid or expired token"));
     }
 
     private Boolean isTokenExpired(String token) {
         return extractExpiration(token).before(new Date());
     }
-    @SuppressWarnings("unchecked")
+
     public Set<String> extractRoles(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return roles(extractAllClaims(token));
+    }
 
+    public static Set<String> roles(Claims claims) {
         Object rolesObject = claims.get("roles");
-        if (rolesObject instanceof java.util.Collection<?>) {
-            return ((java.util.Collection<?>) rolesObject)
-                    .stream()
-                    .map(Object::toString)
-                    .collect(java.util.stream.Collectors.toSet());
+        if (rolesObject instanceof Collection<?>) {
+            Set<String> roles = new HashSet<>();
+            ((Collection<?>) rolesObject).forEach(role -> roles.add(role.toString()));
+            return roles;
         }
 
-        return java.util.Collections.emptySet();
+        return Collections.emptySet();
     }
 
 }
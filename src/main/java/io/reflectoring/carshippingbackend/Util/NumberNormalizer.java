@@ -0,0 +1,52 @@
+package io.reflectoring.carshippingbackend.Util;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns the free-text numbers sellers type into listing forms ("1,200,000", "KES 2.5M", "45k km",
+ * " 2015 ") into typed values for the numeric shadow columns. Blank or unreadable input gives null.
+ */
+public final class NumberNormalizer {
+
+    // First number in the text, with an optional magnitude suffix that is not the start of a longer word ("km")
+    private static final Pattern NUMBER = Pattern.compile(
+            "(\\d[\\d,]*(?:\\.\\d+)?)(?:\\s*(thousand|million|mn|bn|k|m|b)(?![a-z]))?");
+
+    private NumberNormalizer() {
+    }
+
+    public static Double toDouble(String text) {
+        if (text == null || text.isBlank()) return null;
+
+        Matcher matcher = NUMBER.matcher(text.toLowerCase());
+        if (!matcher.find()) return null;
+
+        double value;
+        try {
+            value = Double.parseDouble(matcher.group(1).replace(",", ""));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        String suffix = matcher.group(2);
+        if (suffix == null) return value;
+        switch (suffix) {
+            case "k":
+            case "thousand":
+                return value * 1_000;
+            case "m":
+            case "mn":
+            case "million":
+                return value * 1_000_000;
+            default:
+                return value * 1_000_000_000;
+        }
+    }
+
+    public static Integer toInteger(String text) {
+        Double value = toDouble(text);
+        if (value == null || value > Integer.MAX_VALUE) return null;
+        return (int) Math.round(value);
+    }
+}
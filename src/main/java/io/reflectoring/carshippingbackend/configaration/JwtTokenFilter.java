@@ -1,7 +1,8 @@
 package io.reflectoring.carshippingbackend.configaration;
 
+import io.jsonwebtoken.Claims;
 import io.reflectoring.carshippingbackend.Util.JwtUtil;
-import io.reflectoring.carshippingbackend.services.CustomUserDetailsService;
+import io.reflectoring.carshippingbackend.services.PrincipalCache;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -22,7 +23,7 @@ import java.io.IOException;
 public class JwtTokenFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
-    private final CustomUserDetailsService customUserDetailsService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request,
@@ -36,11 +37,14 @@ public class JwtTokenFilter extends OncePerRequestFilter {
             // Only authenticate if token exists and no authentication is set
             if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                if (jwtUtil.validateToken(token)) {
+                // One verification (or none for a recently verified token) gives every claim needed
+                Claims claims = jwtUtil.verify(token).orElse(null);
+                if (claims != null) {
 
-                    String email = jwtUtil.extractEmail(token);
+                    String email = claims.getSubject();
+                    // Cached per token for a short while instead of a users lookup on every request
                     UserDetails userDetails =
-                            customUserDetailsService.loadUserByUsername(email);
+                            principalCache.load(email, JwtUtil.tokenId(claims));
 
                     UsernamePasswordAuthenticationToken authentication =
                             new UsernamePasswordAuthenticationToken(
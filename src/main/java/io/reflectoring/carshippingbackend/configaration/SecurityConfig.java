@@ -2,6 +2,7 @@ package io.reflectoring.carshippingbackend.configaration;
 
 import io.reflectoring.carshippingbackend.Util.JwtUtil;
 import io.reflectoring.carshippingbackend.services.CustomUserDetailsService;
+import io.reflectoring.carshippingbackend.services.PrincipalCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -35,6 +36,7 @@ public class SecurityConfig {
     private final CustomUserDetailsService customUserDetailsService;
 @Autowired
     private final JwtUtil jwtUtil;
+    private final PrincipalCache principalCache;
 
     @Bean
     public PasswordEncoder passwordEncoder() {
@@ -56,7 +58,7 @@ public class SecurityConfig {
 
     @Bean
     public JwtTokenFilter jwtTokenFilter() {
-        return new JwtTokenFilter(jwtUtil, customUserDetailsService);
+        return new JwtTokenFilter(jwtUtil, principalCache);
     }
 
     @Bean
@@ -96,6 +98,7 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/motorcycles/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/vehicles/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/images/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/latest", "/api/search", "/api/autocomplete").permitAll()
 
 
                         // Protected write operations for authenticated users
@@ -122,6 +125,10 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/motorcycles/dashboard/**").authenticated()
 
 
+                        // Actuator metrics (search cache hit/miss, ...) and the email outbox are for admins only
+                        .requestMatchers("/actuator/metrics", "/actuator/metrics/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/emailoutbox").hasRole("ADMIN")
+
                         // Everything else still requires authentication
                         .anyRequest().authenticated()
                 )
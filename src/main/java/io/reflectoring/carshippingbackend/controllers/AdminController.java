@@ -3,16 +3,21 @@ package io.reflectoring.carshippingbackend.controllers;
 import io.reflectoring.carshippingbackend.DTO.UpdateRoleRequest;
 import io.reflectoring.carshippingbackend.DTO.UpdateUserRequest;
 import io.reflectoring.carshippingbackend.DTO.UserResponse;
+import io.reflectoring.carshippingbackend.services.CatalogIndexService;
+import io.reflectoring.carshippingbackend.services.ListingExportService;
 import io.reflectoring.carshippingbackend.services.UserService;
 import io.reflectoring.carshippingbackend.tables.User;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +30,8 @@ import java.util.stream.Collectors;
 public class AdminController {
     @Autowired
     private final UserService userService;
+    private final CatalogIndexService catalogIndexService;
+    private final ListingExportService listingExportService;
 
     /**
      * ============================
@@ -137,6 +144,46 @@ public class AdminController {
         }
     }
 
+    /**
+     * ============================
+     *  REBUILD CATALOG INDEX
+     * ============================
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/catalog-index/rebuild")
+    public ResponseEntity<?> rebuildCatalogIndex() {
+        catalogIndexService.rebuild();
+        return ResponseEntity.ok(catalogIndexService.sizes());
+    }
+
+    /**
+     * ============================
+     *  EXPORT LISTINGS (NDJSON / CSV)
+     * ============================
+     * kind: cars, motorcycles, commercial-vehicles or containers; streamed straight to the response.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/export/{kind}")
+    public void exportListings(
+            @PathVariable String kind,
+            @RequestParam(defaultValue = "ndjson") String format,
+            HttpServletResponse response) throws IOException {
+
+        Optional<ListingExportService.Kind> exportKind = ListingExportService.Kind.parse(kind);
+        Optional<ListingExportService.Format> exportFormat = ListingExportService.Format.parse(format);
+        if (exportKind.isEmpty() || exportFormat.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST,
+                    "Export kind must be cars, motorcycles, commercial-vehicles or containers and format ndjson or csv");
+            return;
+        }
+
+        response.setContentType(exportFormat.get().contentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\""
+                + exportKind.get().fileName() + "." + exportFormat.get().extension() + "\"");
+        listingExportService.export(exportKind.get(), exportFormat.get(), response.getOutputStream());
+    }
+
     private UserResponse convertToUserResponse(User user) {
         UserResponse.UserResponseBuilder builder = UserResponse.builder()
                 .id(user.getId())
@@ -8,9 +8,12 @@ import io.reflectoring.carshippingbackend.Util.JwtUtil;
 
 import io.reflectoring.carshippingbackend.repository.PasswordResetTokenRepository;
 import io.reflectoring.carshippingbackend.repository.UserRepository;
+import io.reflectoring.carshippingbackend.services.AuthRateLimiter;
 import io.reflectoring.carshippingbackend.services.AuthService;
 import io.reflectoring.carshippingbackend.services.CloudStorageService;
 import io.reflectoring.carshippingbackend.services.EmailService;
+import io.reflectoring.carshippingbackend.services.PasswordHashingService;
+import io.reflectoring.carshippingbackend.services.PrincipalCache;
 import io.reflectoring.carshippingbackend.services.UserService;
 import io.reflectoring.carshippingbackend.tables.PasswordResetToken;
 import io.reflectoring.carshippingbackend.tables.User;
@@ -19,6 +22,7 @@ import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseCookie;
@@ -46,6 +50,8 @@ public class AuthController {
     private final PasswordResetTokenRepository passwordResetTokenRepository;
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
+    private final PrincipalCache principalCache;
+    private final AuthRateLimiter rateLimiter;
 
     @Value("${app.jwt.cookie-name}")
     private String cookieName;
@@ -199,9 +205,15 @@ public class AuthController {
     }
 
     @PostMapping("/resend-code")
-    public ResponseEntity<?> resendVerificationCode(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> resendVerificationCode(@RequestBody Map<String, String> request,
+                                                    HttpServletRequest httpRequest) {
         String email = request.get("email");
 
+        long retryAfter = rateLimiter.tryAcquire("resend-code", email, httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter).body(Map.of("message", "Too many requests, please try again later"));
+        }
+
         try {
             authService.resendVerificationCode(email);
             return ResponseEntity.ok(Map.of("message", "Verification code resent successfully"));
@@ -218,11 +230,23 @@ public class AuthController {
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(
             @RequestBody @Valid LoginRequest request,
+            HttpServletRequest httpRequest,
             HttpServletResponse response) {
 
+        String clientIp = httpRequest.getRemoteAddr();
+        long retryAfter = rateLimiter.checkAttempt("login", request.getEmail(), clientIp);
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter)
+                    .body(new AuthResponse(
+                            "Too many sign-in attempts, please try again later",
+                            null, null, null, null, null, null
+                    ));
+        }
+
         Optional<User> userOptional = userService.findByEmail(request.getEmail());
 
         if (userOptional.isEmpty()) {
+            rateLimiter.recordFailure("login", request.getEmail(), clientIp);
             return ResponseEntity
                     .status(HttpStatus.UNAUTHORIZED)
                     .body(new AuthResponse(
@@ -264,7 +288,16 @@ public class AuthController {
                     )
             );
 
+        } catch (PasswordHashingService.BusyException e) {
+            return ResponseEntity
+                    .status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(new AuthResponse(
+                            e.getMessage(),
+                            null, null, null, null, null, null
+                    ));
         } catch (Exception e) {
+            rateLimiter.recordFailure("login", request.getEmail(), clientIp);
             return ResponseEntity
                     .status(HttpStatus.UNAUTHORIZED)
                     .body(new AuthResponse(
@@ -371,8 +404,14 @@ public class AuthController {
     }
 
     @PostMapping("/forgot-password")
-    public ResponseEntity<?> forgotPassword(@RequestBody Map<String, String> request) {
+    public ResponseEntity<?> forgotPassword(@RequestBody Map<String, String> request,
+                                            HttpServletRequest httpRequest) {
         String email = request.get("email");
+
+        long retryAfter = rateLimiter.tryAcquire("forgot-password", email, httpRequest.getRemoteAddr());
+        if (retryAfter > 0) {
+            return tooManyRequests(retryAfter).body("Too many requests, please try again later");
+        }
         Optional<User> userOpt = userRepository.findByEmail(email);
 
         if (userOpt.isEmpty()) {
@@ -408,6 +447,11 @@ public class AuthController {
         return ResponseEntity.ok("Password reset email sent successfully");
     }
 
+    private static ResponseEntity.BodyBuilder tooManyRequests(long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    }
+
     @PostMapping("/reset-password")
     public ResponseEntity<?> resetPassword(@RequestBody Map<String, String> request) {
         String token = request.get("token");
@@ -428,6 +472,7 @@ public class AuthController {
         User user = resetToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.evict(user.getEmail());
 
         passwordResetTokenRepository.delete(resetToken);
 
@@ -4,10 +4,18 @@ import io.reflectoring.carshippingbackend.DTO.MotorcycleResponseDTO;
 import io.reflectoring.carshippingbackend.DTO.SellerStatsDTO;
 import io.reflectoring.carshippingbackend.DTO.SoldRequest;
 import io.reflectoring.carshippingbackend.Enum.Role;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
 import io.reflectoring.carshippingbackend.configaration.CustomUserDetails;
 import io.reflectoring.carshippingbackend.repository.CarRepository;
 import io.reflectoring.carshippingbackend.services.CarService;
+import io.reflectoring.carshippingbackend.services.CatalogVersionService;
+import io.reflectoring.carshippingbackend.services.FacetCountService;
+import io.reflectoring.carshippingbackend.services.HistogramService;
+import io.reflectoring.carshippingbackend.services.LatestArrivalsService;
+import io.reflectoring.carshippingbackend.services.SearchResultCache;
+import io.reflectoring.carshippingbackend.services.ListingIds;
 import io.reflectoring.carshippingbackend.services.SellerStatsService;
+import io.reflectoring.carshippingbackend.services.SimilarityService;
 import io.reflectoring.carshippingbackend.tables.Car;
 import lombok.AllArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,9 +28,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -41,9 +51,30 @@ public class CarController {
 
     private final SellerStatsService sellerStatsService;
 
-    public CarController(CarService service, SellerStatsService sellerStatsService) {
+    private final FacetCountService facetCounts;
+
+    private final SimilarityService similarity;
+
+    private final LatestArrivalsService latestArrivals;
+
+    private final SearchResultCache searchCache;
+
+    private final CatalogVersionService versions;
+
+    private final HistogramService histograms;
+
+    public CarController(CarService service, SellerStatsService sellerStatsService, FacetCountService facetCounts,
+                         SimilarityService similarity, LatestArrivalsService latestArrivals,
+                         SearchResultCache searchCache, CatalogVersionService versions,
+                         HistogramService histograms) {
         this.service = service;
         this.sellerStatsService = sellerStatsService;
+        this.facetCounts = facetCounts;
+        this.similarity = similarity;
+        this.latestArrivals = latestArrivals;
+        this.searchCache = searchCache;
+        this.versions = versions;
+        this.histograms = histograms;
     }
 
 
@@ -53,19 +84,52 @@ public class CarController {
             @RequestParam Map<String, String> allParams,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            @RequestParam(defaultValue = "priceKes,desc") String sort
-    ) {
-        try {
-            String[] sortParts = sort.split(",");
-            Sort s = Sort.by(Sort.Direction.fromString(sortParts.length > 1 ? sortParts[1] : "desc"), sortParts[0]);
-
-            // Only return APPROVED cars
-            var result = service.searchApproved(allParams, page, size, s);
-
-            return ResponseEntity.ok(result);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error: " + e.getMessage());
-        }
+            @RequestParam(defaultValue = "priceKes,desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(defaultValue = "false") boolean slice,
+            WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.CAR), request, () -> {
+            // Logged-out visitors repeat the same searches; defaults are spelled out so they share one entry
+            Map<String, String> key = new HashMap<>(allParams);
+            key.put("page", String.valueOf(page));
+            key.put("size", String.valueOf(size));
+            key.put("sort", sort);
+            return searchCache.cached(VehicleType.CAR, "search", key, () -> {
+                try {
+                    String[] sortParts = sort.split(",");
+                    Sort s = Sort.by(Sort.Direction.fromString(sortParts.length > 1 ? sortParts[1] : "desc"), sortParts[0]);
+
+                    // Cursor mode (opt-in): pass cursor= for the first page, then the returned nextCursor
+                    if (cursor != null) {
+                        try {
+                            return ResponseEntity.ok(service.searchApprovedAfter(allParams, cursor, size, s));
+                        } catch (IllegalArgumentException e) {
+                            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+                        }
+                    }
+
+                    // Slice mode (opt-in, for infinite scroll): hasNext instead of the totals, so no COUNT query
+                    if (slice) {
+                        return ResponseEntity.ok("card".equalsIgnoreCase(view)
+                                ? service.searchApprovedCardsSlice(allParams, page, size, s)
+                                : service.searchApprovedSlice(allParams, page, size, s));
+                    }
+
+                    // Card view (opt-in): slim rows for the result grid, the full car comes from GET /{id}
+                    if ("card".equalsIgnoreCase(view)) {
+                        return ResponseEntity.ok(service.searchApprovedCards(allParams, page, size, s));
+                    }
+
+                    // Only return APPROVED cars
+                    var result = service.searchApproved(allParams, page, size, s);
+
+                    return ResponseEntity.ok(result);
+                } catch (Exception e) {
+                    return ResponseEntity.status(500).body("Error: " + e.getMessage());
+                }
+            });
+        });
     }
     @PutMapping("/approve/{id}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -97,6 +161,7 @@ public class CarController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
             @RequestParam(defaultValue = "priceKes,desc") String sort,
+            @RequestParam(defaultValue = "false") boolean slice,
             @RequestBody Map<String, String> userPayload //  Frontend will send this
     ) {
         try {
@@ -109,6 +174,9 @@ public class CarController {
             }
 
             Sort sortObj = Sort.by(Sort.Order.desc("priceKes"));
+            if (slice) {
+                return ResponseEntity.ok(service.searchByUserRoleSlice(allParams, page, size, sortObj, email, role));
+            }
             Page<Car> cars = service.searchByUserRole(allParams, page, size, sortObj, email, role);
 
             return ResponseEntity.ok(cars);
@@ -189,7 +257,10 @@ public class CarController {
         try {
 
 
-            List<Car> similarCars = carRepo.findByMakeAndModelAndIdNot(brand, model, exclude);
+            // Precomputed neighbours once loaded, the same brand and model from the database until then
+            List<Car> similarCars = similarity.similar(VehicleType.CAR, brand, model, exclude)
+                    .map(ids -> ListingIds.loadInOrder(ids, carRepo::findAllById, Car::getId))
+                    .orElseGet(() -> carRepo.findByMakeAndModelAndIdNot(brand, model, exclude));
             return ResponseEntity.ok(similarCars);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
@@ -198,11 +269,18 @@ public class CarController {
 
     // ------------------- Latest -------------------
     @GetMapping("/latest")
-    public ResponseEntity<?> getLatestArrivals() {
+    public ResponseEntity<?> getLatestArrivals(@RequestParam(required = false) String view) {
         try {
-            List<Car> cars = carRepo.findByStatusApproved(
-                    PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "id"))
-            );
+            // Card view is served straight from memory
+            if ("card".equalsIgnoreCase(view)) {
+                var cards = latestArrivals.latest(VehicleType.CAR, 4);
+                if (cards.isPresent()) return ResponseEntity.ok(cards.get());
+            }
+            List<Car> cars = latestArrivals.latestIds(VehicleType.CAR, 4)
+                    .map(ids -> ListingIds.loadInOrder(ids, carRepo::findAllById, Car::getId))
+                    .orElseGet(() -> carRepo.findByStatusApproved(
+                            PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "id"))
+                    ));
             return ResponseEntity.ok(cars);
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
@@ -229,7 +307,7 @@ public class CarController {
                 return ResponseEntity.notFound().build();
             }
 
-            carRepo.deleteById(id);
+            service.delete(id);
             return ResponseEntity.ok(Map.of("message", "Car deleted successfully"));
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error: " + e.getMessage());
@@ -237,14 +315,47 @@ public class CarController {
     }
     // ------------------- Get All Makes -------------------
     @GetMapping("/makes")
-    public ResponseEntity<?> getAllMakes() {
-        try {
-            // DISTINCT make with count of cars per make
-            List<Map<String, Object>> makes = carRepo.findDistinctMakesWithCount();
-            return ResponseEntity.ok(makes);
-        } catch (Exception e) {
-            return ResponseEntity.status(500).body("Error: " + e.getMessage());
-        }
+    public ResponseEntity<?> getAllMakes(WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.CAR), request, () -> {
+            try {
+                // DISTINCT make with count of cars per make, from the facet counts once they are loaded
+                List<Map<String, Object>> makes = facetCounts.isReady()
+                        ? facetCounts.namesWithCount(VehicleType.CAR, "brand")
+                        : carRepo.findDistinctMakesWithCount();
+                return ResponseEntity.ok(makes);
+            } catch (Exception e) {
+                return ResponseEntity.status(500).body("Error: " + e.getMessage());
+            }
+        });
+    }
+
+    // ------------------- Filter Options -------------------
+    @GetMapping("/filter-options")
+    public ResponseEntity<?> getFilterOptions(@RequestParam(required = false) String status, WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.CAR), request,
+                () -> ResponseEntity.ok(facetCounts.filterOptions(VehicleType.CAR, status)));
+    }
+
+    // ------------------- Histogram -------------------
+    // field: price, year or mileage; buckets equal buckets, or buckets of width interval; the other
+    // parameters filter as in the search
+    @GetMapping("/histogram")
+    public ResponseEntity<?> histogram(
+            @RequestParam Map<String, String> allParams,
+            @RequestParam(defaultValue = "price") String field,
+            @RequestParam(defaultValue = "10") int buckets,
+            @RequestParam(required = false) Double interval,
+            WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.CAR), request, () -> {
+            try {
+                return histograms.histogram(VehicleType.CAR, field, allParams, buckets, interval)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body(Map.of("error", "Histograms are still loading")));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
     }
 
     // ------------------- Get Models by Make -------------------
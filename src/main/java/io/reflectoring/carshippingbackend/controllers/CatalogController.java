@@ -0,0 +1,79 @@
+package io.reflectoring.carshippingbackend.controllers;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.services.AutocompleteService;
+import io.reflectoring.carshippingbackend.services.LatestArrivalsService;
+import io.reflectoring.carshippingbackend.services.UnifiedSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Public endpoints that span all vehicle types (cars, motorcycles and commercial vehicles).
+ */
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "https://f-carshipping.com")
+public class CatalogController {
+
+    private static final int MAX_LATEST = 24;
+    private static final int MAX_SUGGESTIONS = 20;
+
+    private final LatestArrivalsService latestArrivals;
+    private final UnifiedSearchService unifiedSearch;
+    private final AutocompleteService autocomplete;
+
+    // ------------------- Latest Arrivals (all types) -------------------
+    @GetMapping("/latest")
+    public ResponseEntity<?> latest(@RequestParam(defaultValue = "8") int limit) {
+        return latestArrivals.latest(Math.max(1, Math.min(limit, MAX_LATEST)))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Map.of("error", "Latest arrivals are still loading")));
+    }
+
+    // ------------------- Search (all types) -------------------
+    @GetMapping("/search")
+    public ResponseEntity<?> search(
+            @RequestParam Map<String, String> params,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "12") int size,
+            @RequestParam(defaultValue = "price,desc") String sort) {
+        try {
+            return ResponseEntity.ok(unifiedSearch.search(params, page, size, sort));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ------------------- Autocomplete -------------------
+    // field: brand, model or location; type: CAR, MOTORCYCLE or COMMERCIALVEHICLE (all types when absent);
+    // brand narrows model suggestions to one make
+    @GetMapping("/autocomplete")
+    public ResponseEntity<?> autocomplete(
+            @RequestParam String field,
+            @RequestParam(defaultValue = "") String q,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String brand,
+            @RequestParam(defaultValue = "8") int limit) {
+        if (!AutocompleteService.FIELDS.contains(field)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "field must be one of " + AutocompleteService.FIELDS));
+        }
+        VehicleType vehicleType = null;
+        if (type != null && !type.isBlank()) {
+            try {
+                vehicleType = VehicleType.valueOf(type.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", "Unknown vehicle type: " + type));
+            }
+        }
+        return autocomplete.suggest(vehicleType, field, q, brand, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Map.of("error", "Autocomplete is still loading")));
+    }
+}
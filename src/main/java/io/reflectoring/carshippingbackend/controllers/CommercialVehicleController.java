@@ -2,10 +2,15 @@ package io.reflectoring.carshippingbackend.controllers;
 
 import io.reflectoring.carshippingbackend.DTO.*;
 import io.reflectoring.carshippingbackend.Enum.Role;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
 import io.reflectoring.carshippingbackend.configaration.CustomUserDetails;
 import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
+import io.reflectoring.carshippingbackend.services.CatalogVersionService;
 import io.reflectoring.carshippingbackend.services.CommercialVehicleService;
 import io.reflectoring.carshippingbackend.services.CommercialVehicleSpecification;
+import io.reflectoring.carshippingbackend.services.FacetCountService;
+import io.reflectoring.carshippingbackend.services.HistogramService;
+import io.reflectoring.carshippingbackend.services.SearchResultCache;
 import io.reflectoring.carshippingbackend.services.SellerStatsService;
 import io.reflectoring.carshippingbackend.tables.Car;
 import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
@@ -21,9 +26,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -38,36 +45,75 @@ public class CommercialVehicleController {
     private final CommercialVehicleService service;
     private final CommercialVehicleRepository repo;
     private final SellerStatsService sellerStatsService;
+    private final FacetCountService facetCounts;
+    private final SearchResultCache searchCache;
+    private final CatalogVersionService versions;
+    private final HistogramService histograms;
 
     // ------------------- Search / List -------------------
     // ------------------- SIMPLER VERSION -------------------
     @GetMapping
-    public ResponseEntity<Page<CommercialVehicleResponseDTO>> searchVehicles(
+    public ResponseEntity<?> searchVehicles(
             @RequestParam Map<String, String> allParams,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "12") int size,
-            @RequestParam(defaultValue = "priceKes,desc") String sort) {
+            @RequestParam(defaultValue = "priceKes,desc") String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(defaultValue = "false") boolean slice,
+            WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.COMMERCIALVEHICLE), request, () -> {
+            Map<String, String> key = new HashMap<>(allParams);
+            key.put("page", String.valueOf(page));
+            key.put("size", String.valueOf(size));
+            key.put("sort", sort);
+            return searchCache.cached(VehicleType.COMMERCIALVEHICLE, "search", key, () -> {
+                String[] sortParts = sort.split(",");
+                Sort s = Sort.by(Sort.Direction.fromString(sortParts.length > 1 ? sortParts[1] : "desc"), sortParts[0]);
 
-        String[] sortParts = sort.split(",");
-        Sort s = Sort.by(Sort.Direction.fromString(sortParts.length > 1 ? sortParts[1] : "desc"), sortParts[0]);
+                // Filter out pagination/sorting parameters
+                Map<String, String> filters = allParams.entrySet().stream()
+                        .filter(entry -> !entry.getKey().equals("page") &&
+                                !entry.getKey().equals("size") &&
+                                !entry.getKey().equals("sort") &&
+                                !entry.getKey().equals("cursor") &&
+                                !entry.getKey().equals("view") &&
+                                !entry.getKey().equals("slice"))
+                        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
 
-        // Filter out pagination/sorting parameters
-        Map<String, String> filters = allParams.entrySet().stream()
-                .filter(entry -> !entry.getKey().equals("page") &&
-                        !entry.getKey().equals("size") &&
-                        !entry.getKey().equals("sort"))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+                // Add APPROVED status for public access
+                if (!filters.containsKey("status")) {
+                    filters.put("status", "APPROVED");
+                }
 
-        // Add APPROVED status for public access
-        if (!filters.containsKey("status")) {
-            filters.put("status", "APPROVED");
-        }
+                // Cursor mode (opt-in): pass cursor= for the first page, then the returned nextCursor
+                if (cursor != null) {
+                    try {
+                        return ResponseEntity.ok(service.searchPublicAfter(filters, cursor, size, s));
+                    } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+                    }
+                }
+
+                Pageable pageable = PageRequest.of(page, size, s);
+
+                // Slice mode (opt-in, for infinite scroll): hasNext instead of the totals, so no COUNT query
+                if (slice) {
+                    return ResponseEntity.ok("card".equalsIgnoreCase(view)
+                            ? service.searchPublicCardsSlice(filters, pageable)
+                            : service.searchPublicSlice(filters, pageable));
+                }
 
-        Pageable pageable = PageRequest.of(page, size, s);
-        Specification<CommercialVehicle> spec = CommercialVehicleSpecification.byFilters(filters);
-        Page<CommercialVehicle> results = repo.findAll(spec, pageable);
+                // Card view (opt-in): slim rows for the result grid, the full vehicle comes from GET /{id}
+                if ("card".equalsIgnoreCase(view)) {
+                    return ResponseEntity.ok(service.searchPublicCards(filters, pageable));
+                }
 
-        return ResponseEntity.ok(results.map(service::toDto));
+                Page<CommercialVehicle> results = service.searchPublic(filters, pageable);
+
+                return ResponseEntity.ok(results.map(service::toDto));
+            });
+        });
     }
     // ------------------- Create -------------------
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -136,6 +182,14 @@ public class CommercialVehicleController {
 
             Sort sortObj = Sort.by(Sort.Order.desc("priceKes"));
 
+            // Slice mode (opt-in): "slice": true in the payload skips the COUNT query
+            if (Boolean.TRUE.equals(payload.get("slice"))) {
+                return ResponseEntity.ok(service.searchByUserRoleSlice(
+                        Map.of("search", search, "type", type),
+                        page, size, sortObj, email, role
+                ));
+            }
+
             Page<CommercialVehicle> cars =
                     service.searchByUserRole(
                             Map.of("search", search, "type", type),
@@ -189,10 +243,42 @@ public class CommercialVehicleController {
 
     // ------------------- Latest Arrivals -------------------
     @GetMapping("/latest")
-    public ResponseEntity<List<CommercialVehicleResponseDTO>> latest() {
+    public ResponseEntity<?> latest(@RequestParam(required = false) String view) {
+        if ("card".equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(service.getLatestArrivalCards());
+        }
         return ResponseEntity.ok(service.getLatestArrivals());
     }
 
+    // ------------------- Filter Options -------------------
+    @GetMapping("/filter-options")
+    public ResponseEntity<?> filterOptions(@RequestParam(required = false) String status, WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.COMMERCIALVEHICLE), request,
+                () -> ResponseEntity.ok(facetCounts.filterOptions(VehicleType.COMMERCIALVEHICLE, status)));
+    }
+
+    // ------------------- Histogram -------------------
+    // field: price, year or mileage; buckets equal buckets, or buckets of width interval; the other
+    // parameters filter as in the search
+    @GetMapping("/histogram")
+    public ResponseEntity<?> histogram(
+            @RequestParam Map<String, String> allParams,
+            @RequestParam(defaultValue = "price") String field,
+            @RequestParam(defaultValue = "10") int buckets,
+            @RequestParam(required = false) Double interval,
+            WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.COMMERCIALVEHICLE), request, () -> {
+            try {
+                return histograms.histogram(VehicleType.COMMERCIALVEHICLE, field, allParams, buckets, interval)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body(Map.of("error", "Histograms are still loading")));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
+    }
+
     // ------------------- Similar Vehicles -------------------
     @GetMapping("/similar")
     public ResponseEntity<List<CommercialVehicleResponseDTO>> similar(
@@ -0,0 +1,26 @@
+package io.reflectoring.carshippingbackend.controllers;
+
+import io.reflectoring.carshippingbackend.services.EmailOutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * /actuator/emailoutbox: queue depth, claimed rows, dead letters and how long the oldest unsent email has
+ * been waiting.
+ */
+@Component
+@Endpoint(id = "emailoutbox")
+@RequiredArgsConstructor
+public class EmailOutboxEndpoint {
+
+    private final EmailOutboxService emailOutboxService;
+
+    @ReadOperation
+    public Map<String, Object> outbox() {
+        return emailOutboxService.stats().toMap();
+    }
+}
@@ -2,6 +2,7 @@ package io.reflectoring.carshippingbackend.controllers;
 
 import io.reflectoring.carshippingbackend.DTO.ImageDTO;
 import io.reflectoring.carshippingbackend.DTO.RotationResponse;
+import io.reflectoring.carshippingbackend.services.CatalogVersionService;
 import io.reflectoring.carshippingbackend.services.ImageRotationService;
 import io.reflectoring.carshippingbackend.services.ImageService;
 import lombok.RequiredArgsConstructor;
@@ -9,8 +10,10 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.time.ZoneId;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -26,6 +29,7 @@ public class ImageController {
 
     private final ImageService imageService;                 // Upload/Delete
     private final ImageRotationService imageRotationService; // 48h Rotation Logic
+    private final CatalogVersionService versions;            // ETag / 304 for /current
 
     /* =========================================================
        GET ALL IMAGES
@@ -42,17 +46,24 @@ public class ImageController {
        GET CURRENT IMAGE (AUTO ROTATES IF 48H PASSED)
        ========================================================= */
     @GetMapping("/current")
-    public ResponseEntity<?> getCurrentImage() {
-
-        RotationResponse rotation = imageRotationService.getCurrentImage();
+    public ResponseEntity<?> getCurrentImage(WebRequest request) {
+        return versions.conditional(CatalogVersionService.IMAGES, request, () -> {
+            RotationResponse rotation = imageRotationService.getCurrentImage();
+
+            // The image also changes when the rotation is due, so the ETag must not outlive that
+            if (rotation.getNextRotation() != null) {
+                versions.expireAt(CatalogVersionService.IMAGES,
+                        rotation.getNextRotation().atZone(ZoneId.systemDefault()).toInstant());
+            }
 
-        return ResponseEntity.ok(Map.of(
-                "success", true,
-                "image", rotation.getCurrentImage(),
-                "nextRotation", rotation.getNextRotation(),
-                "totalImages", rotation.getTotalImages(),
-                "currentIndex", rotation.getCurrentIndex()
-        ));
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "image", rotation.getCurrentImage(),
+                    "nextRotation", rotation.getNextRotation(),
+                    "totalImages", rotation.getTotalImages(),
+                    "currentIndex", rotation.getCurrentIndex()
+            ));
+        });
     }
 
     /* =========================================================
@@ -4,7 +4,11 @@ import io.reflectoring.carshippingbackend.DTO.MotorcycleRequestDTO;
 import io.reflectoring.carshippingbackend.DTO.MotorcycleResponseDTO;
 import io.reflectoring.carshippingbackend.DTO.SellerStatsDTO;
 import io.reflectoring.carshippingbackend.DTO.SoldRequest;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.services.CatalogVersionService;
+import io.reflectoring.carshippingbackend.services.HistogramService;
 import io.reflectoring.carshippingbackend.services.MotorcycleService;
+import io.reflectoring.carshippingbackend.services.SearchResultCache;
 import io.reflectoring.carshippingbackend.services.SellerStatsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -15,6 +19,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -30,6 +35,9 @@ public class MotorcycleController {
 
     private final MotorcycleService service;
     private final SellerStatsService sellerStatsService;
+    private final SearchResultCache searchCache;
+    private final CatalogVersionService versions;
+    private final HistogramService histograms;
 
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -89,20 +97,55 @@ public class MotorcycleController {
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) String priceRange,
-            @RequestParam(required = false) String year
-    ) {
-        Map<String, String> filters = new HashMap<>();
-        if (search != null && !search.isBlank()) filters.put("search", search);
-        if (type != null && !type.isBlank()) filters.put("type", type);
-        if (brand != null && !brand.isBlank()) filters.put("brand", brand);
-        if (priceRange != null && !priceRange.isBlank()) filters.put("priceRange", priceRange);
-        if (year != null && !year.isBlank()) filters.put("year", year);
-
-        // Force APPROVED status
-        filters.put("status", "APPROVED");
-
-        Page<MotorcycleResponseDTO> p = service.searchByFilters(filters, page, size, Sort.by("createdAt").descending());
-        return ResponseEntity.ok(p);
+            @RequestParam(required = false) String year,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) String view,
+            @RequestParam(defaultValue = "false") boolean slice,
+            WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.MOTORCYCLE), request, () -> {
+            Map<String, String> filters = new HashMap<>();
+            if (search != null && !search.isBlank()) filters.put("search", search);
+            if (type != null && !type.isBlank()) filters.put("type", type);
+            if (brand != null && !brand.isBlank()) filters.put("brand", brand);
+            if (priceRange != null && !priceRange.isBlank()) filters.put("priceRange", priceRange);
+            if (year != null && !year.isBlank()) filters.put("year", year);
+
+            Map<String, String> key = new HashMap<>(filters);
+            key.put("page", String.valueOf(page));
+            key.put("size", String.valueOf(size));
+            if (cursor != null) key.put("cursor", cursor);
+            if (view != null) key.put("view", view);
+            if (slice) key.put("slice", "true");
+            return searchCache.cached(VehicleType.MOTORCYCLE, "public", key, () -> {
+                // Force APPROVED status
+                filters.put("status", "APPROVED");
+
+                // Cursor mode (opt-in): pass cursor= for the first page, then the returned nextCursor
+                if (cursor != null) {
+                    try {
+                        return ResponseEntity.ok(service.searchByFiltersAfter(filters, cursor, size, Sort.by("createdAt").descending()));
+                    } catch (IllegalArgumentException e) {
+                        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+                    }
+                }
+
+                // Slice mode (opt-in, for infinite scroll): hasNext instead of the totals, so no COUNT query
+                if (slice) {
+                    Sort newest = Sort.by("createdAt").descending();
+                    return ResponseEntity.ok("card".equalsIgnoreCase(view)
+                            ? service.searchByFiltersCardsSlice(filters, page, size, newest)
+                            : service.searchByFiltersSlice(filters, page, size, newest));
+                }
+
+                // Card view (opt-in): slim rows for the result grid, the full motorcycle comes from GET /{id}
+                if ("card".equalsIgnoreCase(view)) {
+                    return ResponseEntity.ok(service.searchByFiltersCards(filters, page, size, Sort.by("createdAt").descending()));
+                }
+
+                Page<MotorcycleResponseDTO> p = service.searchByFilters(filters, page, size, Sort.by("createdAt").descending());
+                return ResponseEntity.ok(p);
+            });
+        });
     }
 
     // GENERAL LISTING ENDPOINT - Defaults to approved
@@ -130,6 +173,7 @@ public class MotorcycleController {
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String brand,
             @RequestParam(required = false) String owner,
+            @RequestParam(defaultValue = "false") boolean slice,
             Authentication authentication
     ) {
         String currentUserEmail = authentication.getName();
@@ -142,6 +186,13 @@ public class MotorcycleController {
         if (brand != null && !brand.isBlank()) filters.put("brand", brand);
         if (owner != null && !owner.isBlank()) filters.put("owner", owner);
 
+        if (slice) {
+            return ResponseEntity.ok(service.searchByUserRoleSlice(
+                    filters, page, size, Sort.by(Sort.Direction.DESC, "createdAt"),
+                    currentUserEmail, currentUserRole
+            ));
+        }
+
         Page<MotorcycleResponseDTO> p = service.searchByUserRole(
                 filters, page, size, Sort.by(Sort.Direction.DESC, "createdAt"),
                 currentUserEmail, currentUserRole
@@ -158,8 +209,12 @@ public class MotorcycleController {
             @RequestParam(required = false) String make,
             @RequestParam(required = false) String type,
             @RequestParam(required = false) String priceRange,
-            @RequestParam(required = false) String year
+            @RequestParam(required = false) String year,
+            @RequestParam(defaultValue = "false") boolean slice
     ) {
+        if (slice) {
+            return ResponseEntity.ok(service.filterMotorcyclesSlice(page, size, make, type, priceRange, year));
+        }
         Page<MotorcycleResponseDTO> p = service.filterMotorcycles(page, size, make, type, priceRange, year);
         return ResponseEntity.ok(p);
     }
@@ -256,18 +311,53 @@ public class MotorcycleController {
 
     // ADDITIONAL ENDPOINTS
     @GetMapping("/latest")
-    public ResponseEntity<?> getLatestArrivals() {
+    public ResponseEntity<?> getLatestArrivals(@RequestParam(required = false) String view) {
+        if ("card".equalsIgnoreCase(view)) {
+            return ResponseEntity.ok(service.getLatestArrivalCards());
+        }
         return ResponseEntity.ok(service.getLatestArrivals());
     }
 
+    @GetMapping("/similar")
+    public ResponseEntity<?> getSimilar(
+            @RequestParam String brand,
+            @RequestParam String model,
+            @RequestParam(required = false) Long exclude
+    ) {
+        return ResponseEntity.ok(service.getSimilarMotorcycles(brand, model, exclude));
+    }
+
     @GetMapping("/filter-options")
-    public ResponseEntity<?> getFilterOptions() {
-        return ResponseEntity.ok(service.getFilterOptions());
+    public ResponseEntity<?> getFilterOptions(@RequestParam(required = false) String status, WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.MOTORCYCLE), request,
+                () -> ResponseEntity.ok(service.getFilterOptions(status)));
+    }
+
+    // field: price, year or mileage; buckets equal buckets, or buckets of width interval; the other
+    // parameters filter as in the search
+    @GetMapping("/histogram")
+    public ResponseEntity<?> histogram(
+            @RequestParam Map<String, String> allParams,
+            @RequestParam(defaultValue = "price") String field,
+            @RequestParam(defaultValue = "10") int buckets,
+            @RequestParam(required = false) Double interval,
+            WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.MOTORCYCLE), request, () -> {
+            try {
+                return histograms.histogram(VehicleType.MOTORCYCLE, field, allParams, buckets, interval)
+                        .<ResponseEntity<?>>map(ResponseEntity::ok)
+                        .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                                .body(Map.of("error", "Histograms are still loading")));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        });
     }
 
     @GetMapping("/brands")
-    public ResponseEntity<?> getBrandsWithCount() {
-        return ResponseEntity.ok(service.getDistinctBrandsWithCount());
+    public ResponseEntity<?> getBrandsWithCount(WebRequest request) {
+        return versions.conditional(CatalogVersionService.catalogOf(VehicleType.MOTORCYCLE), request,
+                () -> ResponseEntity.ok(service.getDistinctBrandsWithCount()));
     }
     @PutMapping("/{id}/approve")
     @PreAuthorize("hasRole('ADMIN')")
@@ -1,15 +1,20 @@
 package io.reflectoring.carshippingbackend.repository;
 import io.reflectoring.carshippingbackend.tables.Car;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
     @Query("SELECT c FROM Car c WHERE c.brand = :brand AND c.model = :model AND c.id != :excludeId")
@@ -22,30 +27,57 @@ public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificatio
     long countByPostedBy(String email);
     @Query("SELECT DISTINCT new map(c.model as name) FROM Car c WHERE c.brand = :make ORDER BY c.model")
     List<Map<String, Object>> findDistinctModelsByMake(@Param("make") String make);
-    @Query("""
+    String SEARCH = """
 SELECT c FROM Car c
 WHERE 
     (:#{#filters == null || #filters['brand'] == null || #filters['brand'] == ''} = true OR c.brand LIKE %:#{#filters['brand']}%)
 AND 
     (:#{#filters == null || #filters['model'] == null || #filters['model'] == ''} = true OR c.model LIKE %:#{#filters['model']}%)
-""")
-    Page<Car> search(@Param("filters") Map<String, String> filters, Pageable pageable);
+""";
 
-    @Query("""
-SELECT c FROM Car c
-WHERE 
-    (:#{#filters == null || #filters['brand'] == null || #filters['brand'] == ''} = true OR c.brand LIKE %:#{#filters['brand']}%)
-AND 
-    (:#{#filters == null || #filters['model'] == null || #filters['model'] == ''} = true OR c.model LIKE %:#{#filters['model']}%)
+    String SEARCH_BY_SELLER = SEARCH + """
 AND 
     LOWER(c.seller) = LOWER(:email)
-""")
+""";
+
+    @Query(SEARCH)
+    Page<Car> search(@Param("filters") Map<String, String> filters, Pageable pageable);
+
+    // As search, fetching one extra row instead of running the COUNT
+    @Query(SEARCH)
+    Slice<Car> searchSlice(@Param("filters") Map<String, String> filters, Pageable pageable);
+
+    @Query(SEARCH_BY_SELLER)
     Page<Car> searchBySeller(@Param("filters") Map<String, String> filters, Pageable pageable, @Param("email") String email);
 
+    @Query(SEARCH_BY_SELLER)
+    Slice<Car> searchBySellerSlice(@Param("filters") Map<String, String> filters, Pageable pageable, @Param("email") String email);
+
     Page<Car> findByStatus(String status, Pageable pageable);
     @Query("SELECT c FROM Car c WHERE c.status = 'approved'")
     List<Car> findByStatusApproved(Pageable pageable);
     Optional<Car> findByReviewToken(String token);
 
-}
+    // Rows written before the typed numeric columns existed (see Car#syncNumericColumns)
+    @Query("""
+SELECT c FROM Car c
+WHERE c.id > :afterId
+AND (
+    (c.priceKes IS NOT NULL AND c.priceKesValue IS NULL)
+    OR (c.yearOfManufacture IS NOT NULL AND c.yearValue IS NULL)
+    OR (c.mileageKm IS NOT NULL AND c.mileageKmValue IS NULL)
+    OR (c.engineCapacityCc IS NOT NULL AND c.engineCapacityCcValue IS NULL)
+)
+ORDER BY c.id
+""")
+    List<Car> findNumericBackfillBatch(@Param("afterId") Long afterId, Pageable pageable);
 
+    // Forward-only read of every row for the admin export. With this fetch size MySQL Connector/J streams
+    // the rows one at a time instead of buffering the whole result; read-only skips the dirty-check copies.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Car c ORDER BY c.id")
+    Stream<Car> streamAllForExport();
+}
@@ -1,16 +1,20 @@
 package io.reflectoring.carshippingbackend.repository;
 
 import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface CommercialVehicleRepository extends
         JpaRepository<CommercialVehicle, Long>,
@@ -94,4 +98,26 @@ public interface CommercialVehicleRepository extends
     );
     long countBySeller(String email);
 Optional<CommercialVehicle> findByReviewToken(String token);
-}
\ No newline at end of file
+
+    // ============= ROWS MISSING TYPED NUMERIC COLUMNS (see CommercialVehicle#syncNumericColumns) =============
+    @Query("""
+        SELECT c FROM CommercialVehicle c
+        WHERE c.id > :afterId
+        AND (
+            (c.yearOfManufacture IS NOT NULL AND c.yearValue IS NULL)
+            OR (c.mileageKm IS NOT NULL AND c.mileageKmValue IS NULL)
+            OR (c.engineCapacityCc IS NOT NULL AND c.engineCapacityCcValue IS NULL)
+            OR (c.payloadCapacityKg IS NOT NULL AND c.payloadCapacityKgValue IS NULL)
+        )
+        ORDER BY c.id
+        """)
+    List<CommercialVehicle> findNumericBackfillBatch(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Streamed row by row for the admin export, like CarRepository.streamAllForExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT v FROM CommercialVehicle v ORDER BY v.id")
+    Stream<CommercialVehicle> streamAllForExport();
+}
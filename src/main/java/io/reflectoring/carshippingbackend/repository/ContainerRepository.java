@@ -1,8 +1,14 @@
 package io.reflectoring.carshippingbackend.repository;
 import io.reflectoring.carshippingbackend.tables.Container;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.stream.Stream;
 
 public interface ContainerRepository extends JpaRepository<Container, Long> {
 
@@ -11,4 +17,12 @@ public interface ContainerRepository extends JpaRepository<Container, Long> {
     );
 
     Page<Container> findByStatusIgnoreCase(String status, Pageable pageable);
+
+    // Streamed row by row for the admin export, like CarRepository.streamAllForExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT c FROM Container c ORDER BY c.id")
+    Stream<Container> streamAllForExport();
 }
@@ -0,0 +1,88 @@
+package io.reflectoring.carshippingbackend.repository;
+
+import io.reflectoring.carshippingbackend.Enum.OutboxStatus;
+import io.reflectoring.carshippingbackend.tables.EmailOutbox;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+
+    // Pending rows that are due, plus claims whose holder died before finishing
+    @Query("""
+            SELECT e.id FROM EmailOutbox e
+            WHERE e.status IN (io.reflectoring.carshippingbackend.Enum.OutboxStatus.PENDING,
+                               io.reflectoring.carshippingbackend.Enum.OutboxStatus.SENDING)
+              AND e.nextAttemptAt <= :now
+            ORDER BY e.nextAttemptAt
+            """)
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Succeeds for exactly one claimant: the winner moves nextAttemptAt past :now
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox e
+            SET e.status = io.reflectoring.carshippingbackend.Enum.OutboxStatus.SENDING,
+                e.nextAttemptAt = :leaseUntil,
+                e.attempts = e.attempts + 1
+            WHERE e.id = :id
+              AND e.status IN (io.reflectoring.carshippingbackend.Enum.OutboxStatus.PENDING,
+                               io.reflectoring.carshippingbackend.Enum.OutboxStatus.SENDING)
+              AND e.nextAttemptAt <= :now
+            """)
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // The attempt number a claim was made with; a later claim of the same row carries a higher one
+    @Query("SELECT e.attempts FROM EmailOutbox e WHERE e.id = :id")
+    int findAttemptsById(@Param("id") Long id);
+
+    // Extends a claim right before its email is sent; 0 when the row has been claimed again since
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox e
+            SET e.nextAttemptAt = :leaseUntil
+            WHERE e.id = :id
+              AND e.status = io.reflectoring.carshippingbackend.Enum.OutboxStatus.SENDING
+              AND e.attempts = :attempt
+            """)
+    int renewClaim(@Param("id") Long id, @Param("attempt") int attempt, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Records the outcome of a claim, unless the row has been claimed again since
+    @Modifying
+    @Query("""
+            UPDATE EmailOutbox e
+            SET e.status = :status,
+                e.nextAttemptAt = :nextAttemptAt,
+                e.sentAt = :sentAt,
+                e.lastError = :lastError
+            WHERE e.id = :id
+              AND e.status = io.reflectoring.carshippingbackend.Enum.OutboxStatus.SENDING
+              AND e.attempts = :attempt
+            """)
+    int completeClaim(@Param("id") Long id, @Param("attempt") int attempt, @Param("status") OutboxStatus status,
+                      @Param("nextAttemptAt") LocalDateTime nextAttemptAt, @Param("sentAt") LocalDateTime sentAt,
+                      @Param("lastError") String lastError);
+
+    long countByStatus(OutboxStatus status);
+
+    // Locked, so the poller cannot claim the row while a new notification is merged into it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<EmailOutbox> findFirstByRecipientAndCoalesceKeyAndStatusOrderByIdDesc(
+            String recipient, String coalesceKey, OutboxStatus status);
+
+    // One status at a time, so MySQL answers it with a single lookup on idx_email_outbox_age
+    @Query("SELECT MIN(e.createdAt) FROM EmailOutbox e WHERE e.status = :status")
+    LocalDateTime findOldestCreatedAt(@Param("status") OutboxStatus status);
+
+    @Modifying
+    @Query("DELETE FROM EmailOutbox e WHERE e.status = :status AND e.sentAt < :before")
+    int deleteSentBefore(@Param("status") OutboxStatus status, @Param("before") LocalDateTime before);
+}
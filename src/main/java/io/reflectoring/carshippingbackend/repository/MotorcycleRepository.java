@@ -1,16 +1,20 @@
 package io.reflectoring.carshippingbackend.repository;
 
 import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MotorcycleRepository extends
         JpaRepository<Motorcycle, Long>,
@@ -51,4 +55,12 @@ public interface MotorcycleRepository extends
             LOWER(m.owner) = LOWER(:email)
         """)
     Page<Motorcycle> searchBySeller(@Param("filters") Map<String, String> filters, Pageable pageable, @Param("email") String email);
-}
\ No newline at end of file
+
+    // Streamed row by row for the admin export, like CarRepository.streamAllForExport
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT m FROM Motorcycle m ORDER BY m.id")
+    Stream<Motorcycle> streamAllForExport();
+}
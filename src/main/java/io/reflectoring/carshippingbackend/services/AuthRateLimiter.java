@@ -0,0 +1,186 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token buckets for the unauthenticated auth endpoints (login, forgot-password, resend-code): one per
+ * endpoint and client IP, and one per endpoint, email and client IP. The account bucket is keyed by the
+ * address too, so attempts made against someone's email from elsewhere never throttle the owner. Login
+ * only charges the account bucket for failed attempts ({@link #checkAttempt} then {@link #recordFailure}),
+ * so signing in successfully never uses it up.
+ *
+ * Buckets live in a fixed number of stripes, each behind its own lock, so lookups rarely contend. Once a
+ * stripe holds more than max-keys-per-stripe buckets, the ones that have refilled to capacity are dropped:
+ * they are indistinguishable from a fresh bucket, so dropping them never hands anyone extra attempts, and
+ * a flood of made-up emails cannot flush a bucket that is still throttling. Everything else expires by
+ * time, so memory is bounded by the attempts the IP buckets let through within one refill period.
+ * Refusals are counted in auth.rate_limited (tags endpoint and key).
+ */
+@Service
+public class AuthRateLimiter {
+
+    private static final int STRIPES = 64;
+
+    private static final class Bucket {
+        final Limit limit;
+        double tokens;
+        long refilledAt;
+
+        Bucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.capacity();
+            this.refilledAt = now;
+        }
+
+        void refill(long now) {
+            tokens = Math.min(limit.capacity(), tokens + (now - refilledAt) * limit.tokensPerMilli());
+            refilledAt = now;
+        }
+
+        boolean fullAt(long now) {
+            return tokens + (now - refilledAt) * limit.tokensPerMilli() >= limit.capacity();
+        }
+
+        long secondsUntilNextToken() {
+            return Math.max(1, (long) Math.ceil((1 - tokens) / limit.tokensPerMilli() / 1000));
+        }
+    }
+
+    private record Limit(int capacity, double tokensPerMilli) {
+
+        static Limit perMinute(int capacity, int refillPerMinute) {
+            return new Limit(capacity, refillPerMinute / 60_000.0);
+        }
+    }
+
+    private static final class Stripe {
+        final Map<String, Bucket> buckets = new LinkedHashMap<>();
+        int sweepAt;
+
+        Stripe(int sweepAt) {
+            this.sweepAt = sweepAt;
+        }
+    }
+
+    private final boolean enabled;
+    private final Limit emailLimit;
+    private final Limit ipLimit;
+    private final int maxKeysPerStripe;
+    private final MeterRegistry meterRegistry;
+    private final Stripe[] stripes;
+
+    public AuthRateLimiter(MeterRegistry meterRegistry,
+                           @Value("${app.auth-rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.auth-rate-limit.email.capacity:5}") int emailCapacity,
+                           @Value("${app.auth-rate-limit.email.refill-per-minute:1}") int emailRefill,
+                           @Value("${app.auth-rate-limit.ip.capacity:30}") int ipCapacity,
+                           @Value("${app.auth-rate-limit.ip.refill-per-minute:10}") int ipRefill,
+                           @Value("${app.auth-rate-limit.max-keys-per-stripe:1000}") int maxKeysPerStripe) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.emailLimit = Limit.perMinute(emailCapacity, emailRefill);
+        this.ipLimit = Limit.perMinute(ipCapacity, ipRefill);
+        this.maxKeysPerStripe = maxKeysPerStripe;
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(maxKeysPerStripe);
+        }
+    }
+
+    /**
+     * Takes one token from the endpoint's IP bucket and, when an email is given, its email-and-IP bucket.
+     *
+     * @return 0 when allowed, otherwise the seconds until the next attempt would be
+     */
+    public long tryAcquire(String endpoint, String email, String clientIp) {
+        if (!enabled) return 0;
+        if (clientIp != null) {
+            long wait = take(ipKey(endpoint, clientIp), ipLimit, true);
+            if (wait > 0) return refused(endpoint, "ip", wait);
+        }
+        if (hasEmail(email)) {
+            long wait = take(emailKey(endpoint, email, clientIp), emailLimit, true);
+            if (wait > 0) return refused(endpoint, "email", wait);
+        }
+        return 0;
+    }
+
+    /**
+     * Takes one token from the endpoint's IP bucket and checks, without taking one, that the email-and-IP
+     * bucket has an attempt left. Pair with {@link #recordFailure} once the attempt turns out to be wrong.
+     *
+     * @return 0 when allowed, otherwise the seconds until the next attempt would be
+     */
+    public long checkAttempt(String endpoint, String email, String clientIp) {
+        if (!enabled) return 0;
+        if (clientIp != null) {
+            long wait = take(ipKey(endpoint, clientIp), ipLimit, true);
+            if (wait > 0) return refused(endpoint, "ip", wait);
+        }
+        if (hasEmail(email)) {
+            long wait = take(emailKey(endpoint, email, clientIp), emailLimit, false);
+            if (wait > 0) return refused(endpoint, "email", wait);
+        }
+        return 0;
+    }
+
+    /**
+     * Charges a failed attempt to the email-and-IP bucket checked by {@link #checkAttempt}.
+     */
+    public void recordFailure(String endpoint, String email, String clientIp) {
+        if (!enabled || !hasEmail(email)) return;
+        take(emailKey(endpoint, email, clientIp), emailLimit, true);
+    }
+
+    private static boolean hasEmail(String email) {
+        return email != null && !email.isBlank();
+    }
+
+    private static String ipKey(String endpoint, String clientIp) {
+        return endpoint + "|ip|" + clientIp;
+    }
+
+    private static String emailKey(String endpoint, String email, String clientIp) {
+        return endpoint + "|email|" + email.trim().toLowerCase() + "|" + clientIp;
+    }
+
+    private long take(String key, Limit limit, boolean consume) {
+        Stripe stripe = stripes[Math.floorMod(key.hashCode(), STRIPES)];
+        long now = System.currentTimeMillis();
+        synchronized (stripe) {
+            Bucket bucket = stripe.buckets.get(key);
+            if (bucket == null) {
+                if (!consume) return 0;
+                if (stripe.buckets.size() >= stripe.sweepAt) sweep(stripe, now);
+                bucket = new Bucket(limit, now);
+                stripe.buckets.put(key, bucket);
+            }
+            bucket.refill(now);
+            if (bucket.tokens < 1) return bucket.secondsUntilNextToken();
+            if (consume) bucket.tokens -= 1;
+            return 0;
+        }
+    }
+
+    // Drops the buckets that are full again. When too few are, the next sweep waits until the stripe has
+    // doubled, so a burst of distinct keys does not pay for a full scan on every insert
+    private void sweep(Stripe stripe, long now) {
+        for (Iterator<Bucket> it = stripe.buckets.values().iterator(); it.hasNext(); ) {
+            if (it.next().fullAt(now)) it.remove();
+        }
+        stripe.sweepAt = Math.max(maxKeysPerStripe, stripe.buckets.size() * 2);
+    }
+
+    private long refused(String endpoint, String key, long wait) {
+        Counter.builder("auth.rate_limited").tag("endpoint", endpoint).tag("key", key)
+                .register(meterRegistry).increment();
+        return wait;
+    }
+}
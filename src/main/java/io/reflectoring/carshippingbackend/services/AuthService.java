@@ -7,7 +7,6 @@ import io.reflectoring.carshippingbackend.Enum.Role;
 import io.reflectoring.carshippingbackend.Util.JwtUtil;
 import io.reflectoring.carshippingbackend.tables.User;
 import lombok.RequiredArgsConstructor;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import java.util.Objects;
@@ -22,7 +21,7 @@ public class AuthService {
 
     private final UserService userService;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashing;
     private final EmailService emailService;
 
     public AuthResponse registerUser(SignupRequest signupRequest, Set<Role> roles) {
@@ -51,7 +50,8 @@ public class AuthService {
 
         User user = userOptional.get();
 
-        if (!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) {
+        // Off the request thread, on the bounded hashing pool (throws BusyException when saturated)
+        if (!passwordHashing.matches(loginRequest.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid password");
         }
 
@@ -62,11 +62,8 @@ public class AuthService {
 
     public Optional<User> validateToken(String token) {
         try {
-            if (!jwtUtil.validateToken(token)) {
-                return Optional.empty();
-            }
-            String email = jwtUtil.extractEmail(token);
-            return userService.findByEmail(email);
+            return jwtUtil.verify(token)
+                    .flatMap(claims -> userService.findByEmail(claims.getSubject()));
         } catch (Exception e) {
             return Optional.empty();
         }
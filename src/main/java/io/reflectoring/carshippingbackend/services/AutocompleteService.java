@@ -0,0 +1,147 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.repository.CarRepository;
+import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
+import io.reflectoring.carshippingbackend.repository.MotorcycleRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Typeahead for brand, model and location over the APPROVED listings, per vehicle type and across all of
+ * them, ranked by how many listings have each value. Model suggestions can be narrowed to one brand.
+ *
+ * Every (vehicle type, field) pair has a {@link PrefixTrie}; they are filled once when the application
+ * is ready and then moved one listing at a time by {@link ListingChangedEvent}s.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class AutocompleteService {
+
+    public static final List<String> FIELDS = List.of("brand", "model", "location");
+
+    private static final int LOAD_BATCH_SIZE = 500;
+    private static final String ALL_TYPES = "ALL";
+
+    private final CarRepository carRepository;
+    private final MotorcycleRepository motorcycleRepository;
+    private final CommercialVehicleRepository commercialVehicleRepository;
+
+    // "CAR/brand", "ALL/location", "MOTORCYCLE/model|yamaha", ...
+    private final Map<String, PrefixTrie> tries = new ConcurrentHashMap<>();
+    // The trie keys and values each listing was last counted under
+    private final Map<VehicleType, Map<Long, Map<String, String>>> counted = new EnumMap<>(Map.of(
+            VehicleType.CAR, new HashMap<>(),
+            VehicleType.MOTORCYCLE, new HashMap<>(),
+            VehicleType.COMMERCIALVEHICLE, new HashMap<>()
+    ));
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        ready = false;
+        tries.values().forEach(PrefixTrie::clear);
+        counted.values().forEach(Map::clear);
+        load(page -> carRepository.findAll(CarSpecification.byApprovedStatus(), page), CatalogEntry::ofCar);
+        load(page -> motorcycleRepository.findAll(MotorcycleSpecification.byApprovedStatus(), page),
+                CatalogEntry::ofMotorcycle);
+        load(page -> commercialVehicleRepository.findAll(CommercialVehicleSpecification.byApprovedStatus(), page),
+                CatalogEntry::ofCommercialVehicle);
+        ready = true;
+        log.info("Autocomplete loaded: {} tries", tries.size());
+    }
+
+    private <T> void load(Function<Pageable, Page<T>> fetch, Function<T, CatalogEntry> toEntry) {
+        Pageable pageable = PageRequest.of(0, LOAD_BATCH_SIZE, Sort.by("id"));
+        Page<T> batch;
+        do {
+            batch = fetch.apply(pageable);
+            batch.forEach(row -> put(toEntry.apply(row)));
+            pageable = batch.nextPageable();
+        } while (batch.hasNext());
+    }
+
+    @Order(ListingChangedEvent.READ_MODELS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onListingChanged(ListingChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getVehicleType(), event.getListingId());
+        } else {
+            put(CatalogEntry.from(event.getListing()));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Up to {@code limit} values of a field starting with {@code prefix}, most listed first, as
+     * {name, count} rows. {@code type} null means all vehicle types; {@code brand} only narrows models.
+     * Empty until loaded.
+     */
+    public Optional<List<Map<String, Object>>> suggest(VehicleType type, String field, String prefix,
+                                                       String brand, int limit) {
+        if (!ready) return Optional.empty();
+        String key = (type == null ? ALL_TYPES : type.name()) + "/" + trieField(field, brand);
+        PrefixTrie trie = tries.get(key);
+        if (trie == null) return Optional.of(Collections.emptyList());
+        List<Map<String, Object>> rows = new ArrayList<>();
+        trie.top(prefix, limit).forEach(suggestion ->
+                rows.add(Map.of("name", suggestion.value(), "count", suggestion.count())));
+        return Optional.of(rows);
+    }
+
+    // ==================== COUNTING ====================
+
+    private synchronized void put(CatalogEntry entry) {
+        remove(entry.getVehicleType(), entry.getId());
+        if (!entry.isApproved()) return;
+
+        Map<String, String> values = new HashMap<>();
+        for (String field : FIELDS) {
+            String value = entry.facet(field);
+            if (value == null || value.isBlank()) continue;
+            values.put(field, value);
+        }
+        String brand = values.get("brand");
+        String model = values.get("model");
+        if (brand != null && model != null) values.put(trieField("model", brand), model);
+
+        values.forEach((field, value) -> {
+            trie(entry.getVehicleType().name() + "/" + field).add(value);
+            trie(ALL_TYPES + "/" + field).add(value);
+        });
+        counted.get(entry.getVehicleType()).put(entry.getId(), values);
+    }
+
+    private void remove(VehicleType type, Long id) {
+        Map<String, String> values = counted.get(type).remove(id);
+        if (values == null) return;
+        values.forEach((field, value) -> {
+            trie(type.name() + "/" + field).remove(value);
+            trie(ALL_TYPES + "/" + field).remove(value);
+        });
+    }
+
+    private PrefixTrie trie(String key) {
+        return tries.computeIfAbsent(key, k -> new PrefixTrie());
+    }
+
+    private static String trieField(String field, String brand) {
+        if (!"model".equals(field) || brand == null || brand.isBlank()) return field;
+        return "model|" + brand.trim().toLowerCase();
+    }
+}
@@ -1,7 +1,5 @@
 package io.reflectoring.carshippingbackend.services;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
 import io.reflectoring.carshippingbackend.repository.*;
 import io.reflectoring.carshippingbackend.tables.*;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +8,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -27,7 +26,7 @@ import java.util.regex.Pattern;
 public class AuxiliaryService {
     private final ItemRequestRepository itemRequestRepository;
     private final ReviewRepository reviewRepository;
-    private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
     private final EmailService emailService;
     private final CarRepository carRepository;
     private final MotorcycleRepository motorcycleRepository;
@@ -70,6 +69,7 @@ public class AuxiliaryService {
     }
 
     // Create new item request
+    @Transactional
     public ItemRequest createItemRequest(
             ItemRequest request,
             MultipartFile[] images,
@@ -111,6 +111,7 @@ public class AuxiliaryService {
     }
 
     // Update request status
+    @Transactional
     public ItemRequest updateRequestStatus(Long id, String status) {
         ItemRequest request = itemRequestRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Request not found"));
@@ -134,6 +135,7 @@ public class AuxiliaryService {
     }
 
     // Admin update order
+    @Transactional
     public ItemRequest adminUpdateOrder(Long id, ItemRequest updatedRequest) {
         ItemRequest existingOrder = itemRequestRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Order not found"));
@@ -656,20 +658,8 @@ public class AuxiliaryService {
 
     // Helper: Upload images to Cloudinary
     private List<String> uploadImages(MultipartFile[] images) throws IOException {
-        List<String> urls = new ArrayList<>();
-        for (MultipartFile file : images) {
-            if (!file.isEmpty()) {
-                Map uploadResult = cloudinary.uploader().upload(
-                        file.getBytes(),
-                        ObjectUtils.asMap(
-                                "folder", "auxiliary-items",
-                                "resource_type", "auto"
-                        )
-                );
-                urls.add((String) uploadResult.get("secure_url"));
-            }
-        }
-        return urls;
+        List<MultipartFile> files = Arrays.stream(images).filter(file -> !file.isEmpty()).toList();
+        return imageUploads.uploadAll(files, ImageUploadService.inFolder("auxiliary-items"));
     }
 
     // Helper: Update order fields
@@ -1,15 +1,20 @@
 package io.reflectoring.carshippingbackend.services;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import io.reflectoring.carshippingbackend.DTO.CursorPage;
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
 import io.reflectoring.carshippingbackend.DTO.MotorcycleResponseDTO;
+import io.reflectoring.carshippingbackend.DTO.SlicePage;
 import io.reflectoring.carshippingbackend.DTO.SoldRequest;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
 import io.reflectoring.carshippingbackend.repository.CarRepository;
 import io.reflectoring.carshippingbackend.tables.Car;
 import io.reflectoring.carshippingbackend.tables.Motorcycle;
-import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
@@ -22,12 +27,21 @@ import java.util.stream.Collectors;
 public class CarService {
     private final CarRepository repo;
     private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
     private EmailService emailService;
+    private final CatalogIndexService catalogIndex;
+    private final ListingCardService cards;
+    private final ApplicationEventPublisher events;
+    private final FacetCountService facetCounts;
 
     private String uploadDir;
 
-    public CarService(CarRepository repo, Cloudinary cloudinary,EmailService emailService) { this.repo = repo;
-        this.cloudinary = cloudinary; this.emailService=emailService;
+    public CarService(CarRepository repo, Cloudinary cloudinary, ImageUploadService imageUploads, EmailService emailService,
+                      CatalogIndexService catalogIndex, ListingCardService cards,
+                      ApplicationEventPublisher events, FacetCountService facetCounts) { this.repo = repo;
+        this.cloudinary = cloudinary; this.imageUploads = imageUploads; this.emailService=emailService;
+        this.catalogIndex = catalogIndex; this.cards = cards; this.events = events;
+        this.facetCounts = facetCounts;
     }
 
     public Page<Car> search(Map<String, String> params, int page, int size, Sort sort) {
@@ -36,17 +50,77 @@ public class CarService {
         return repo.findAll(spec, pageable);
     }
     public Page<Car> searchApproved(Map<String, String> params, int page, int size, Sort sort) {
+        Pageable pageable = PageRequest.of(page, size, CarSpecification.withTypedColumns(sort));
+
+        // Served from the in-memory catalog index when it can answer the filters
+        var hits = catalogIndex.search(VehicleType.CAR, params, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toPage(hits.get(), ids -> repo.findAllById(ids), Car::getId, pageable);
+        }
+
         var spec = CarSpecification.byFilters(params)
                 .and((root, query, cb) -> cb.equal(root.get("status"), "APPROVED"));
-        Pageable pageable = PageRequest.of(page, size, sort);
         return repo.findAll(spec, pageable);
     }
+
+    // Card view of searchApproved: only the columns a result card shows, no LOBs
+    public Page<ListingCardDTO> searchApprovedCards(Map<String, String> params, int page, int size, Sort sort) {
+        Pageable pageable = PageRequest.of(page, size, CarSpecification.withTypedColumns(sort));
+
+        var hits = catalogIndex.search(VehicleType.CAR, params, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toPage(hits.get(), ids -> cards.findByIds(Car.class, ids), ListingCardDTO::getId, pageable);
+        }
+
+        var spec = CarSpecification.byFilters(params)
+                .and((root, query, cb) -> cb.equal(root.get("status"), "APPROVED"));
+        return cards.find(Car.class, spec, pageable);
+    }
+
+    // Count-free variants of searchApproved and searchApprovedCards for infinite scroll: size + 1 rows, no COUNT
+    public SlicePage<Car> searchApprovedSlice(Map<String, String> params, int page, int size, Sort sort) {
+        Pageable pageable = PageRequest.of(page, size, CarSpecification.withTypedColumns(sort));
+
+        var hits = catalogIndex.search(VehicleType.CAR, params, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toSlice(hits.get(), ids -> repo.findAllById(ids), Car::getId, pageable);
+        }
+
+        var spec = CarSpecification.byFilters(params)
+                .and((root, query, cb) -> cb.equal(root.get("status"), "APPROVED"));
+        return SlicePage.of(repo.findBy(spec, q -> q.slice(pageable)),
+                facetCounts.total(VehicleType.CAR, "APPROVED", params));
+    }
+
+    public SlicePage<ListingCardDTO> searchApprovedCardsSlice(Map<String, String> params, int page, int size, Sort sort) {
+        Pageable pageable = PageRequest.of(page, size, CarSpecification.withTypedColumns(sort));
+
+        var hits = catalogIndex.search(VehicleType.CAR, params, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toSlice(hits.get(), ids -> cards.findByIds(Car.class, ids), ListingCardDTO::getId, pageable);
+        }
+
+        var spec = CarSpecification.byFilters(params)
+                .and((root, query, cb) -> cb.equal(root.get("status"), "APPROVED"));
+        return SlicePage.of(cards.findSlice(Car.class, spec, pageable),
+                facetCounts.total(VehicleType.CAR, "APPROVED", params));
+    }
+
+    // Keyset-paginated variant of searchApproved: no OFFSET scan and no COUNT query
+    public CursorPage<Car> searchApprovedAfter(Map<String, String> params, String cursor, int size, Sort sort) {
+        var spec = CarSpecification.byFilters(params)
+                .and((root, query, cb) -> cb.equal(root.get("status"), "APPROVED"));
+        return KeysetPagination.fetch(repo, spec, CarSpecification.withTypedColumns(sort), cursor, size);
+    }
+    @Transactional
     public Car approveCar(Long id) {
         Car car = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Car not found"));
+        String previousStatus = car.getStatus();
 
         car.setStatus("APPROVED");
         Car saved = repo.save(car);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.CAR, saved.getId(), saved, previousStatus));
 
         // 📧 Notify seller
         if (car.getPostedBy() != null) {
@@ -83,31 +157,21 @@ public class CarService {
 
         // Handle image uploads
         if (images != null && images.length > 0) {
-            List<String> urls = new ArrayList<>();
-            for (MultipartFile f : images) {
-                String uniqueFileName = UUID.randomUUID() + "-" +
-                        Objects.requireNonNull(f.getOriginalFilename()).replaceAll("\\s+", "_");
-
-                Map uploadResult = cloudinary.uploader().upload(
-                        f.getBytes(),
-                        ObjectUtils.asMap(
-                                "public_id", "uploads/" + uniqueFileName,
-                                "resource_type", "auto"
-                        )
-                );
-                urls.add((String) uploadResult.get("secure_url"));
-            }
-            car.setImageUrls(urls);
+            car.setImageUrls(imageUploads.uploadAll(Arrays.asList(images), ImageUploadService.publicIdUnder("uploads/")));
         }
 
-        return repo.save(car);
+        Car saved = repo.save(car);
+        events.publishEvent(ListingChangedEvent.created(VehicleType.CAR, saved.getId(), saved));
+        return saved;
     }
     public Car rejectCar(Long id, String reason) {
         Car car = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Car not found"));
+        String previousStatus = car.getStatus();
 
         car.setStatus("REJECTED");
         Car saved = repo.save(car);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.CAR, saved.getId(), saved, previousStatus));
 
         // 📧 Notify seller
         if (car.getPostedBy() != null) {
@@ -135,6 +199,7 @@ public class CarService {
         // 1 Fetch existing car
         Car existing = repo.findById(car.getId())
                 .orElseThrow(() -> new RuntimeException("Car not found with ID: " + car.getId()));
+        String previousStatus = existing.getStatus();
 
         // 2 Update fields
         existing.setBrand(car.getBrand());
@@ -187,25 +252,19 @@ public class CarService {
 
         // 5 Upload new images
         if (images != null && images.length > 0) {
-            for (MultipartFile f : images) {
-                String uniqueFileName = UUID.randomUUID() + "-" +
-                        Objects.requireNonNull(f.getOriginalFilename()).replaceAll("\\s+", "_");
-
-                Map uploadResult = cloudinary.uploader().upload(
-                        f.getBytes(),
-                        ObjectUtils.asMap(
-                                "public_id", "uploads/" + uniqueFileName,
-                                "resource_type", "auto"
-                        )
-                );
-
-                updatedUrls.add((String) uploadResult.get("secure_url"));
-            }
+            updatedUrls.addAll(imageUploads.uploadAll(Arrays.asList(images), ImageUploadService.publicIdUnder("uploads/")));
         }
 
         // 6 Save updated URLs and persist
         existing.setImageUrls(updatedUrls);
-        return repo.save(existing);
+        Car saved = repo.save(existing);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.CAR, saved.getId(), saved, previousStatus));
+        return saved;
+    }
+
+    public void delete(Long id) {
+        repo.deleteById(id);
+        events.publishEvent(ListingChangedEvent.deleted(VehicleType.CAR, id));
     }
 
     /**
@@ -227,7 +286,7 @@ public class CarService {
     }
 
     public Page<Car> searchByUserRole(Map<String, String> allParams, int page, int size, Sort sort, String currentUserEmail, String currentUserRole) {
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, CarSpecification.withTypedColumns(sort));
 
         switch (currentUserRole.replace("ROLE_", "").toUpperCase()) {
             case "ADMIN":
@@ -238,11 +297,28 @@ public class CarService {
                 throw new RuntimeException("Unauthorized access");
         }
     }
+
+    // Count-free variant of searchByUserRole; only an admin's unfiltered listing has a total
+    public SlicePage<Car> searchByUserRoleSlice(Map<String, String> allParams, int page, int size, Sort sort, String currentUserEmail, String currentUserRole) {
+        Pageable pageable = PageRequest.of(page, size, CarSpecification.withTypedColumns(sort));
+
+        switch (currentUserRole.replace("ROLE_", "").toUpperCase()) {
+            case "ADMIN":
+                // The dashboard query ignores the status filter, so the total is over every status
+                return SlicePage.of(repo.searchSlice(allParams, pageable),
+                        facetCounts.total(VehicleType.CAR, null, allParams));
+            case "SELLER":
+                return SlicePage.of(repo.searchBySellerSlice(allParams, pageable, currentUserEmail), null);
+            default:
+                throw new RuntimeException("Unauthorized access");
+        }
+    }
     @Transactional
     public Car markAsSold(Long id, SoldRequest request) {
 
         Car m = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Motorcycle not found"));
+        String previousStatus = m.getStatus();
 
         m.setStatus("SOLD");
 
@@ -258,6 +334,7 @@ public class CarService {
         m.setReviewSubmitted("NOTSENT");
 
         repo.save(m);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.CAR, m.getId(), m, previousStatus));
 
         emailService.sendReviewEmail(
                 m.getBuyerEmail(),
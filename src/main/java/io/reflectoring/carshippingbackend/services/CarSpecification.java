@@ -2,6 +2,7 @@ package io.reflectoring.carshippingbackend.services;
 
 import io.reflectoring.carshippingbackend.tables.Car;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
@@ -10,6 +11,21 @@ import java.util.Map;
 
 public class CarSpecification {
 
+    // String columns whose typed shadow column should be used for ORDER BY
+    private static final Map<String, String> TYPED_SORT_COLUMNS = Map.of(
+            "priceKes", "priceKesValue",
+            "yearOfManufacture", "yearValue",
+            "mileageKm", "mileageKmValue",
+            "engineCapacityCc", "engineCapacityCcValue"
+    );
+
+    // Sorts numerically (and on an indexed column) instead of lexicographically on the string columns
+    public static Sort withTypedColumns(Sort sort) {
+        return Sort.by(sort.stream()
+                .map(order -> order.withProperty(TYPED_SORT_COLUMNS.getOrDefault(order.getProperty(), order.getProperty())))
+                .toList());
+    }
+
     public static Specification<Car> byFilters(Map<String, String> params) {
         return (root, query, cb) -> {
             List<Predicate> preds = new ArrayList<>();
@@ -62,62 +78,61 @@ public class CarSpecification {
                 preds.add(cb.like(cb.lower(root.get("seller")), "%" + safeLower.apply(params.get("seller")) + "%"));
             }
 
-            // ============= RANGE FILTERS (numbers stored as strings) =============
-            // safely parse string fields to numbers for numeric comparisons
+            // ============= RANGE FILTERS (typed shadow columns, see Car#syncNumericColumns) =============
 
             if (params.containsKey("price_gte")) {
                 try {
                     double minPrice = Double.parseDouble(params.get("price_gte"));
-                    preds.add(cb.greaterThanOrEqualTo(cb.toDouble(root.get("priceKes")), minPrice));
+                    preds.add(cb.greaterThanOrEqualTo(root.get("priceKesValue"), minPrice));
                 } catch (NumberFormatException ignored) {}
             }
 
             if (params.containsKey("price_lte")) {
                 try {
                     double maxPrice = Double.parseDouble(params.get("price_lte"));
-                    preds.add(cb.lessThanOrEqualTo(cb.toDouble(root.get("priceKes")), maxPrice));
+                    preds.add(cb.lessThanOrEqualTo(root.get("priceKesValue"), maxPrice));
                 } catch (NumberFormatException ignored) {}
             }
 
             if (params.containsKey("year_gte")) {
                 try {
                     int minYear = Integer.parseInt(params.get("year_gte"));
-                    preds.add(cb.greaterThanOrEqualTo(cb.toInteger(root.get("yearOfManufacture")), minYear));
+                    preds.add(cb.greaterThanOrEqualTo(root.get("yearValue"), minYear));
                 } catch (NumberFormatException ignored) {}
             }
 
             if (params.containsKey("year_lte")) {
                 try {
                     int maxYear = Integer.parseInt(params.get("year_lte"));
-                    preds.add(cb.lessThanOrEqualTo(cb.toInteger(root.get("yearOfManufacture")), maxYear));
+                    preds.add(cb.lessThanOrEqualTo(root.get("yearValue"), maxYear));
                 } catch (NumberFormatException ignored) {}
             }
 
             if (params.containsKey("mileage_gte")) {
                 try {
                     int minMileage = Integer.parseInt(params.get("mileage_gte"));
-                    preds.add(cb.greaterThanOrEqualTo(cb.toInteger(root.get("mileageKm")), minMileage));
+                    preds.add(cb.greaterThanOrEqualTo(root.get("mileageKmValue"), minMileage));
                 } catch (NumberFormatException ignored) {}
             }
 
             if (params.containsKey("mileage_lte")) {
                 try {
                     int maxMileage = Integer.parseInt(params.get("mileage_lte"));
-                    preds.add(cb.lessThanOrEqualTo(cb.toInteger(root.get("mileageKm")), maxMileage));
+                    preds.add(cb.lessThanOrEqualTo(root.get("mileageKmValue"), maxMileage));
                 } catch (NumberFormatException ignored) {}
             }
 
             if (params.containsKey("engine_cc_gte")) {
                 try {
                     int minCC = Integer.parseInt(params.get("engine_cc_gte"));
-                    preds.add(cb.greaterThanOrEqualTo(cb.toInteger(root.get("engineCapacityCc")), minCC));
+                    preds.add(cb.greaterThanOrEqualTo(root.get("engineCapacityCcValue"), minCC));
                 } catch (NumberFormatException ignored) {}
             }
 
             if (params.containsKey("engine_cc_lte")) {
                 try {
                     int maxCC = Integer.parseInt(params.get("engine_cc_lte"));
-                    preds.add(cb.lessThanOrEqualTo(cb.toInteger(root.get("engineCapacityCc")), maxCC));
+                    preds.add(cb.lessThanOrEqualTo(root.get("engineCapacityCcValue"), maxCC));
                 } catch (NumberFormatException ignored) {}
             }
             if (params.containsKey("yearOfManufacture") && !params.get("yearOfManufacture").isBlank()) {
@@ -145,4 +160,13 @@ public class CarSpecification {
             return cb.and(preds.toArray(new Predicate[0]));
         };
     }
-}
+
+    public static Specification<Car> byStatus(String status) {
+        return (root, query, cb) ->
+                cb.equal(cb.lower(root.get("status")), status.toLowerCase());
+    }
+
+    public static Specification<Car> byApprovedStatus() {
+        return byStatus("approved");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,167 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.Util.NumberNormalizer;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the searchable columns of one listing, as held by {@link CatalogIndex}.
+ * Text facets keep their original value; numeric facets are parsed once when the entry is built.
+ * Long free text (description, features) is kept apart from the facets, since it is only used by
+ * the keyword search and never gets a posting list of its own.
+ */
+@Getter
+public class CatalogEntry {
+
+    private final Long id;
+    private final VehicleType vehicleType;
+    private final Map<String, String> facets = new HashMap<>();
+    private final Map<String, Double> numbers = new HashMap<>();
+    private final Map<String, String> texts = new HashMap<>();
+
+    private CatalogEntry(Long id, VehicleType vehicleType) {
+        this.id = id;
+        this.vehicleType = vehicleType;
+        this.numbers.put("id", id.doubleValue());
+    }
+
+    public static CatalogEntry ofCar(Car car) {
+        CatalogEntry entry = new CatalogEntry(car.getId(), VehicleType.CAR);
+        entry.facet("brand", car.getBrand());
+        entry.facet("model", car.getModel());
+        entry.facet("fuelType", car.getFuelType());
+        entry.facet("bodyType", car.getBodyType());
+        entry.facet("conditionType", car.getConditionType());
+        entry.facet("color", car.getColor());
+        entry.facet("engineType", car.getEngineType());
+        entry.facet("transmission", car.getTransmission());
+        entry.facet("location", car.getLocation());
+        entry.facet("ownerType", car.getOwnerType());
+        entry.facet("seller", car.getSeller());
+        entry.facet("status", car.getStatus());
+        entry.facet("yearOfManufacture", car.getYearOfManufacture());
+        entry.text("description", car.getDescription());
+        entry.number("price", NumberNormalizer.toDouble(car.getPriceKes()));
+        entry.number("year", toDouble(NumberNormalizer.toInteger(car.getYearOfManufacture())));
+        entry.number("mileage", toDouble(NumberNormalizer.toInteger(car.getMileageKm())));
+        entry.number("engineCc", toDouble(NumberNormalizer.toInteger(car.getEngineCapacityCc())));
+        return entry;
+    }
+
+    public static CatalogEntry ofMotorcycle(Motorcycle motorcycle) {
+        CatalogEntry entry = new CatalogEntry(motorcycle.getId(), VehicleType.MOTORCYCLE);
+        entry.facet("brand", motorcycle.getBrand());
+        entry.facet("model", motorcycle.getModel());
+        entry.facet("type", motorcycle.getType());
+        entry.facet("location", motorcycle.getLocation());
+        entry.facet("owner", motorcycle.getOwner());
+        entry.facet("status", motorcycle.getStatus());
+        entry.text("description", motorcycle.getDescription());
+        entry.number("price", motorcycle.getPrice());
+        entry.number("year", toDouble(motorcycle.getYear()));
+        entry.number("mileage", toDouble(motorcycle.getMileageKm()));
+        entry.number("engineCc", toDouble(motorcycle.getEngineCapacity()));
+        entry.number("createdAt", toEpochSeconds(motorcycle.getCreatedAt()));
+        return entry;
+    }
+
+    public static CatalogEntry ofCommercialVehicle(CommercialVehicle vehicle) {
+        CatalogEntry entry = new CatalogEntry(vehicle.getId(), VehicleType.COMMERCIALVEHICLE);
+        entry.facet("brand", vehicle.getBrand());
+        entry.facet("model", vehicle.getModel());
+        entry.facet("type", vehicle.getType());
+        entry.facet("fuelType", vehicle.getFuelType());
+        entry.facet("bodyType", vehicle.getBodyType());
+        entry.facet("conditionType", vehicle.getConditionType());
+        entry.facet("color", vehicle.getColor());
+        entry.facet("engineType", vehicle.getEngineType());
+        entry.facet("transmission", vehicle.getTransmission());
+        entry.facet("location", vehicle.getLocation());
+        entry.facet("ownerType", vehicle.getOwnerType());
+        entry.facet("seller", vehicle.getSeller());
+        entry.facet("status", vehicle.getStatus());
+        entry.facet("yearOfManufacture", vehicle.getYearOfManufacture());
+        entry.text("description", vehicle.getDescription());
+        entry.text("features", vehicle.getFeatures());
+        entry.number("price", vehicle.getPriceKes());
+        entry.number("year", toDouble(NumberNormalizer.toInteger(vehicle.getYearOfManufacture())));
+        entry.number("mileage", toDouble(NumberNormalizer.toInteger(vehicle.getMileageKm())));
+        entry.number("engineCc", toDouble(NumberNormalizer.toInteger(vehicle.getEngineCapacityCc())));
+        entry.number("payload", toDouble(NumberNormalizer.toInteger(vehicle.getPayloadCapacityKg())));
+        return entry;
+    }
+
+    /**
+     * An entry holding only a brand and model, to look up listings similar to a make/model pair.
+     */
+    public static CatalogEntry probe(VehicleType vehicleType, String brand, String model) {
+        CatalogEntry entry = new CatalogEntry(0L, vehicleType);
+        entry.facet("brand", brand);
+        entry.facet("model", model);
+        return entry;
+    }
+
+    /**
+     * Builds an entry from any of the three listing entities carried by a {@link ListingChangedEvent}.
+     */
+    public static CatalogEntry from(Object listing) {
+        if (listing instanceof Car car) return ofCar(car);
+        if (listing instanceof Motorcycle motorcycle) return ofMotorcycle(motorcycle);
+        if (listing instanceof CommercialVehicle vehicle) return ofCommercialVehicle(vehicle);
+        throw new IllegalArgumentException("Unsupported listing type: " + listing);
+    }
+
+    public String facet(String name) {
+        return facets.get(name);
+    }
+
+    public Double number(String name) {
+        return numbers.get(name);
+    }
+
+    /**
+     * Value of a facet or free-text field, as matched by the keyword search.
+     */
+    public String text(String name) {
+        String facet = facets.get(name);
+        return facet != null ? facet : texts.get(name);
+    }
+
+    public boolean isApproved() {
+        return "APPROVED".equalsIgnoreCase(facets.get("status"));
+    }
+
+    private void facet(String name, String value) {
+        if (value != null && !value.isBlank()) {
+            facets.put(name, value.trim());
+        }
+    }
+
+    private void text(String name, String value) {
+        if (value != null && !value.isBlank()) {
+            texts.put(name, value);
+        }
+    }
+
+    private void number(String name, Double value) {
+        if (value != null) {
+            numbers.put(name, value);
+        }
+    }
+
+    private static Double toDouble(Integer value) {
+        return value == null ? null : value.doubleValue();
+    }
+
+    private static Double toEpochSeconds(LocalDateTime value) {
+        return value == null ? null : (double) value.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,546 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * In-memory index of the APPROVED listings of one vehicle type.
+ *
+ * Every text facet (brand, model, fuelType, ...) keeps a posting list per distinct lower-cased value,
+ * stored as a {@link BitSet} over entry slots, and every numeric facet (price, year, mileage, ...)
+ * keeps a sorted array of values. A filter map is answered by AND-ing bitsets, and a page is cut by
+ * walking the sorted array of the sort column, so neither a LIKE scan nor a COUNT query hits MySQL.
+ *
+ * The free-text {@code search} parameter goes through a {@link KeywordIndex} over the same columns the
+ * Specification ORs its LIKE clauses over. Its hits are intersected with the other filters and ranked
+ * by match quality first, the requested sort only breaking ties.
+ *
+ * The parameter names and match semantics mirror the Specification of the same vehicle type. When a
+ * request uses something the index cannot answer, {@link #search} returns empty and the caller falls
+ * back to the Specification query.
+ */
+public class CatalogIndex {
+
+    enum Match { LIKE, EQUALS }
+
+    enum Bound { MIN, MAX, EXACT, BETWEEN }
+
+    record TextParam(String facet, Match match) {}
+
+    record RangeParam(String facet, Bound bound, boolean integer) {
+
+        // Returns {min, max}, or null when the value does not parse (the Specifications ignore those too)
+        double[] bounds(String value) {
+            try {
+                switch (bound) {
+                    case MIN:
+                        return new double[]{parse(value), Double.POSITIVE_INFINITY};
+                    case MAX:
+                        return new double[]{Double.NEGATIVE_INFINITY, parse(value)};
+                    case EXACT:
+                        double exact = parse(value);
+                        return new double[]{exact, exact};
+                    default:
+                        String[] range = value.split("-");
+                        if (range.length != 2) return null;
+                        return new double[]{parse(range[0].trim()), parse(range[1].trim())};
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private double parse(String value) {
+            return integer ? Integer.parseInt(value) : Double.parseDouble(value);
+        }
+    }
+
+    record SortedColumn(double[] values, int[] slots, int[] nullSlots) {}
+
+    public record Hits(List<Long> ids, long total) {}
+
+    // Ascending values of one numeric facet, and how many matching listings have none
+    public record NumericValues(double[] sorted, int missing) {}
+
+    private final VehicleType vehicleType;
+    private final Map<String, TextParam> textParams = new HashMap<>();
+    private final Map<String, RangeParam> rangeParams = new HashMap<>();
+    private final Map<String, String> sortFields = new HashMap<>();
+    private final KeywordIndex keywords = new KeywordIndex();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<CatalogEntry> slots = new ArrayList<>();
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final BitSet live = new BitSet();
+    private final Map<String, Map<String, BitSet>> postings = new HashMap<>();
+    private final Map<String, SortedColumn> sortedColumns = new HashMap<>();
+    private boolean sortedDirty = true;
+
+    CatalogIndex(VehicleType vehicleType) {
+        this.vehicleType = vehicleType;
+        sortable("id", "id");
+    }
+
+    // ==================== SCHEMAS (mirror the Specifications) ====================
+
+    // CarSpecification.byFilters
+    static CatalogIndex forCars() {
+        return new CatalogIndex(VehicleType.CAR)
+                .text(Match.LIKE, "brand", "model", "fuelType", "bodyType", "conditionType", "color",
+                        "engineType", "transmission", "location", "ownerType", "seller")
+                .text(Match.EQUALS, "yearOfManufacture")
+                .range("price_gte", "price", Bound.MIN, false)
+                .range("price_lte", "price", Bound.MAX, false)
+                .range("year_gte", "year", Bound.MIN, true)
+                .range("year_lte", "year", Bound.MAX, true)
+                .range("mileage_gte", "mileage", Bound.MIN, true)
+                .range("mileage_lte", "mileage", Bound.MAX, true)
+                .range("engine_cc_gte", "engineCc", Bound.MIN, true)
+                .range("engine_cc_lte", "engineCc", Bound.MAX, true)
+                .sortable("priceKesValue", "price")
+                .sortable("yearValue", "year")
+                .sortable("mileageKmValue", "mileage")
+                .searchable(3, "brand", "model")
+                .searchable(2, "bodyType", "color", "engineType", "location", "conditionType", "fuelType", "seller")
+                .searchable(1, "description");
+    }
+
+    // MotorcycleSpecification.byFilters
+    static CatalogIndex forMotorcycles() {
+        return new CatalogIndex(VehicleType.MOTORCYCLE)
+                .text(Match.LIKE, "brand", "model", "location")
+                .text(Match.EQUALS, "type", "owner", "status")
+                .range("minPrice", "price", Bound.MIN, false)
+                .range("maxPrice", "price", Bound.MAX, false)
+                .range("priceRange", "price", Bound.BETWEEN, false)
+                .range("minYear", "year", Bound.MIN, true)
+                .range("maxYear", "year", Bound.MAX, true)
+                .range("year", "year", Bound.EXACT, true)
+                .range("minEngineCapacity", "engineCc", Bound.MIN, true)
+                .range("maxEngineCapacity", "engineCc", Bound.MAX, true)
+                .sortable("price", "price")
+                .sortable("year", "year")
+                .sortable("mileageKm", "mileage")
+                .sortable("createdAt", "createdAt")
+                .searchable(3, "brand", "model")
+                .searchable(2, "type", "location")
+                .searchable(1, "description");
+    }
+
+    // CommercialVehicleSpecification.byFilters
+    static CatalogIndex forCommercialVehicles() {
+        return new CatalogIndex(VehicleType.COMMERCIALVEHICLE)
+                .text(Match.LIKE, "brand", "model", "location")
+                .text(Match.EQUALS, "type", "fuelType", "bodyType", "conditionType", "color", "engineType",
+                        "transmission", "ownerType", "seller", "status", "yearOfManufacture")
+                .range("minPrice", "price", Bound.MIN, false)
+                .range("maxPrice", "price", Bound.MAX, false)
+                .range("minYear", "year", Bound.MIN, true)
+                .range("maxYear", "year", Bound.MAX, true)
+                .range("minMileage", "mileage", Bound.MIN, true)
+                .range("maxMileage", "mileage", Bound.MAX, true)
+                .range("minEngineCapacity", "engineCc", Bound.MIN, true)
+                .range("maxEngineCapacity", "engineCc", Bound.MAX, true)
+                .range("minPayload", "payload", Bound.MIN, true)
+                .range("maxPayload", "payload", Bound.MAX, true)
+                .sortable("priceKes", "price")
+                .sortable("yearValue", "year")
+                .sortable("mileageKmValue", "mileage")
+                .searchable(3, "brand", "model")
+                .searchable(2, "type", "bodyType", "color", "engineType", "location", "conditionType", "fuelType",
+                        "seller")
+                .searchable(1, "description", "features");
+    }
+
+    private CatalogIndex text(Match match, String... facets) {
+        for (String facet : facets) {
+            textParams.put(facet, new TextParam(facet, match));
+        }
+        return this;
+    }
+
+    private CatalogIndex range(String param, String facet, Bound bound, boolean integer) {
+        rangeParams.put(param, new RangeParam(facet, bound, integer));
+        return this;
+    }
+
+    private CatalogIndex sortable(String property, String facet) {
+        sortFields.put(property, facet);
+        return this;
+    }
+
+    // Fields of the "search" keyword; matches in heavier fields rank higher
+    private CatalogIndex searchable(int weight, String... fields) {
+        for (String field : fields) {
+            keywords.field(field, weight);
+        }
+        return this;
+    }
+
+    public VehicleType getVehicleType() {
+        return vehicleType;
+    }
+
+    // ==================== WRITES ====================
+
+    /**
+     * Adds or replaces a listing. Listings that are not APPROVED are removed instead.
+     */
+    public void upsert(CatalogEntry entry) {
+        if (!entry.isApproved()) {
+            remove(entry.getId());
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer existing = slotById.get(entry.getId());
+            int slot;
+            if (existing != null) {
+                unindex(existing);
+                slot = existing;
+            } else {
+                slot = freeSlots.isEmpty() ? slots.size() : freeSlots.pop();
+                if (slot == slots.size()) slots.add(null);
+                slotById.put(entry.getId(), slot);
+            }
+            slots.set(slot, entry);
+            live.set(slot);
+            entry.getFacets().forEach((facet, value) ->
+                    postings.computeIfAbsent(facet, f -> new HashMap<>())
+                            .computeIfAbsent(value.toLowerCase(), v -> new BitSet())
+                            .set(slot));
+            keywords.add(slot, entry);
+            sortedDirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.remove(id);
+            if (slot == null) return;
+            unindex(slot);
+            freeSlots.push(slot);
+            sortedDirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            slots.clear();
+            slotById.clear();
+            freeSlots.clear();
+            live.clear();
+            postings.clear();
+            keywords.clear();
+            sortedColumns.clear();
+            sortedDirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void unindex(int slot) {
+        CatalogEntry old = slots.get(slot);
+        old.getFacets().forEach((facet, value) -> {
+            Map<String, BitSet> values = postings.get(facet);
+            String key = value.toLowerCase();
+            BitSet bits = values.get(key);
+            bits.clear(slot);
+            if (bits.isEmpty()) values.remove(key);
+        });
+        keywords.remove(slot);
+        live.clear(slot);
+        slots.set(slot, null);
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * Answers a filter map with the same semantics as the Specification of this vehicle type,
+     * restricted to APPROVED listings. Returns empty when the request needs the database.
+     */
+    public Optional<Hits> search(Map<String, String> params, Pageable pageable) {
+        return search(params, pageable, true);
+    }
+
+    /**
+     * As {@link #search(Map, Pageable)}; with {@code rankByKeyword} false, keyword hits keep the
+     * requested sort order instead of being ranked by match quality.
+     */
+    public Optional<Hits> search(Map<String, String> params, Pageable pageable, boolean rankByKeyword) {
+        if (pageable.isUnpaged() || !supports(params)) return Optional.empty();
+
+        Sort.Order order = pageable.getSort().isSorted()
+                ? pageable.getSort().iterator().next()
+                : Sort.Order.asc("id");
+        String sortFacet = sortFields.get(order.getProperty());
+        if (sortFacet == null || pageable.getSort().stream().count() > 1) return Optional.empty();
+
+        String keyword = keyword(params);
+        acquireReadWithSortedColumns();
+        try {
+            BitSet matches = matching(params);
+            if (keyword != null) {
+                matches = keywords.matching(keyword, matches);
+            }
+            PageCollector page = new PageCollector(matches, pageable.getOffset(), pageable.getPageSize());
+            SortedColumn column = sortedColumns.get(sortFacet);
+
+            if (keyword == null || !rankByKeyword) {
+                walk(column, order.isAscending(), slot -> {
+                    page.offer(slot);
+                    return !page.full();
+                });
+            } else {
+                // Every hit needs its score before the first one can be placed, so rank them all
+                Map<Integer, Integer> scores = new HashMap<>();
+                List<Integer> ranked = new ArrayList<>(matches.cardinality());
+                BitSet hits = matches;
+                walk(column, order.isAscending(), slot -> {
+                    if (hits.get(slot)) {
+                        scores.put(slot, keywords.score(slot, keyword));
+                        ranked.add(slot);
+                    }
+                    return true;
+                });
+                // List.sort is stable, so equal scores keep the requested sort order
+                ranked.sort(Comparator.comparing(scores::get, Comparator.reverseOrder()));
+                for (int i = 0; i < ranked.size() && !page.full(); i++) page.offer(ranked.get(i));
+            }
+            return Optional.of(new Hits(page.ids, matches.cardinality()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The values of a numeric facet over the listings matching the params, read off its sorted column.
+     * Returns empty when the request needs the database or the facet has no column.
+     */
+    public Optional<NumericValues> values(Map<String, String> params, String facet) {
+        if (!supports(params)) return Optional.empty();
+
+        String keyword = keyword(params);
+        acquireReadWithSortedColumns();
+        try {
+            SortedColumn column = sortedColumns.get(facet);
+            if (column == null) return Optional.empty();
+            BitSet matches = matching(params);
+            if (keyword != null) {
+                matches = keywords.matching(keyword, matches);
+            }
+            int matching = matches.cardinality();
+            double[] values = new double[matching];
+            int count = 0;
+            for (int i = 0; i < column.slots().length; i++) {
+                if (matches.get(column.slots()[i])) values[count++] = column.values()[i];
+            }
+            return Optional.of(new NumericValues(Arrays.copyOf(values, count), matching - count));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Whether the params narrow the listings down any further than their status.
+     */
+    public boolean isFiltered(Map<String, String> params) {
+        if (keyword(params) != null) return true;
+        return params.entrySet().stream().anyMatch(param -> !param.getKey().equals("status")
+                && param.getValue() != null && !param.getValue().isBlank()
+                && (textParams.containsKey(param.getKey()) || rangeParams.containsKey(param.getKey())));
+    }
+
+    // Visits the slots of a sorted column in sort order until the visitor returns false.
+    // MySQL orders NULLs first ascending and last descending.
+    private static void walk(SortedColumn column, boolean ascending, IntPredicate visitor) {
+        int[] values = column.slots();
+        int[] nulls = column.nullSlots();
+        if (ascending) {
+            for (int slot : nulls) if (!visitor.test(slot)) return;
+            for (int slot : values) if (!visitor.test(slot)) return;
+        } else {
+            for (int i = values.length - 1; i >= 0; i--) if (!visitor.test(values[i])) return;
+            for (int i = nulls.length - 1; i >= 0; i--) if (!visitor.test(nulls[i])) return;
+        }
+    }
+
+    private static String keyword(Map<String, String> params) {
+        String search = params.get("search");
+        return search == null || search.isBlank() ? null : search.toLowerCase();
+    }
+
+    private boolean supports(Map<String, String> params) {
+        if (keyword(params) != null && keywords.isEmpty()) return false;
+        // Only APPROVED listings are indexed, so any other requested status needs the database
+        TextParam status = textParams.get("status");
+        String requested = params.get("status");
+        if (status != null && requested != null && !requested.isBlank()) {
+            return matches(status.match(), "approved", requested.toLowerCase());
+        }
+        return true;
+    }
+
+    private BitSet matching(Map<String, String> params) {
+        BitSet result = (BitSet) live.clone();
+        for (Map.Entry<String, String> param : params.entrySet()) {
+            String value = param.getValue();
+            if (value == null) continue;
+
+            TextParam text = textParams.get(param.getKey());
+            if (text != null && !value.isBlank()) {
+                result.and(textMatches(text, value.toLowerCase()));
+            }
+
+            RangeParam range = rangeParams.get(param.getKey());
+            if (range != null && !value.isBlank()) {
+                double[] bounds = range.bounds(value);
+                if (bounds != null) result.and(rangeMatches(range.facet(), bounds[0], bounds[1]));
+            }
+        }
+        return result;
+    }
+
+    private BitSet textMatches(TextParam param, String needle) {
+        BitSet result = new BitSet();
+        Map<String, BitSet> values = postings.getOrDefault(param.facet(), Collections.emptyMap());
+        if (param.match() == Match.EQUALS) {
+            BitSet bits = values.get(needle);
+            if (bits != null) result.or(bits);
+            return result;
+        }
+        // LIKE '%needle%': distinct values per facet are few, so scanning the keys is cheap
+        values.forEach((value, bits) -> {
+            if (value.contains(needle)) result.or(bits);
+        });
+        return result;
+    }
+
+    private BitSet rangeMatches(String facet, double min, double max) {
+        BitSet result = new BitSet();
+        SortedColumn column = sortedColumns.get(facet);
+        if (column == null) return result;
+        int from = lowerBound(column.values(), min);
+        int to = upperBound(column.values(), max);
+        for (int i = from; i < to; i++) {
+            result.set(column.slots()[i]);
+        }
+        return result;
+    }
+
+    private static boolean matches(Match match, String value, String needle) {
+        return match == Match.EQUALS ? value.equals(needle) : value.contains(needle);
+    }
+
+    // First index whose value is >= key
+    private static int lowerBound(double[] values, double key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] < key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // First index whose value is > key
+    private static int upperBound(double[] values, double key) {
+        int lo = 0, hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= key) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    // ==================== SORTED COLUMNS ====================
+
+    // Takes the read lock, rebuilding the sorted columns first if a write happened since the last read
+    private void acquireReadWithSortedColumns() {
+        lock.readLock().lock();
+        while (sortedDirty) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                if (sortedDirty) rebuildSortedColumns();
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void rebuildSortedColumns() {
+        Set<String> facets = new HashSet<>(sortFields.values());
+        rangeParams.values().forEach(range -> facets.add(range.facet()));
+
+        sortedColumns.clear();
+        for (String facet : facets) {
+            List<Integer> withValue = new ArrayList<>();
+            List<Integer> withoutValue = new ArrayList<>();
+            for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                (slots.get(slot).number(facet) == null ? withoutValue : withValue).add(slot);
+            }
+            withValue.sort(Comparator.<Integer>comparingDouble(slot -> slots.get(slot).number(facet))
+                    .thenComparingLong(slot -> slots.get(slot).getId()));
+            withoutValue.sort(Comparator.comparingLong(slot -> slots.get(slot).getId()));
+
+            double[] values = new double[withValue.size()];
+            int[] sorted = new int[withValue.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = withValue.get(i);
+                values[i] = slots.get(sorted[i]).number(facet);
+            }
+            int[] nulls = withoutValue.stream().mapToInt(Integer::intValue).toArray();
+            sortedColumns.put(facet, new SortedColumn(values, sorted, nulls));
+        }
+        sortedDirty = false;
+    }
+
+    // Skips the page offset and collects up to one page of ids, in walk order
+    private final class PageCollector {
+        private final BitSet matches;
+        private final int limit;
+        private final List<Long> ids = new ArrayList<>();
+        private long toSkip;
+
+        PageCollector(BitSet matches, long offset, int limit) {
+            this.matches = matches;
+            this.toSkip = offset;
+            this.limit = limit;
+        }
+
+        boolean full() {
+            return ids.size() >= limit;
+        }
+
+        void offer(int slot) {
+            if (!matches.get(slot)) return;
+            if (toSkip > 0) {
+                toSkip--;
+                return;
+            }
+            ids.add(slots.get(slot).getId());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.SlicePage;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.repository.CarRepository;
+import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
+import io.reflectoring.carshippingbackend.repository.MotorcycleRepository;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Owns one {@link CatalogIndex} per vehicle type. The indexes are loaded from the database once the
+ * application is ready and then kept current from {@link ListingChangedEvent}s.
+ * Until loading has finished (or when disabled) every search falls back to the Specification queries.
+ *
+ * A rebuild loads fresh indexes off to the side while the current ones keep serving, and swaps them in
+ * when done. Changes that arrive meanwhile go to the current indexes and are also replayed on the fresh
+ * ones before the swap, since the batch that loaded a changed row may have read it before the change.
+ * The load walks each table by id, so rows inserted or deleted meanwhile do not shift its batches.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CatalogIndexService {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final CarRepository carRepository;
+    private final MotorcycleRepository motorcycleRepository;
+    private final CommercialVehicleRepository commercialVehicleRepository;
+    private final CatalogVersionService versions;
+
+    // Replaced as a whole by a rebuild
+    private volatile Map<VehicleType, CatalogIndex> indexes = emptyIndexes();
+
+    // Guards applying a change against the swap; changes is non-null while a rebuild is loading
+    private final Object swap = new Object();
+    private List<Change> changes;
+
+    @Value("${app.catalog-index.enabled:true}")
+    private boolean enabled;
+
+    private volatile boolean ready;
+
+    // Also exposed to admins through POST /api/admin/catalog-index/rebuild
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) return;
+        long started = System.currentTimeMillis();
+        synchronized (swap) {
+            changes = new ArrayList<>();
+        }
+
+        Map<VehicleType, CatalogIndex> fresh = emptyIndexes();
+        try {
+            ListingIds.forEachById(carRepository, CarSpecification.byApprovedStatus(), LOAD_BATCH_SIZE,
+                    Car::getId, car -> fresh.get(VehicleType.CAR).upsert(CatalogEntry.ofCar(car)));
+            ListingIds.forEachById(motorcycleRepository, MotorcycleSpecification.byApprovedStatus(), LOAD_BATCH_SIZE,
+                    Motorcycle::getId,
+                    motorcycle -> fresh.get(VehicleType.MOTORCYCLE).upsert(CatalogEntry.ofMotorcycle(motorcycle)));
+            ListingIds.forEachById(commercialVehicleRepository, CommercialVehicleSpecification.byApprovedStatus(),
+                    LOAD_BATCH_SIZE, CommercialVehicle::getId,
+                    vehicle -> fresh.get(VehicleType.COMMERCIALVEHICLE).upsert(CatalogEntry.ofCommercialVehicle(vehicle)));
+        } catch (RuntimeException e) {
+            synchronized (swap) {
+                changes = null;
+            }
+            throw e;
+        }
+
+        int replayed;
+        synchronized (swap) {
+            replayed = changes.size();
+            changes.forEach(change -> change.applyTo(fresh));
+            changes = null;
+            indexes = fresh;
+        }
+        ready = true;
+        // Cached histograms and conditional responses were computed from the old indexes
+        for (VehicleType type : fresh.keySet()) {
+            versions.bumpAfterCommit(CatalogVersionService.catalogOf(type));
+        }
+        log.info("Catalog index loaded in {} ms: {} cars, {} motorcycles, {} commercial vehicles ({} changes replayed)",
+                System.currentTimeMillis() - started,
+                fresh.get(VehicleType.CAR).size(),
+                fresh.get(VehicleType.MOTORCYCLE).size(),
+                fresh.get(VehicleType.COMMERCIALVEHICLE).size(),
+                replayed);
+    }
+
+    /**
+     * Number of indexed listings per vehicle type.
+     */
+    public Map<VehicleType, Integer> sizes() {
+        Map<VehicleType, Integer> sizes = new EnumMap<>(VehicleType.class);
+        indexes.forEach((type, index) -> sizes.put(type, index.size()));
+        return sizes;
+    }
+
+    private static Map<VehicleType, CatalogIndex> emptyIndexes() {
+        return new EnumMap<>(Map.of(
+                VehicleType.CAR, CatalogIndex.forCars(),
+                VehicleType.MOTORCYCLE, CatalogIndex.forMotorcycles(),
+                VehicleType.COMMERCIALVEHICLE, CatalogIndex.forCommercialVehicles()
+        ));
+    }
+
+    // Runs after commit when the change happened inside a transaction, immediately otherwise
+    @Order(ListingChangedEvent.READ_MODELS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        if (!enabled) return;
+        Change change = new Change(event.getVehicleType(), event.getListingId(),
+                event.isDeleted() ? null : CatalogEntry.from(event.getListing()));
+        synchronized (swap) {
+            change.applyTo(indexes);
+            if (changes != null) changes.add(change);
+        }
+    }
+
+    // A change as read from its event, so replaying it later does not touch the entity again
+    private record Change(VehicleType type, Long id, CatalogEntry entry) {
+        void applyTo(Map<VehicleType, CatalogIndex> indexes) {
+            if (entry == null) {
+                indexes.get(type).remove(id);
+            } else {
+                indexes.get(type).upsert(entry);
+            }
+        }
+    }
+
+    /**
+     * Looks up one page of APPROVED listings. Empty means the caller must run its Specification query.
+     */
+    public Optional<CatalogIndex.Hits> search(VehicleType type, Map<String, String> params, Pageable pageable) {
+        if (!enabled || !ready) return Optional.empty();
+        return indexes.get(type).search(params, pageable);
+    }
+
+    /**
+     * As {@link #search(VehicleType, Map, Pageable)}, but keyword hits stay in the requested sort order,
+     * for callers that merge the pages of several vehicle types by that order.
+     */
+    public Optional<CatalogIndex.Hits> searchInSortOrder(VehicleType type, Map<String, String> params,
+                                                         Pageable pageable) {
+        if (!enabled || !ready) return Optional.empty();
+        return indexes.get(type).search(params, pageable, false);
+    }
+
+    /**
+     * Values of a numeric facet over the APPROVED listings matching the filters. Empty until loaded.
+     */
+    public Optional<CatalogIndex.NumericValues> values(VehicleType type, Map<String, String> params, String facet) {
+        if (!enabled || !ready) return Optional.empty();
+        return indexes.get(type).values(params, facet);
+    }
+
+    /**
+     * Loads the entities behind a page of hits with one primary-key lookup and keeps the index order.
+     */
+    public <T> Page<T> toPage(CatalogIndex.Hits hits, Function<List<Long>, List<T>> loader,
+                              Function<T, Long> idOf, Pageable pageable) {
+        return new PageImpl<>(ListingIds.loadInOrder(hits.ids(), loader, idOf), pageable, hits.total());
+    }
+
+    /**
+     * As {@link #toPage}, for the count-free listings (the index knows the total anyway).
+     */
+    public <T> SlicePage<T> toSlice(CatalogIndex.Hits hits, Function<List<Long>, List<T>> loader,
+                                    Function<T, Long> idOf, Pageable pageable) {
+        boolean hasNext = pageable.getOffset() + hits.ids().size() < hits.total();
+        return new SlicePage<>(ListingIds.loadInOrder(hits.ids(), loader, idOf), pageable.getPageNumber(),
+                pageable.getPageSize(), hasNext, hits.total());
+    }
+
+    /**
+     * Whether a filter map narrows the listings of a type down any further than their status.
+     */
+    public boolean isFiltered(VehicleType type, Map<String, String> params) {
+        return indexes.get(type).isFiltered(params);
+    }
+}
@@ -0,0 +1,122 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A version number per catalog (one per vehicle type, plus the homepage carousel images) that moves
+ * forward after every committed change, so the read endpoints can answer conditional requests.
+ *
+ * Responses carry a strong ETag built from the version and a Last-Modified of its last change; a request
+ * whose If-None-Match (or If-Modified-Since) still matches gets 304 without the endpoint running its
+ * query. The ETag also names the startup instant, so versions counted by an earlier run never match.
+ */
+@Service
+public class CatalogVersionService {
+
+    public static final String IMAGES = "images";
+
+    private record Version(long number, Instant modified, Instant expires) {}
+
+    private final String boot = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    public static String catalogOf(VehicleType type) {
+        return type.name().toLowerCase();
+    }
+
+    @Order(ListingChangedEvent.DERIVED)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        bump(catalogOf(event.getVehicleType()));
+    }
+
+    /**
+     * Moves a catalog to its next version once the current transaction commits (at once without one),
+     * so no reader can tag the old rows with the new version.
+     */
+    public void bumpAfterCommit(String catalog) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump(catalog);
+                }
+            });
+        } else {
+            bump(catalog);
+        }
+    }
+
+    /**
+     * For content that also changes with time: the current version stops matching at {@code at}.
+     */
+    public void expireAt(String catalog, Instant at) {
+        versions.compute(catalog, (name, version) -> {
+            Version current = version == null ? initial() : version;
+            return new Version(current.number(), current.modified(), at);
+        });
+    }
+
+    /**
+     * The current version number of a catalog, for caches that must not outlive it.
+     */
+    public long current(String catalog) {
+        return versions.computeIfAbsent(catalog, name -> initial()).number();
+    }
+
+    /**
+     * Answers 304 when the client already holds the current version of the catalog, otherwise runs the
+     * read and adds the ETag and Last-Modified of the version it was read at.
+     */
+    public ResponseEntity<?> conditional(String catalog, WebRequest request, Supplier<ResponseEntity<?>> read) {
+        // Read before the query: a change committed meanwhile bumps past it, so the next request refreshes
+        Version version = versions.computeIfAbsent(catalog, name -> initial());
+        String etag = "\"" + catalog + "-" + boot + "-" + version.number() + "\"";
+        long lastModified = version.modified().toEpochMilli();
+
+        boolean expired = version.expires() != null && !Instant.now().isBefore(version.expires());
+        if (!expired && request.checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).lastModified(lastModified).build();
+        }
+
+        ResponseEntity<?> response = read.get();
+        if (!response.getStatusCode().is2xxSuccessful()) return response;
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(response.getBody());
+    }
+
+    // Last-Modified moves on by at least a second, so If-Modified-Since sees two changes in one second too
+    private void bump(String catalog) {
+        versions.compute(catalog, (name, version) -> {
+            if (version == null) return new Version(1, now(), null);
+            Instant next = version.modified().plusSeconds(1);
+            return new Version(version.number() + 1, now().isAfter(next) ? now() : next, null);
+        });
+    }
+
+    private static Version initial() {
+        return new Version(0, now(), null);
+    }
+
+    // HTTP dates have whole seconds
+    private static Instant now() {
+        return Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+}
@@ -16,6 +16,7 @@ import java.util.UUID;
 public class CloudStorageService {
 
     private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
 
     /**
      * Upload a file (e.g., govt ID or passport photo) to Cloudinary.
@@ -34,8 +35,8 @@ public class CloudStorageService {
             String uniqueFileName = UUID.randomUUID() + "-" +
                     Objects.requireNonNull(file.getOriginalFilename()).replaceAll("\\s+", "_");
 
-            Map uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
+            Map uploadResult = imageUploads.upload(
+                    file,
                     ObjectUtils.asMap(
                             "public_id", folderName + "/" + uniqueFileName,
                             "resource_type", "auto"
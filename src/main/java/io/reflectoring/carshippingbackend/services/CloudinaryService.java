@@ -15,13 +15,14 @@ import java.util.*;
 @RequiredArgsConstructor
 public class CloudinaryService {
     private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
 
     public String uploadImage(MultipartFile file) throws IOException {
         String uniqueFileName = UUID.randomUUID() + "-" +
                 Objects.requireNonNull(file.getOriginalFilename()).replaceAll("\\s+", "_");
 
-        Map uploadResult = cloudinary.uploader().upload(
-                file.getBytes(),
+        Map uploadResult = imageUploads.upload(
+                file,
                 ObjectUtils.asMap(
                         "public_id", "rotating-images/" + uniqueFileName,
                         "resource_type", "auto",
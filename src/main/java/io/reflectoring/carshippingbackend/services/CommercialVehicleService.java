@@ -1,16 +1,19 @@
 package io.reflectoring.carshippingbackend.services;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
 import io.reflectoring.carshippingbackend.DTO.CommercialVehicleDTO;
 import io.reflectoring.carshippingbackend.DTO.CommercialVehicleResponseDTO;
+import io.reflectoring.carshippingbackend.DTO.CursorPage;
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
 import io.reflectoring.carshippingbackend.DTO.MotorcycleResponseDTO;
+import io.reflectoring.carshippingbackend.DTO.SlicePage;
 import io.reflectoring.carshippingbackend.DTO.SoldRequest;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
 import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
 import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
 import io.reflectoring.carshippingbackend.tables.Motorcycle;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -25,24 +28,18 @@ import java.util.*;
 public class CommercialVehicleService {
 
     private final CommercialVehicleRepository repo;
-    private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
     private final EmailService emailService;
+    private final CatalogIndexService catalogIndex;
+    private final ListingCardService cards;
+    private final SimilarityService similarity;
+    private final LatestArrivalsService latestArrivals;
+    private final FacetCountService facetCounts;
+    private final ApplicationEventPublisher events;
 
     // ------------------- Upload Images -------------------
     private List<String> uploadImages(List<MultipartFile> images) throws IOException {
-        List<String> urls = new ArrayList<>();
-        for (MultipartFile f : images) {
-            String uniqueFileName = UUID.randomUUID() + "-" + Objects.requireNonNull(f.getOriginalFilename()).replaceAll("\\s+", "_");
-            Map uploadResult = cloudinary.uploader().upload(
-                    f.getBytes(),
-                    ObjectUtils.asMap(
-                            "public_id", "uploads/" + uniqueFileName,
-                            "resource_type", "auto"
-                    )
-            );
-            urls.add((String) uploadResult.get("secure_url"));
-        }
-        return urls;
+        return imageUploads.uploadAll(images, ImageUploadService.publicIdUnder("uploads/"));
     }
 
     // ------------------- Convert Entity → DTO -------------------
@@ -122,6 +119,7 @@ public class CommercialVehicleService {
         }
         // You can add logic to set owner email, status, etc. if needed
         CommercialVehicle saved = repo.save(vehicle);
+        events.publishEvent(ListingChangedEvent.created(VehicleType.COMMERCIALVEHICLE, saved.getId(), saved));
         return toDto(saved);
     }
 
@@ -160,6 +158,89 @@ public class CommercialVehicleService {
         return repo.findAll(spec, pageable);
     }
 
+    // Public search: served from the in-memory catalog index when it can answer the filters
+    public Page<CommercialVehicle> searchPublic(
+            Map<String, String> filters,
+            Pageable pageable) {
+
+        pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                CommercialVehicleSpecification.withTypedColumns(pageable.getSort()));
+
+        var hits = catalogIndex.search(VehicleType.COMMERCIALVEHICLE, filters, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toPage(hits.get(), ids -> repo.findAllById(ids), CommercialVehicle::getId, pageable);
+        }
+        return searchWithSpecifications(filters, pageable);
+    }
+
+    // Card view of searchPublic: only the columns a result card shows, no LOBs
+    public Page<ListingCardDTO> searchPublicCards(
+            Map<String, String> filters,
+            Pageable pageable) {
+
+        pageable = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                CommercialVehicleSpecification.withTypedColumns(pageable.getSort()));
+
+        var hits = catalogIndex.search(VehicleType.COMMERCIALVEHICLE, filters, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toPage(hits.get(), ids -> cards.findByIds(CommercialVehicle.class, ids),
+                    ListingCardDTO::getId, pageable);
+        }
+        return cards.find(CommercialVehicle.class, CommercialVehicleSpecification.byFilters(filters), pageable);
+    }
+
+    // Count-free variants of searchPublic and searchPublicCards for infinite scroll: size + 1 rows, no COUNT
+    public SlicePage<CommercialVehicleResponseDTO> searchPublicSlice(
+            Map<String, String> filters,
+            Pageable pageable) {
+
+        Pageable typed = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                CommercialVehicleSpecification.withTypedColumns(pageable.getSort()));
+
+        var hits = catalogIndex.search(VehicleType.COMMERCIALVEHICLE, filters, typed);
+        if (hits.isPresent()) {
+            return catalogIndex.toSlice(hits.get(), ids -> repo.findAllById(ids), CommercialVehicle::getId, typed)
+                    .map(this::toDto);
+        }
+        return sliceWithSpecification(CommercialVehicleSpecification.byFilters(filters), filters, typed)
+                .map(this::toDto);
+    }
+
+    public SlicePage<ListingCardDTO> searchPublicCardsSlice(
+            Map<String, String> filters,
+            Pageable pageable) {
+
+        Pageable typed = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(),
+                CommercialVehicleSpecification.withTypedColumns(pageable.getSort()));
+
+        var hits = catalogIndex.search(VehicleType.COMMERCIALVEHICLE, filters, typed);
+        if (hits.isPresent()) {
+            return catalogIndex.toSlice(hits.get(), ids -> cards.findByIds(CommercialVehicle.class, ids),
+                    ListingCardDTO::getId, typed);
+        }
+        return SlicePage.of(cards.findSlice(CommercialVehicle.class, CommercialVehicleSpecification.byFilters(filters), typed),
+                facetCounts.total(VehicleType.COMMERCIALVEHICLE, filters.get("status"), filters));
+    }
+
+    // One slice of a filter-map query over every seller, its total from the facet counters when unfiltered
+    private SlicePage<CommercialVehicle> sliceWithSpecification(
+            Specification<CommercialVehicle> spec,
+            Map<String, String> filters,
+            Pageable pageable) {
+        return SlicePage.of(repo.findBy(spec, q -> q.slice(pageable)),
+                facetCounts.total(VehicleType.COMMERCIALVEHICLE, filters.get("status"), filters));
+    }
+
+    // Keyset-paginated variant of searchPublic: no OFFSET scan and no COUNT query
+    public CursorPage<CommercialVehicleResponseDTO> searchPublicAfter(
+            Map<String, String> filters,
+            String cursor, int size, Sort sort) {
+
+        Specification<CommercialVehicle> spec = CommercialVehicleSpecification.byFilters(filters);
+        return KeysetPagination.fetch(repo, spec, CommercialVehicleSpecification.withTypedColumns(sort), cursor, size)
+                .map(this::toDto);
+    }
+
     // ------------------- Read -------------------
     public CommercialVehicleResponseDTO getVehicle(Long id) {
         CommercialVehicle vehicle = repo.findById(id)
@@ -171,43 +252,67 @@ public class CommercialVehicleService {
     public CommercialVehicleResponseDTO updateVehicle(Long id, CommercialVehicleDTO dto) throws IOException {
         CommercialVehicle existing = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Vehicle not found with id " + id));
+        String previousStatus = existing.getStatus();
         mapDtoToEntity(dto, existing);
         if (dto.getImages() != null && !dto.getImages().isEmpty()) {
             existing.setImageUrls(uploadImages(dto.getImages()));
         }
         CommercialVehicle updated = repo.save(existing);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.COMMERCIALVEHICLE, id, updated, previousStatus));
         return toDto(updated);
     }
 
     // ------------------- Delete -------------------
     public void deleteVehicle(Long id) {
         repo.deleteById(id);
+        events.publishEvent(ListingChangedEvent.deleted(VehicleType.COMMERCIALVEHICLE, id));
     }
 
     // ------------------- Approve / Reject -------------------
     public CommercialVehicleResponseDTO approveVehicle(Long id) {
         CommercialVehicle vehicle = repo.findById(id).orElseThrow(() -> new RuntimeException("Vehicle not found"));
+        String previousStatus = vehicle.getStatus();
         vehicle.setStatus("APPROVED");  // Fixed: Use uppercase consistently
         repo.save(vehicle);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.COMMERCIALVEHICLE, id, vehicle, previousStatus));
         return toDto(vehicle);
     }
 
     public CommercialVehicleResponseDTO rejectVehicle(Long id, String reason) {
         CommercialVehicle vehicle = repo.findById(id).orElseThrow(() -> new RuntimeException("Vehicle not found"));
+        String previousStatus = vehicle.getStatus();
         vehicle.setStatus("REJECTED");
         vehicle.setRejectionReason(reason);
         repo.save(vehicle);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.COMMERCIALVEHICLE, id, vehicle, previousStatus));
         return toDto(vehicle);
     }
 
     // ------------------- Latest Arrivals -------------------
     public List<CommercialVehicleResponseDTO> getLatestArrivals() {
         Pageable pageable = PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "id"));
-        return repo.findAll(pageable).getContent().stream().map(this::toDto).toList();
+        List<CommercialVehicle> vehicles = latestArrivals.latestIds(VehicleType.COMMERCIALVEHICLE, 4)
+                .map(ids -> ListingIds.loadInOrder(ids, repo::findAllById, CommercialVehicle::getId))
+                .orElseGet(() -> repo.findAll(CommercialVehicleSpecification.byApprovedStatus(), pageable).getContent());
+        return vehicles.stream().map(this::toDto).toList();
+    }
+
+    // ------------------- Latest Arrivals (card view, from memory once loaded) -------------------
+    public List<ListingCardDTO> getLatestArrivalCards() {
+        return latestArrivals.latest(VehicleType.COMMERCIALVEHICLE, 4)
+                .orElseGet(() -> cards.find(CommercialVehicle.class, CommercialVehicleSpecification.byApprovedStatus(),
+                        PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "id"))).getContent());
     }
 
     // ------------------- Similar Vehicles -------------------
     public List<CommercialVehicleResponseDTO> getSimilarVehicles(String brand, String model, Long excludeId) {
+        var ranked = similarity.similar(VehicleType.COMMERCIALVEHICLE, brand, model, excludeId);
+        if (ranked.isPresent()) {
+            return ListingIds.loadInOrder(ranked.get(), repo::findAllById, CommercialVehicle::getId).stream()
+                    .map(this::toDto)
+                    .toList();
+        }
+
         List<CommercialVehicle> vehicles =
                 repo.findByBrandContainingIgnoreCaseOrModelContainingIgnoreCaseAndStatusIgnoreCase(
                         brand, model, "APPROVED", PageRequest.of(0, 10)  // Fixed: uppercase
@@ -252,11 +357,7 @@ public class CommercialVehicleService {
             filters.put("status", "APPROVED");
         }
 
-        // Use Specifications for filtering
-        Specification<CommercialVehicle> spec = CommercialVehicleSpecification.byFilters(filters);
-        Page<CommercialVehicle> results = repo.findAll(spec, pageable);
-
-        return results.map(this::toDto);
+        return searchPublic(filters, pageable).map(this::toDto);
     }
 
     // ------------------- Search by User Role -------------------
@@ -265,7 +366,7 @@ public class CommercialVehicleService {
             int page, int size, Sort sort,
             String currentUserEmail, String currentUserRole) {
 
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = PageRequest.of(page, size, CommercialVehicleSpecification.withTypedColumns(sort));
         String role = currentUserRole.replace("ROLE_", "").toUpperCase();
 
         switch (role) {
@@ -287,6 +388,33 @@ public class CommercialVehicleService {
         }
     }
 
+    // Count-free variant of searchByUserRole; a seller's listing has no total
+    public SlicePage<CommercialVehicle> searchByUserRoleSlice(
+            Map<String, String> allParams,
+            int page, int size, Sort sort,
+            String currentUserEmail, String currentUserRole) {
+
+        Pageable pageable = PageRequest.of(page, size, CommercialVehicleSpecification.withTypedColumns(sort));
+        String role = currentUserRole.replace("ROLE_", "").toUpperCase();
+
+        switch (role) {
+            case "ADMIN":
+                return sliceWithSpecification(CommercialVehicleSpecification.byFilters(allParams), allParams, pageable);
+
+            case "SELLER":
+                Specification<CommercialVehicle> spec = CommercialVehicleSpecification
+                        .bySeller(currentUserEmail)
+                        .and(CommercialVehicleSpecification.byFilters(allParams));
+                return SlicePage.of(repo.findBy(spec, q -> q.slice(pageable)), null);
+
+            case "GUEST":
+                return new SlicePage<>(new ArrayList<>(), page, size, false, 0L);
+
+            default:
+                throw new RuntimeException("Unauthorized access");
+        }
+    }
+
     // ==================== NEW DTO-BASED SEARCH METHODS (Recommended) ====================
 
     public Page<CommercialVehicleResponseDTO> searchVehiclesDTO(
@@ -310,6 +438,7 @@ public class CommercialVehicleService {
 
         CommercialVehicle m = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Motorcycle not found"));
+        String previousStatus = m.getStatus();
 
         m.setStatus("SOLD");
 
@@ -325,6 +454,7 @@ public class CommercialVehicleService {
         m.setReviewSubmitted("NOTSENT");
 
         repo.save(m);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.COMMERCIALVEHICLE, id, m, previousStatus));
 
         emailService.sendReviewEmail(
                 m.getBuyerEmail(),
@@ -2,6 +2,7 @@ package io.reflectoring.carshippingbackend.services;
 
 import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.util.ArrayList;
@@ -10,6 +11,21 @@ import java.util.Map;
 
 public class CommercialVehicleSpecification {
 
+    // String columns whose typed shadow column should be used for ORDER BY (priceKes is already numeric)
+    private static final Map<String, String> TYPED_SORT_COLUMNS = Map.of(
+            "yearOfManufacture", "yearValue",
+            "mileageKm", "mileageKmValue",
+            "engineCapacityCc", "engineCapacityCcValue",
+            "payloadCapacityKg", "payloadCapacityKgValue"
+    );
+
+    // Sorts numerically (and on an indexed column) instead of lexicographically on the string columns
+    public static Sort withTypedColumns(Sort sort) {
+        return Sort.by(sort.stream()
+                .map(order -> order.withProperty(TYPED_SORT_COLUMNS.getOrDefault(order.getProperty(), order.getProperty())))
+                .toList());
+    }
+
     public static Specification<CommercialVehicle> byFilters(Map<String, String> params) {
         return (root, query, cb) -> {
             List<Predicate> preds = new ArrayList<>();
@@ -100,12 +116,12 @@ public class CommercialVehicleSpecification {
                 } catch (NumberFormatException ignored) {}
             }
 
-            // Year filters (yearOfManufacture is String)
+            // Year filters (typed shadow of yearOfManufacture)
             if (params.containsKey("minYear")) {
                 try {
                     int minYear = Integer.parseInt(params.get("minYear"));
                     preds.add(cb.greaterThanOrEqualTo(
-                            cb.toInteger(root.get("yearOfManufacture")), minYear));
+                            root.get("yearValue"), minYear));
                 } catch (NumberFormatException ignored) {}
             }
 
@@ -113,16 +129,16 @@ public class CommercialVehicleSpecification {
                 try {
                     int maxYear = Integer.parseInt(params.get("maxYear"));
                     preds.add(cb.lessThanOrEqualTo(
-                            cb.toInteger(root.get("yearOfManufacture")), maxYear));
+                            root.get("yearValue"), maxYear));
                 } catch (NumberFormatException ignored) {}
             }
 
-            // Mileage filters (mileageKm is String)
+            // Mileage filters (typed shadow of mileageKm)
             if (params.containsKey("minMileage")) {
                 try {
                     int minMileage = Integer.parseInt(params.get("minMileage"));
                     preds.add(cb.greaterThanOrEqualTo(
-                            cb.toInteger(root.get("mileageKm")), minMileage));
+                            root.get("mileageKmValue"), minMileage));
                 } catch (NumberFormatException ignored) {}
             }
 
@@ -130,16 +146,16 @@ public class CommercialVehicleSpecification {
                 try {
                     int maxMileage = Integer.parseInt(params.get("maxMileage"));
                     preds.add(cb.lessThanOrEqualTo(
-                            cb.toInteger(root.get("mileageKm")), maxMileage));
+                            root.get("mileageKmValue"), maxMileage));
                 } catch (NumberFormatException ignored) {}
             }
 
-            // Engine capacity filters (engineCapacityCc is String)
+            // Engine capacity filters (typed shadow of engineCapacityCc)
             if (params.containsKey("minEngineCapacity")) {
                 try {
                     int minCC = Integer.parseInt(params.get("minEngineCapacity"));
                     preds.add(cb.greaterThanOrEqualTo(
-                            cb.toInteger(root.get("engineCapacityCc")), minCC));
+                            root.get("engineCapacityCcValue"), minCC));
                 } catch (NumberFormatException ignored) {}
             }
 
@@ -147,16 +163,16 @@ public class CommercialVehicleSpecification {
                 try {
                     int maxCC = Integer.parseInt(params.get("maxEngineCapacity"));
                     preds.add(cb.lessThanOrEqualTo(
-                            cb.toInteger(root.get("engineCapacityCc")), maxCC));
+                            root.get("engineCapacityCcValue"), maxCC));
                 } catch (NumberFormatException ignored) {}
             }
 
-            // Payload capacity filters (payloadCapacityKg is String)
+            // Payload capacity filters (typed shadow of payloadCapacityKg)
             if (params.containsKey("minPayload")) {
                 try {
                     int minPayload = Integer.parseInt(params.get("minPayload"));
                     preds.add(cb.greaterThanOrEqualTo(
-                            cb.toInteger(root.get("payloadCapacityKg")), minPayload));
+                            root.get("payloadCapacityKgValue"), minPayload));
                 } catch (NumberFormatException ignored) {}
             }
 
@@ -164,7 +180,7 @@ public class CommercialVehicleSpecification {
                 try {
                     int maxPayload = Integer.parseInt(params.get("maxPayload"));
                     preds.add(cb.lessThanOrEqualTo(
-                            cb.toInteger(root.get("payloadCapacityKg")), maxPayload));
+                            root.get("payloadCapacityKgValue"), maxPayload));
                 } catch (NumberFormatException ignored) {}
             }
 
@@ -1,7 +1,5 @@
 package io.reflectoring.carshippingbackend.services;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
 import io.reflectoring.carshippingbackend.DTO.ContainerDTO;
 import io.reflectoring.carshippingbackend.DTO.ContainerResponseDTO;
 
@@ -21,7 +19,7 @@ import java.util.stream.Collectors;
 public class ContainerService {
 
     private final ContainerRepository repository;
-    private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
 
     public ContainerResponseDTO saveContainer(ContainerDTO dto) throws IOException {
         List<String> urls = uploadToCloudinary(dto.getImages());
@@ -83,24 +81,7 @@ public class ContainerService {
 
     // 🔹 Upload images to Cloudinary
     private List<String> uploadToCloudinary(List<MultipartFile> images) throws IOException {
-        if (images == null || images.isEmpty()) return List.of();
-
-        List<String> urls = new ArrayList<>();
-        for (MultipartFile f : images) {
-            String uniqueFileName = UUID.randomUUID() + "-" +
-                    Objects.requireNonNull(f.getOriginalFilename()).replaceAll("\\s+", "_");
-
-            Map uploadResult = cloudinary.uploader().upload(
-                    f.getBytes(),
-                    ObjectUtils.asMap(
-                            "public_id", "uploads/" + uniqueFileName,
-                            "resource_type", "auto"
-                    )
-            );
-
-            urls.add((String) uploadResult.get("secure_url"));
-        }
-        return urls;
+        return imageUploads.uploadAll(images, ImageUploadService.publicIdUnder("uploads/"));
     }
 
     private ContainerResponseDTO toDto(Container c) {
@@ -0,0 +1,431 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reflectoring.carshippingbackend.Enum.OutboxStatus;
+import io.reflectoring.carshippingbackend.repository.EmailOutboxRepository;
+import io.reflectoring.carshippingbackend.tables.EmailOutbox;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * The email outbox. {@link EmailService} does not talk to the mail server any more: {@link #enqueue} writes
+ * an email_outbox row in the caller's transaction (so the email exists exactly when the change it reports
+ * on was committed), and a dispatcher delivers the rows afterwards on a few worker threads, each taking
+ * up to per-connection-batch rows at a time and sending them over one pooled {@link SmtpConnectionPool}
+ * connection.
+ *
+ * A poller claims due rows one by one with a conditional update, which also keeps several app instances
+ * from sending the same row. A failed delivery is retried with exponential backoff (base-backoff-seconds,
+ * doubling up to max-backoff-seconds) and dead-lettered as DEAD after max-attempts. A claim lapses after
+ * lease-seconds, so rows held by an instance that died are picked up again. Sent rows are purged after
+ * retention-days.
+ *
+ * {@link #enqueueCoalesced} holds a notification back for coalesce-window-seconds; further notifications
+ * with the same key for the same recipient arriving meanwhile are merged into that one row, so a burst of
+ * updates to one order goes out as a single email.
+ *
+ * Metrics: email.outbox.sent, email.outbox.coalesced, email.outbox.failed (tag outcome=retry|dead) and
+ * the email.outbox.pending / email.outbox.lag.seconds gauges; /actuator/emailoutbox shows the same state.
+ */
+@Slf4j
+@Service
+public class EmailOutboxService {
+
+    private static final EnumSet<OutboxStatus> UNSENT = EnumSet.of(OutboxStatus.PENDING, OutboxStatus.SENDING);
+
+    private final EmailOutboxRepository repository;
+    private final JavaMailSenderImpl mailSender;
+    private final SmtpConnectionPool smtpPool;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int perConnectionBatch;
+    private final long pollIntervalMs;
+    private final int maxAttempts;
+    private final Duration baseBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final Duration retention;
+    private final Duration coalesceWindow;
+
+    private final ThreadPoolExecutor workers;
+    private final ScheduledExecutorService poller;
+    // Coalesces wake-ups from committing transactions into a single extra poll
+    private final AtomicBoolean wakeRequested = new AtomicBoolean();
+
+    private final Counter sent;
+    private final Counter coalesced;
+    private final Counter retried;
+    private final Counter dead;
+
+    public EmailOutboxService(EmailOutboxRepository repository,
+                              JavaMailSenderImpl mailSender,
+                              SmtpConnectionPool smtpPool,
+                              TransactionTemplate transactionTemplate,
+                              MeterRegistry meterRegistry,
+                              @Value("${app.email-outbox.enabled:true}") boolean enabled,
+                              @Value("${app.email-outbox.workers:4}") int workerCount,
+                              @Value("${app.email-outbox.batch-size:50}") int batchSize,
+                              @Value("${app.email-outbox.per-connection-batch:10}") int perConnectionBatch,
+                              @Value("${app.email-outbox.poll-interval-ms:1000}") long pollIntervalMs,
+                              @Value("${app.email-outbox.max-attempts:8}") int maxAttempts,
+                              @Value("${app.email-outbox.base-backoff-seconds:30}") long baseBackoffSeconds,
+                              @Value("${app.email-outbox.max-backoff-seconds:3600}") long maxBackoffSeconds,
+                              @Value("${app.email-outbox.lease-seconds:120}") long leaseSeconds,
+                              @Value("${app.email-outbox.retention-days:7}") long retentionDays,
+                              @Value("${app.email-outbox.coalesce-window-seconds:60}") long coalesceWindowSeconds) {
+        this.repository = repository;
+        this.mailSender = mailSender;
+        this.smtpPool = smtpPool;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.perConnectionBatch = Math.max(1, perConnectionBatch);
+        this.pollIntervalMs = pollIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoff = Duration.ofSeconds(baseBackoffSeconds);
+        this.maxBackoff = Duration.ofSeconds(maxBackoffSeconds);
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.retention = Duration.ofDays(retentionDays);
+        this.coalesceWindow = Duration.ofSeconds(coalesceWindowSeconds);
+
+        // Each task is one connection's batch; the poller only claims what the queue can take
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, workerCount * 2)), daemonThreads("email-outbox-"));
+        this.poller = Executors.newSingleThreadScheduledExecutor(daemonThreads("email-outbox-poller-"));
+
+        this.sent = Counter.builder("email.outbox.sent").register(meterRegistry);
+        this.coalesced = Counter.builder("email.outbox.coalesced").register(meterRegistry);
+        this.retried = Counter.builder("email.outbox.failed").tag("outcome", "retry").register(meterRegistry);
+        this.dead = Counter.builder("email.outbox.failed").tag("outcome", "dead").register(meterRegistry);
+        // Each gauge runs only its own query on a scrape
+        Gauge.builder("email.outbox.pending", repository, outbox -> outbox.countByStatus(OutboxStatus.PENDING))
+                .register(meterRegistry);
+        Gauge.builder("email.outbox.lag.seconds", this, EmailOutboxService::lagSeconds)
+                .register(meterRegistry);
+    }
+
+    /**
+     * The email a coalesced notification renders to, plus the state the next one needs to merge into it.
+     */
+    public record Draft(String subject, String body, boolean html, String state) {}
+
+    public record Stats(long pending, long sending, long dead, long lagSeconds) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("pending", pending);
+            map.put("sending", sending);
+            map.put("dead", dead);
+            map.put("lagSeconds", lagSeconds);
+            return map;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            log.warn("Email outbox dispatcher is disabled; emails will stay queued");
+            return;
+        }
+        poller.scheduleWithFixedDelay(this::pollSafely, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        // Sent rows are only kept for a while, for support questions
+        poller.scheduleWithFixedDelay(this::purgeSafely, 1, 60, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        poller.shutdownNow();
+        // Let sends in progress finish; rows still queued keep their claim and are retried after the lease
+        workers.shutdown();
+        workers.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queues an email in the current transaction (a new one without), for delivery once it commits.
+     * An email without a recipient is dropped rather than inserted: a failed insert would mark the
+     * caller's transaction rollback-only even when the caller catches the exception.
+     */
+    @Transactional
+    public void enqueue(String to, String subject, String body, boolean html) {
+        if (!hasRecipient(to, subject)) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(pending(to, subject, body, html, now, now).build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    wake();
+                }
+            });
+        } else {
+            wake();
+        }
+    }
+
+    /**
+     * Queues a notification that may be merged with others for the same recipient and key. {@code draft}
+     * gets the state of the still-pending notification it joins (null when there is none) and returns the
+     * combined email; the row is sent once the window that opened with the first notification closes.
+     */
+    @Transactional
+    public void enqueueCoalesced(String to, String coalesceKey, Function<String, Draft> draft) {
+        if (!hasRecipient(to, coalesceKey)) {
+            return;
+        }
+        Optional<EmailOutbox> waiting = repository.findFirstByRecipientAndCoalesceKeyAndStatusOrderByIdDesc(
+                to, coalesceKey, OutboxStatus.PENDING);
+        if (waiting.isPresent()) {
+            EmailOutbox email = waiting.get();
+            Draft merged = draft.apply(email.getCoalesceState());
+            email.setSubject(merged.subject());
+            email.setBody(merged.body());
+            email.setHtml(merged.html());
+            email.setCoalesceState(merged.state());
+            repository.save(email);
+            coalesced.increment();
+            return;
+        }
+
+        Draft first = draft.apply(null);
+        LocalDateTime now = LocalDateTime.now();
+        repository.save(pending(to, first.subject(), first.body(), first.html(), now, now.plus(coalesceWindow))
+                .coalesceKey(coalesceKey)
+                .coalesceState(first.state())
+                .build());
+    }
+
+    private static boolean hasRecipient(String to, String what) {
+        if (to == null || to.isBlank()) {
+            log.warn("Dropping email without a recipient: {}", what);
+            return false;
+        }
+        return true;
+    }
+
+    private static EmailOutbox.EmailOutboxBuilder pending(String to, String subject, String body, boolean html,
+                                                          LocalDateTime now, LocalDateTime sendAt) {
+        return EmailOutbox.builder()
+                .recipient(to)
+                .subject(subject != null ? subject : "")
+                .body(body != null ? body : "")
+                .html(html)
+                .status(OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(sendAt)
+                .createdAt(now);
+    }
+
+    public Stats stats() {
+        return new Stats(
+                repository.countByStatus(OutboxStatus.PENDING),
+                repository.countByStatus(OutboxStatus.SENDING),
+                repository.countByStatus(OutboxStatus.DEAD),
+                lagSeconds());
+    }
+
+    // Age of the oldest unsent row
+    private long lagSeconds() {
+        LocalDateTime oldest = null;
+        for (OutboxStatus status : UNSENT) {
+            LocalDateTime created = repository.findOldestCreatedAt(status);
+            if (created != null && (oldest == null || created.isBefore(oldest))) oldest = created;
+        }
+        return oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toSeconds());
+    }
+
+    private void wake() {
+        if (enabled && wakeRequested.compareAndSet(false, true) && !poller.isShutdown()) {
+            try {
+                poller.execute(this::pollSafely);
+            } catch (RejectedExecutionException ignored) {
+                // Shutting down; the rows are picked up on the next start
+            }
+        }
+    }
+
+    private void pollSafely() {
+        wakeRequested.set(false);
+        try {
+            poll();
+        } catch (Exception e) {
+            log.error("Email outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    private void poll() {
+        while (true) {
+            int room = workers.getQueue().remainingCapacity() * perConnectionBatch;
+            if (room == 0) return;
+            LocalDateTime now = LocalDateTime.now();
+            List<Long> due = repository.findDueIds(now, PageRequest.of(0, Math.min(room, batchSize)));
+            if (due.isEmpty()) return;
+
+            LocalDateTime leaseUntil = now.plus(lease);
+            List<Claim> claimed = new ArrayList<>();
+            for (Long id : due) {
+                // null when another instance got it
+                Integer attempt = transactionTemplate.execute(status ->
+                        repository.claim(id, now, leaseUntil) > 0 ? repository.findAttemptsById(id) : null);
+                if (attempt != null) claimed.add(new Claim(id, attempt));
+            }
+            for (int from = 0; from < claimed.size(); from += perConnectionBatch) {
+                List<Claim> chunk = claimed.subList(from, Math.min(from + perConnectionBatch, claimed.size()));
+                try {
+                    workers.execute(() -> deliver(chunk));
+                } catch (RejectedExecutionException e) {
+                    // Left SENDING; they become due again when the lease lapses
+                    return;
+                }
+            }
+            if (claimed.isEmpty() || due.size() < Math.min(room, batchSize)) return;
+        }
+    }
+
+    /**
+     * A claimed row and the attempt number the claim set. A batch can sit in the worker queue and then
+     * take several SMTP timeouts to send, longer than the lease, so the poller may claim a row again in
+     * the meantime; every later step checks the attempt number first and leaves a re-claimed row alone.
+     */
+    private record Claim(long id, int attempt) {}
+
+    private void deliver(List<Claim> claims) {
+        Map<Long, EmailOutbox> rows = new HashMap<>();
+        repository.findAllById(claims.stream().map(Claim::id).toList()).forEach(row -> rows.put(row.getId(), row));
+
+        List<Claim> held = new ArrayList<>();
+        List<EmailOutbox> emails = new ArrayList<>();
+        List<MimeMessage> messages = new ArrayList<>();
+        for (Claim claim : claims) {
+            EmailOutbox email = rows.get(claim.id());
+            if (email == null || email.getStatus() != OutboxStatus.SENDING
+                    || email.getAttempts() != claim.attempt()) continue;
+            try {
+                messages.add(toMessage(email));
+                held.add(claim);
+                emails.add(email);
+            } catch (Exception e) {
+                failed(claim, email, e);
+            }
+        }
+
+        // Renew the lease right before each message goes out, and skip the ones claimed again meanwhile
+        List<Exception> results = smtpPool.sendBatch(messages, index -> renew(held.get(index)));
+        for (int i = 0; i < emails.size(); i++) {
+            Claim claim = held.get(i);
+            EmailOutbox email = emails.get(i);
+            Exception result = results.get(i);
+            if (result instanceof CancellationException) {
+                log.debug("Email {} was claimed again before it was sent; leaving it to that claim", email.getId());
+                continue;
+            }
+            if (result != null) {
+                failed(claim, email, result);
+                continue;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            complete(claim, OutboxStatus.SENT, now, now, null);
+            sent.increment();
+            log.info("Email sent to {} - Subject: {}", email.getRecipient(), email.getSubject());
+        }
+    }
+
+    private boolean renew(Claim claim) {
+        LocalDateTime leaseUntil = LocalDateTime.now().plus(lease);
+        Integer renewed = transactionTemplate.execute(status ->
+                repository.renewClaim(claim.id(), claim.attempt(), leaseUntil));
+        return renewed != null && renewed > 0;
+    }
+
+    private boolean complete(Claim claim, OutboxStatus status, LocalDateTime nextAttemptAt,
+                             LocalDateTime sentAt, String lastError) {
+        Integer updated = transactionTemplate.execute(tx -> repository.completeClaim(
+                claim.id(), claim.attempt(), status, nextAttemptAt, sentAt, lastError));
+        return updated != null && updated > 0;
+    }
+
+    private MimeMessage toMessage(EmailOutbox email) throws Exception {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, email.isHtml(), "UTF-8");
+        helper.setTo(email.getRecipient());
+        helper.setFrom(EmailService.FROM_EMAIL, EmailService.FROM_NAME);
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), email.isHtml());
+        return message;
+    }
+
+    private void failed(Claim claim, EmailOutbox email, Exception e) {
+        String error = String.valueOf(e.getMessage());
+        error = error.length() > 1000 ? error.substring(0, 1000) : error;
+        if (email.getAttempts() >= maxAttempts) {
+            if (!complete(claim, OutboxStatus.DEAD, LocalDateTime.now(), null, error)) return;
+            dead.increment();
+            log.error("Giving up on email {} to {} after {} attempts: {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), error);
+        } else {
+            LocalDateTime retryAt = LocalDateTime.now().plus(backoff(email.getAttempts()));
+            if (!complete(claim, OutboxStatus.PENDING, retryAt, null, error)) return;
+            retried.increment();
+            log.warn("Email {} to {} failed (attempt {}), retrying later: {}",
+                    email.getId(), email.getRecipient(), email.getAttempts(), error);
+        }
+    }
+
+    // base, 2x base, 4x base, ... capped, with up to 20% jitter so failed rows do not retry in lockstep
+    private Duration backoff(int attempts) {
+        long seconds = baseBackoff.getSeconds() << Math.min(Math.max(attempts - 1, 0), 20);
+        seconds = Math.min(seconds, maxBackoff.getSeconds());
+        long jitter = (long) (seconds * 0.2 * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofSeconds(seconds + jitter);
+    }
+
+    private void purgeSafely() {
+        try {
+            Integer purged = transactionTemplate.execute(status ->
+                    repository.deleteSentBefore(OutboxStatus.SENT, LocalDateTime.now().minus(retention)));
+            if (purged != null && purged > 0) log.info("Purged {} sent emails from the outbox", purged);
+        } catch (Exception e) {
+            log.error("Email outbox purge failed: {}", e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
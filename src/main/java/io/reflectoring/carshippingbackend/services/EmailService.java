@@ -1,27 +1,30 @@
 package io.reflectoring.carshippingbackend.services;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.reflectoring.carshippingbackend.tables.ItemRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 
-import jakarta.mail.internet.MimeMessage;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private final EmailOutboxService outbox;
+    private final ObjectMapper objectMapper;
     private final TemplateEngine templateEngine;
 
     @Value("${app.domain:https://f-carshipping.com}")
@@ -30,8 +33,11 @@ public class EmailService {
     @Value("${app.company.name:F-Car Shipping}")
     private String companyName;
 
-    private static final String FROM_EMAIL = "info@f-carshipping.com";
-    private static final String FROM_NAME = "F-Car Shipping";
+    static final String FROM_EMAIL = "info@f-carshipping.com";
+    static final String FROM_NAME = "F-Car Shipping";
+
+    private static final String ARROW = " → ";
+    private static final Pattern ADDED_IMAGES = Pattern.compile("Added (\\d+) new image\\(s\\)");
 
     @Value("${app.admin.email:nduatifrancis43@gmail.com}")
     private String adminEmail;
@@ -107,15 +113,7 @@ public class EmailService {
         try {
             String reviewLink = String.format("%s/Reviews/%s", appDomain, reviewToken);
 
-            String htmlContent = buildHtmlEmail(
-                    "#059669",
-                    "Order Confirmed! 🎉",
-                    order,
-                    null,
-                    null,
-                    reviewLink,
-                    true
-            );
+            String htmlContent = render("order-confirmation", orderContext(order, reviewLink));
 
             sendHtmlEmail(order.getClientEmail(),
                     String.format("Order Confirmed - %s", order.getRequestId()),
@@ -131,20 +129,11 @@ public class EmailService {
     public void sendStatusUpdateEmail(ItemRequest order, String reviewToken) {
         try {
             String reviewLink = String.format("%s/Reviews/%s", appDomain, reviewToken);
+            String status = formatStatus(order.getStatus());
 
-            String htmlContent = buildHtmlEmail(
-                    "#3b82f6",
-                    "Order Status Updated",
-                    order,
-                    order.getStatus(),
-                    null,
-                    reviewLink,
-                    true
-            );
-
-            sendHtmlEmail(order.getClientEmail(),
-                    String.format("Order Update - %s", order.getRequestId()),
-                    htmlContent);
+            outbox.enqueueCoalesced(order.getClientEmail(), statusKey(order),
+                    previous -> statusDigest(order, reviewLink, readDigest(previous).withStatus(status)));
+            log.info("Status update queued for order {} (coalesced by {})", order.getRequestId(), statusKey(order));
 
         } catch (Exception e) {
             log.error("Failed to send status update: {}", e.getMessage());
@@ -157,48 +146,10 @@ public class EmailService {
         try {
             String reviewUrl = String.format("%s/Reviews/%s", appDomain, reviewToken);
 
-            String htmlContent = String.format("""
-                <!DOCTYPE html>
-                <html>
-                <body style="margin:0;padding:0;font-family:Arial,sans-serif;">
-                <div style="max-width:600px;margin:0 auto;padding:20px;">
-                    <div style="background-color:#059669;padding:30px;text-align:center;">
-                        <h1 style="margin:0;color:white;">How was your experience? 🌟</h1>
-                    </div>
-                    <div style="padding:30px;border:1px solid #e5e7eb;border-top:none;">
-                        <p>Dear <strong>%s</strong>,</p>
-                        <p>Thank you for your recent order of <strong>%s</strong>.</p>
-                        <div style="background-color:#f9fafb;padding:20px;margin:20px 0;">
-                            <p><strong>Order #:</strong> %s</p>
-                            <p><strong>Item:</strong> %s</p>
-                            <p><strong>Order Date:</strong> %s</p>
-                        </div>
-                        <p>We'd love to hear about your experience!</p>
-                        <div style="text-align:center;margin:30px 0;">
-                            <a href="%s" style="display:inline-block;background-color:#059669;color:white;padding:15px 40px;text-decoration:none;border-radius:8px;">Share Your Experience →</a>
-                        </div>
-                        <div style="margin-top:30px;padding-top:20px;border-top:1px solid #e5e7eb;text-align:center;font-size:12px;color:#6b7280;">
-                            <p>Questions? Contact us at <a href="mailto:%s" style="color:#6b7280;">%s</a></p>
-                            <p><a href="%s" style="color:#6b7280;">f-carshipping.com</a></p>
-                        </div>
-                    </div>
-                </div>
-                </body>
-                </html>
-                """,
-                    order.getClientName(),
-                    order.getItemName(),
-                    order.getRequestId(),
-                    order.getItemName(),
-                    formatDate(order.getCreatedAt()),
-                    reviewUrl,
-                    FROM_EMAIL, FROM_EMAIL,
-                    appDomain
-            );
-
-            sendHtmlEmail(order.getClientEmail(),
-                    String.format("Share your experience with %s", order.getItemName()),
-                    htmlContent);
+            // Sent on delivery: joins the "Delivered" status update if that is still waiting
+            outbox.enqueueCoalesced(order.getClientEmail(), statusKey(order),
+                    previous -> statusDigest(order, reviewUrl, readDigest(previous).withReview(reviewUrl)));
+            log.info("Review request queued for order {} (coalesced by {})", order.getRequestId(), statusKey(order));
 
         } catch (Exception e) {
             log.error("Failed to send review request: {}", e.getMessage());
@@ -209,35 +160,10 @@ public class EmailService {
 
     public void sendReviewThankYouEmail(ItemRequest order, int rating) {
         try {
-            String stars = "★".repeat(rating) + "☆".repeat(5 - rating);
-
-            String htmlContent = String.format("""
-                <!DOCTYPE html>
-                <html>
-                <body style="margin:0;padding:0;font-family:Arial,sans-serif;">
-                <div style="max-width:600px;margin:0 auto;padding:20px;">
-                    <div style="background:linear-gradient(135deg,#10b981,#059669);padding:40px;text-align:center;">
-                        <h1 style="margin:0;color:white;">Thank You! 🎉</h1>
-                    </div>
-                    <div style="padding:30px;text-align:center;">
-                        <div style="font-size:48px;color:#fbbf24;margin:20px 0;">%s</div>
-                        <div style="background-color:#f0fdf4;padding:20px;border-radius:8px;">
-                            <p style="font-size:18px;">Dear <strong>%s</strong>,</p>
-                            <p>Thank you for your %d-star review of <strong>%s</strong>!</p>
-                        </div>
-                        <p>Your feedback helps us improve our service!</p>
-                        <a href="%s/dashboard/UserOrdersPage/" style="display:inline-block;background-color:#059669;color:white;padding:12px 30px;text-decoration:none;border-radius:5px;margin-top:20px;">View Your Orders</a>
-                    </div>
-                </div>
-                </body>
-                </html>
-                """,
-                    stars,
-                    order.getClientName(),
-                    rating,
-                    order.getItemName(),
-                    appDomain
-            );
+            String htmlContent = render("review-thank-you", orderContext(order, null)
+                    .variable("rating", rating)
+                    .variable("stars", stars(rating))
+                    .variable("dashboardUrl", appDomain + "/dashboard/UserOrdersPage/"));
 
             sendHtmlEmail(order.getClientEmail(), "Thank You for Your Review!", htmlContent);
 
@@ -251,15 +177,7 @@ public class EmailService {
         try {
             String reviewLink = String.format("%s/Reviews/%s", appDomain, reviewToken);
 
-            String htmlContent = buildHtmlEmail(
-                    "#dc2626",
-                    "Order Cancelled",
-                    order,
-                    null,
-                    order.getCancellationReason(),
-                    reviewLink,
-                    true
-            );
+            String htmlContent = render("order-cancelled-client", cancellationContext(order, reviewLink));
 
             sendHtmlEmail(order.getClientEmail(),
                     String.format("Order Cancelled - %s", order.getRequestId()),
@@ -284,15 +202,7 @@ public class EmailService {
         try {
             String reviewLink = String.format("%s/Reviews/%s", appDomain, reviewToken);
 
-            String htmlContent = buildHtmlEmail(
-                    "#dc2626",
-                    "Order Cancelled by Admin",
-                    order,
-                    null,
-                    order.getCancellationReason(),
-                    reviewLink,
-                    true
-            );
+            String htmlContent = render("order-cancelled-admin", cancellationContext(order, reviewLink));
 
             sendHtmlEmail(order.getClientEmail(),
                     String.format("Order Cancelled - %s", order.getRequestId()),
@@ -309,39 +219,30 @@ public class EmailService {
         try {
             String reviewLink = String.format("%s/Reviews/%s", appDomain, reviewToken);
 
-            StringBuilder changesHtml = new StringBuilder();
-            if (changes != null && !changes.isEmpty()) {
-                changesHtml.append("<div style='background-color:#fef3c7;padding:15px;border-radius:8px;margin:15px 0;'><strong>Changes made:</strong><ul>");
-                changes.forEach((field, change) ->
-                        changesHtml.append("<li><strong>").append(field).append(":</strong> ").append(change).append("</li>"));
-                changesHtml.append("</ul></div>");
-            }
+            String subject = String.format("Order Updated - %s", order.getRequestId());
 
-            String htmlContent = buildHtmlEmail(
-                    "#3b82f6",
-                    "Order Updated",
-                    order,
-                    null,
-                    null,
-                    reviewLink,
-                    true,
-                    changesHtml.toString()
-            );
-
-            sendHtmlEmail(order.getClientEmail(),
-                    String.format("Order Updated - %s", order.getRequestId()),
-                    htmlContent);
+            // Edits within the coalescing window go out as one email listing all their changes
+            outbox.enqueueCoalesced(order.getClientEmail(), "order-edit:" + order.getId(), previous -> {
+                Map<String, String> merged = mergeChanges(readChanges(previous), changes);
+                String htmlContent = render("order-edited-client", orderContext(order, reviewLink)
+                        .variable("updatedDate", formatDate(lastChanged(order)))
+                        .variable("changesHtml", changesHtml(merged)));
+                return new EmailOutboxService.Draft(subject, htmlContent, true, writeChanges(merged));
+            });
 
             // Notify admin
-            StringBuilder changesText = new StringBuilder();
-            if (changes != null && !changes.isEmpty()) {
-                changes.forEach((field, change) -> changesText.append("\n- ").append(field).append(": ").append(change));
-            }
-            sendPlainTextEmail(adminEmail,
-                    String.format("[ADMIN] Order Updated - %s", order.getRequestId()),
-                    String.format("Client %s (%s) updated order %s\nItem: %s\nUpdated: %s%s",
-                            order.getClientName(), order.getClientEmail(), order.getRequestId(),
-                            order.getItemName(), formatDate(order.getUpdatedAt()), changesText.toString()));
+            outbox.enqueueCoalesced(adminEmail, "order-edit-admin:" + order.getId(), previous -> {
+                Map<String, String> merged = mergeChanges(readChanges(previous), changes);
+                StringBuilder changesText = new StringBuilder();
+                merged.forEach((field, change) -> changesText.append("\n- ").append(field).append(": ").append(change));
+                return new EmailOutboxService.Draft(
+                        String.format("[ADMIN] Order Updated - %s", order.getRequestId()),
+                        String.format("Client %s (%s) updated order %s\nItem: %s\nUpdated: %s%s",
+                                order.getClientName(), order.getClientEmail(), order.getRequestId(),
+                                order.getItemName(), formatDate(order.getUpdatedAt()), changesText),
+                        false, writeChanges(merged));
+            });
+            log.info("Order edit emails queued for order {}", order.getRequestId());
 
         } catch (Exception e) {
             log.error("Failed to send order edit emails: {}", e.getMessage());
@@ -354,17 +255,11 @@ public class EmailService {
         try {
             String reviewLink = String.format("%s/Reviews/%s", appDomain, reviewToken);
 
-            String htmlContent = buildHtmlEmail(
-                    "#3b82f6",
-                    "Order Updated by Admin",
-                    order,
-                    order.getStatus(),
-                    null,
-                    reviewLink,
-                    true
-            );
+            String htmlContent = render("order-edited-admin", orderContext(order, reviewLink)
+                    .variable("newStatus", formatStatus(order.getStatus()))
+                    .variable("updatedDate", formatDate(lastChanged(order))));
 
-            sendHtmlEmail(order.getClientEmail(),
+            sendCoalescedHtmlEmail(order.getClientEmail(), "order-admin-edit:" + order.getId(),
                     String.format("Order Updated - %s", order.getRequestId()),
                     htmlContent);
 
@@ -377,110 +272,208 @@ public class EmailService {
 
     // ============= CORE EMAIL METHODS =============
 
-    private String buildHtmlEmail(String headerColor, String title, ItemRequest order,
-                                  String status, String cancelReason, String reviewLink,
-                                  boolean showReview, String... extraContent) {
-        String statusHtml = "";
-        if (status != null) {
-            statusHtml = String.format("""
-                <p><strong>New Status:</strong> <span style="display:inline-block;background-color:%s;color:white;padding:8px 16px;border-radius:20px;">%s</span></p>
-                """, headerColor, formatStatus(status));
+    private String render(String template, EmailContext context) {
+        return templateEngine.process(template, context.context);
+    }
+
+    // A fresh Thymeleaf context per email (contexts are not thread-safe); the templates themselves are
+    // parsed once and cached by the engine (spring.thymeleaf.cache)
+    private static final class EmailContext {
+        private final Context context = new Context(Locale.ENGLISH);
+
+        EmailContext variable(String name, Object value) {
+            context.setVariable(name, value);
+            return this;
         }
+    }
+
+    // Footer variables shared by every template
+    private EmailContext siteContext() {
+        return new EmailContext()
+                .variable("companyName", companyName)
+                .variable("supportEmail", FROM_EMAIL)
+                .variable("appDomain", appDomain);
+    }
+
+    private EmailContext orderContext(ItemRequest order, String reviewLink) {
+        return siteContext()
+                .variable("clientName", order.getClientName())
+                .variable("requestId", order.getRequestId())
+                .variable("itemName", order.getItemName())
+                .variable("orderDate", formatDate(order.getCreatedAt()))
+                .variable("orderUrl", appDomain + "/dashboard/UserOrdersPage/")
+                .variable("reviewLink", reviewLink);
+    }
+
+    private EmailContext cancellationContext(ItemRequest order, String reviewLink) {
+        String reason = order.getCancellationReason();
+        return orderContext(order, reviewLink)
+                .variable("cancellationReason", reason != null && !reason.isEmpty() ? reason : "Not specified")
+                .variable("cancellationDate", formatDate(lastChanged(order)));
+    }
+
+    // Status updates and the review request sent on delivery share one key, so those within the
+    // coalescing window go out as one digest
+    private static String statusKey(ItemRequest order) {
+        return "order-status:" + order.getId();
+    }
 
-        String cancelHtml = "";
-        if (cancelReason != null && !cancelReason.isEmpty()) {
-            cancelHtml = String.format("<p><strong>Reason:</strong> %s</p>", cancelReason);
+    /**
+     * What one pending status email carries: every status reached in the window, oldest first, and the
+     * review link once the review request has joined.
+     */
+    record StatusDigest(List<String> statuses, String reviewUrl) {
+
+        StatusDigest withStatus(String status) {
+            List<String> next = new ArrayList<>(statuses);
+            if (next.isEmpty() || !next.get(next.size() - 1).equals(status)) next.add(status);
+            return new StatusDigest(next, reviewUrl);
         }
 
-        String reviewHtml = "";
-        if (showReview && reviewLink != null && !reviewLink.isEmpty()) {
-            reviewHtml = String.format("""
-                <div style="background-color:#f0fdf4;padding:20px;border-radius:8px;margin:20px 0;text-align:center;">
-                    <p><strong>📝 Share your experience!</strong></p>
-                    <a href="%s" style="display:inline-block;background-color:#059669;color:white;padding:12px 30px;text-decoration:none;border-radius:5px;">Leave a Review →</a>
-                </div>
-                """, reviewLink);
+        StatusDigest withReview(String url) {
+            return new StatusDigest(statuses, url);
         }
+    }
 
-        String extraHtml = extraContent.length > 0 ? extraContent[0] : "";
-
-        return String.format("""
-            <!DOCTYPE html>
-            <html>
-            <body style="margin:0;padding:0;font-family:Arial,sans-serif;background-color:#f9fafb;">
-            <div style="max-width:600px;margin:0 auto;padding:20px;">
-                <div style="background-color:%s;padding:30px;text-align:center;">
-                    <h1 style="margin:0;color:white;">%s</h1>
-                </div>
-                <div style="padding:30px;background-color:#ffffff;border:1px solid #e5e7eb;border-top:none;">
-                    <p>Dear <strong>%s</strong>,</p>
-                    <div style="background-color:#f9fafb;padding:20px;border-radius:8px;margin:20px 0;">
-                        <p><strong>Order #:</strong> %s</p>
-                        <p><strong>Item:</strong> %s</p>
-                        %s
-                        %s
-                        <p><strong>Date:</strong> %s</p>
-                    </div>
-                    %s
-                    %s
-                    <div style="text-align:center;margin-top:20px;">
-                        <a href="%s/dashboard/UserOrdersPage/" style="display:inline-block;background-color:%s;color:white;padding:10px 20px;text-decoration:none;border-radius:5px;">View Order Details</a>
-                    </div>
-                    <div style="margin-top:30px;padding-top:20px;border-top:1px solid #e5e7eb;text-align:center;font-size:12px;color:#6b7280;">
-                        <p>Thank you for choosing %s!</p>
-                        <p>Questions? <a href="mailto:%s" style="color:#6b7280;">%s</a></p>
-                        <p><a href="%s" style="color:#6b7280;">f-carshipping.com</a></p>
-                    </div>
-                </div>
-            </div>
-            </body>
-            </html>
-            """,
-                headerColor, title,
-                order.getClientName(),
-                order.getRequestId(),
-                order.getItemName(),
-                statusHtml,
-                cancelHtml,
-                formatDate(order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt()),
-                reviewHtml,
-                extraHtml,
-                appDomain, headerColor,
-                companyName,
-                FROM_EMAIL, FROM_EMAIL,
-                appDomain
-        );
+    // A review request on its own keeps its own email; joined with status updates it becomes their digest
+    private EmailOutboxService.Draft statusDigest(ItemRequest order, String reviewLink, StatusDigest digest) {
+        List<String> statuses = digest.statuses();
+        if (statuses.isEmpty()) {
+            return new EmailOutboxService.Draft(
+                    String.format("Share your experience with %s", order.getItemName()),
+                    render("review-request", orderContext(order, null).variable("reviewUrl", digest.reviewUrl())),
+                    true, writeDigest(digest));
+        }
+        String htmlContent = render("order-status-updated",
+                orderContext(order, digest.reviewUrl() != null ? digest.reviewUrl() : reviewLink)
+                        .variable("newStatus", statuses.get(statuses.size() - 1))
+                        .variable("earlierStatuses", statuses.subList(0, statuses.size() - 1))
+                        .variable("reviewRequested", digest.reviewUrl() != null)
+                        .variable("updatedDate", formatDate(lastChanged(order))));
+        return new EmailOutboxService.Draft(String.format("Order Update - %s", order.getRequestId()),
+                htmlContent, true, writeDigest(digest));
     }
 
+    private StatusDigest readDigest(String state) {
+        if (state == null || state.isBlank()) return new StatusDigest(List.of(), null);
+        try {
+            StatusDigest digest = objectMapper.readValue(state, StatusDigest.class);
+            return new StatusDigest(digest.statuses() != null ? digest.statuses() : List.of(), digest.reviewUrl());
+        } catch (Exception e) {
+            log.warn("Unreadable coalesced status updates, starting over: {}", e.getMessage());
+            return new StatusDigest(List.of(), null);
+        }
+    }
+
+    private String writeDigest(StatusDigest digest) {
+        try {
+            return objectMapper.writeValueAsString(digest);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialise status updates", e);
+        }
+    }
+
+    private String changesHtml(Map<String, String> changes) {
+        if (changes.isEmpty()) return "";
+        // th:utext in the template: the values come from the client, so they are escaped here
+        StringBuilder html = new StringBuilder(
+                "<div style='background-color:#fef3c7;padding:15px;border-radius:8px;margin:15px 0;'><strong>Changes made:</strong><ul>");
+        changes.forEach((field, change) ->
+                html.append("<li><strong>").append(HtmlUtils.htmlEscape(field)).append(":</strong> ")
+                        .append(HtmlUtils.htmlEscape(String.valueOf(change))).append("</li>"));
+        return html.append("</ul></div>").toString();
+    }
+
+    /**
+     * Folds a newer set of order changes into the ones already listed: "a → b" then "b → c" becomes
+     * "a → c" (and disappears when it ends where it started), image uploads add up, anything else takes
+     * the newer value.
+     */
+    static Map<String, String> mergeChanges(Map<String, String> older, Map<String, String> newer) {
+        Map<String, String> merged = new LinkedHashMap<>(older);
+        if (newer == null) return merged;
+        newer.forEach((field, change) -> {
+            String before = merged.get(field);
+            if (before == null) {
+                merged.put(field, change);
+                return;
+            }
+            Matcher olderImages = ADDED_IMAGES.matcher(before);
+            Matcher newerImages = ADDED_IMAGES.matcher(change);
+            if (olderImages.matches() && newerImages.matches()) {
+                int total = Integer.parseInt(olderImages.group(1)) + Integer.parseInt(newerImages.group(1));
+                merged.put(field, "Added " + total + " new image(s)");
+                return;
+            }
+            int olderArrow = before.indexOf(ARROW);
+            int newerArrow = change.indexOf(ARROW);
+            if (olderArrow >= 0 && newerArrow >= 0) {
+                String from = before.substring(0, olderArrow);
+                String to = change.substring(newerArrow + ARROW.length());
+                if (from.equals(to)) merged.remove(field);
+                else merged.put(field, from + ARROW + to);
+                return;
+            }
+            merged.put(field, change);
+        });
+        return merged;
+    }
+
+    private Map<String, String> readChanges(String state) {
+        if (state == null || state.isBlank()) return new LinkedHashMap<>();
+        try {
+            return objectMapper.readValue(state, new TypeReference<LinkedHashMap<String, String>>() {});
+        } catch (Exception e) {
+            log.warn("Unreadable coalesced order changes, starting over: {}", e.getMessage());
+            return new LinkedHashMap<>();
+        }
+    }
+
+    private String writeChanges(Map<String, String> changes) {
+        try {
+            return objectMapper.writeValueAsString(changes);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not serialise order changes", e);
+        }
+    }
+
+    private static LocalDateTime lastChanged(ItemRequest order) {
+        return order.getUpdatedAt() != null ? order.getUpdatedAt() : order.getCreatedAt();
+    }
+
+    private static String stars(int rating) {
+        int filled = Math.max(0, Math.min(5, rating));
+        return "★".repeat(filled) + "☆".repeat(5 - filled);
+    }
+
+    private void sendCoalescedHtmlEmail(String to, String coalesceKey, String subject, String htmlContent) {
+        try {
+            outbox.enqueueCoalesced(to, coalesceKey,
+                    previous -> new EmailOutboxService.Draft(subject, htmlContent, true, null));
+            log.info("HTML email queued for {} - Subject: {} (coalesced by {})", to, subject, coalesceKey);
+        } catch (Exception e) {
+            log.error("Failed to queue HTML email to {}: {}", to, e.getMessage());
+            throw new RuntimeException("Email sending failed", e);
+        }
+    }
+
+    // Both only queue the email in the caller's transaction; EmailOutboxService delivers it after commit
     private void sendHtmlEmail(String to, String subject, String htmlContent) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setTo(to);
-            helper.setFrom(FROM_EMAIL, FROM_NAME);
-            helper.setSubject(subject);
-            helper.setText(htmlContent, true);
-
-            mailSender.send(message);
-            log.info("HTML email sent to {} - Subject: {}", to, subject);
+            outbox.enqueue(to, subject, htmlContent, true);
+            log.info("HTML email queued for {} - Subject: {}", to, subject);
         } catch (Exception e) {
-            log.error("Failed to send HTML email to {}: {}", to, e.getMessage());
+            log.error("Failed to queue HTML email to {}: {}", to, e.getMessage());
             throw new RuntimeException("Email sending failed", e);
         }
     }
 
     private void sendPlainTextEmail(String to, String subject, String content) {
         try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
-            helper.setTo(to);
-            helper.setFrom(FROM_EMAIL, FROM_NAME);
-            helper.setSubject(subject);
-            helper.setText(content);
-            mailSender.send(message);
-            log.info("Plain text email sent to {}", to);
+            outbox.enqueue(to, subject, content, false);
+            log.info("Plain text email queued for {}", to);
         } catch (Exception e) {
-            log.error("Failed to send plain text email to {}: {}", to, e.getMessage());
+            log.error("Failed to queue plain text email to {}: {}", to, e.getMessage());
         }
     }
 
@@ -584,54 +577,11 @@ public class EmailService {
                 default -> "⭐ Share your experience!";
             };
 
-            String htmlContent = """
-            <!DOCTYPE html>
-            <html>
-            <body style="margin:0;padding:0;font-family:Arial,sans-serif;">
-            <div style="max-width:600px;margin:0 auto;padding:20px;">
-                
-                <div style="background-color:#059669;padding:30px;text-align:center;">
-                    <h1 style="margin:0;color:white;">%s</h1>
-                </div>
-
-                <div style="padding:30px;border:1px solid #e5e7eb;border-top:none;">
-                    
-                    <p>We hope you enjoyed your <strong>%s</strong>.</p>
-
-                    <div style="background-color:#f9fafb;padding:20px;margin:20px 0;">
-                        <p><strong>Item:</strong> %s</p>
-                        <p><strong>Category:</strong> %s</p>
-                    </div>
-
-                    <p>We’d love your feedback 🙌</p>
-
-                    <div style="text-align:center;margin:30px 0;">
-                        <a href="%s"
-                           style="display:inline-block;background-color:#059669;color:white;
-                           padding:15px 40px;text-decoration:none;border-radius:8px;">
-                           Leave a Review →
-                        </a>
-                    </div>
-
-                    <div style="margin-top:30px;padding-top:20px;border-top:1px solid #e5e7eb;
-                         text-align:center;font-size:12px;color:#6b7280;">
-                        <p>Questions? Contact us at <a href="mailto:%s">%s</a></p>
-                        <p><a href="%s">%s</a></p>
-                    </div>
-
-                </div>
-            </div>
-            </body>
-            </html>
-            """.formatted(
-                    title,
-                    itemName,
-                    itemName,
-                    sourceType,
-                    reviewUrl,
-                    FROM_EMAIL, FROM_EMAIL,
-                    appDomain, appDomain
-            );
+            String htmlContent = render("vehicle-review-request", siteContext()
+                    .variable("title", title)
+                    .variable("itemName", itemName)
+                    .variable("sourceType", sourceType)
+                    .variable("reviewUrl", reviewUrl));
 
             sendHtmlEmail(to, "Share Your Experience - " + itemName, htmlContent);
 
@@ -643,35 +593,11 @@ public class EmailService {
     // Add to EmailService.java
     public void sendVehicleReviewThankYouEmail(String buyerName, String buyerEmail, String itemName, int rating) {
         try {
-            String stars = "★".repeat(rating) + "☆".repeat(5 - rating);
-
-            String htmlContent = String.format("""
-            <!DOCTYPE html>
-            <html>
-            <body style="margin:0;padding:0;font-family:Arial,sans-serif;">
-            <div style="max-width:600px;margin:0 auto;padding:20px;">
-                <div style="background:linear-gradient(135deg,#10b981,#059669);padding:40px;text-align:center;">
-                    <h1 style="margin:0;color:white;">Thank You for Your Review! 🎉</h1>
-                </div>
-                <div style="padding:30px;text-align:center;">
-                    <div style="font-size:48px;color:#fbbf24;margin:20px 0;">%s</div>
-                    <div style="background-color:#f0fdf4;padding:20px;border-radius:8px;">
-                        <p style="font-size:18px;">Dear <strong>%s</strong>,</p>
-                        <p>Thank you for your %d-star review of <strong>%s</strong>!</p>
-                    </div>
-                    <p>Your feedback helps other buyers make informed decisions!</p>
-                    <a href="%s" style="display:inline-block;background-color:#059669;color:white;padding:12px 30px;text-decoration:none;border-radius:5px;margin-top:20px;">Browse More Vehicles</a>
-                </div>
-            </div>
-            </body>
-            </html>
-            """,
-                    stars,
-                    buyerName,
-                    rating,
-                    itemName,
-                    appDomain
-            );
+            String htmlContent = render("vehicle-review-thank-you", siteContext()
+                    .variable("buyerName", buyerName)
+                    .variable("itemName", itemName)
+                    .variable("rating", rating)
+                    .variable("stars", stars(rating)));
 
             sendHtmlEmail(buyerEmail, "Thank You for Your Review!", htmlContent);
 
@@ -0,0 +1,204 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.repository.CarRepository;
+import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
+import io.reflectoring.carshippingbackend.repository.MotorcycleRepository;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Counts listings per facet value (brand, model, type, location, ...), per vehicle type and per status,
+ * for the filter dropdowns. The counts are loaded once when the application is ready and then moved by
+ * {@link ListingChangedEvent}s after each commit, so a dropdown render never scans the listing tables.
+ * As with {@link CatalogIndexService}, a rebuild counts off to the side and swaps the result in.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class FacetCountService {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final CarRepository carRepository;
+    private final MotorcycleRepository motorcycleRepository;
+    private final CommercialVehicleRepository commercialVehicleRepository;
+    private final CatalogVersionService versions;
+    private final CatalogIndexService catalogIndex;
+
+    // Replaced as a whole by a rebuild
+    private volatile Map<VehicleType, FacetCounts> counts = emptyCounts();
+
+    // Guards applying a change against the swap; changes is non-null while a rebuild is loading
+    private final Object swap = new Object();
+    private List<Change> changes;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        synchronized (swap) {
+            changes = new ArrayList<>();
+        }
+
+        Map<VehicleType, FacetCounts> fresh = emptyCounts();
+        try {
+            ListingIds.forEachById(carRepository, null, LOAD_BATCH_SIZE, Car::getId,
+                    car -> fresh.get(VehicleType.CAR).put(CatalogEntry.ofCar(car)));
+            ListingIds.forEachById(motorcycleRepository, null, LOAD_BATCH_SIZE, Motorcycle::getId,
+                    motorcycle -> fresh.get(VehicleType.MOTORCYCLE).put(CatalogEntry.ofMotorcycle(motorcycle)));
+            ListingIds.forEachById(commercialVehicleRepository, null, LOAD_BATCH_SIZE, CommercialVehicle::getId,
+                    vehicle -> fresh.get(VehicleType.COMMERCIALVEHICLE).put(CatalogEntry.ofCommercialVehicle(vehicle)));
+        } catch (RuntimeException e) {
+            synchronized (swap) {
+                changes = null;
+            }
+            throw e;
+        }
+
+        int replayed;
+        synchronized (swap) {
+            replayed = changes.size();
+            changes.forEach(change -> change.applyTo(fresh));
+            changes = null;
+            counts = fresh;
+        }
+        ready = true;
+        // Conditional responses cached by clients before the counts loaded must not be kept forever
+        for (VehicleType type : VehicleType.values()) {
+            versions.bumpAfterCommit(CatalogVersionService.catalogOf(type));
+        }
+        log.info("Facet counts loaded ({} changes replayed)", replayed);
+    }
+
+    private static Map<VehicleType, FacetCounts> emptyCounts() {
+        return new EnumMap<>(Map.of(
+                VehicleType.CAR, new FacetCounts(List.of(
+                        "brand", "model", "bodyType", "fuelType", "transmission", "conditionType", "location")),
+                VehicleType.MOTORCYCLE, new FacetCounts(List.of("brand", "type", "location")),
+                VehicleType.COMMERCIALVEHICLE, new FacetCounts(List.of(
+                        "brand", "model", "type", "bodyType", "fuelType", "transmission", "conditionType", "location"))
+        ));
+    }
+
+    // Changes that arrive while a rebuild loads are applied to the current counts and replayed on the fresh
+    // ones before the swap, since the batch that loaded a changed row may have read it before the change
+    @Order(ListingChangedEvent.READ_MODELS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        Change change = new Change(event.getVehicleType(), event.getListingId(),
+                event.isDeleted() ? null : CatalogEntry.from(event.getListing()));
+        synchronized (swap) {
+            change.applyTo(counts);
+            if (changes != null) changes.add(change);
+        }
+    }
+
+    // A change as read from its event, so replaying it later does not touch the entity again
+    private record Change(VehicleType type, Long id, CatalogEntry entry) {
+        void applyTo(Map<VehicleType, FacetCounts> counts) {
+            if (entry == null) {
+                counts.get(type).remove(id);
+            } else {
+                counts.get(type).put(entry);
+            }
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Value counts of every facet of a vehicle type, for one status or for all statuses when null.
+     */
+    public Map<String, Map<String, Integer>> counts(VehicleType type, String status) {
+        return counts.get(type).forStatus(status == null || status.isBlank() ? FacetCounts.ALL_STATUSES : status);
+    }
+
+    /**
+     * Total for a listing query restricted to one status (any when null) and a filter map, or null when
+     * the counters cannot tell: a filter other than the status narrows it, or the counts are not loaded.
+     * Lets the count-free listings report a total without running COUNT.
+     */
+    public Long total(VehicleType type, String status, Map<String, String> filters) {
+        if (!ready || catalogIndex.isFiltered(type, filters)) return null;
+        return (long) counts.get(type).total(status == null || status.isBlank() ? FacetCounts.ALL_STATUSES : status);
+    }
+
+    /**
+     * Values of one facet with their listing count across all statuses, as {name, count} rows in the
+     * shape of the findDistinctMakesWithCount queries.
+     */
+    public List<Map<String, Object>> namesWithCount(VehicleType type, String facet) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        counts(type, null).getOrDefault(facet, Collections.emptyMap())
+                .forEach((name, count) -> rows.add(Map.of("name", name, "count", (long) count)));
+        return rows;
+    }
+
+    /**
+     * Body of the /filter-options endpoints: the sorted distinct values of each facet under its plural
+     * name ("brands", "types", ...), as the dropdowns have always read them, plus their counts. Until the
+     * counts are loaded they come from the database, as /makes does.
+     */
+    public Map<String, Object> filterOptions(VehicleType type, String status) {
+        Map<String, Map<String, Integer>> byFacet = ready ? counts(type, status) : countInDatabase(type, status);
+        Map<String, Object> options = new LinkedHashMap<>();
+        byFacet.forEach((facet, values) -> options.put(facet + "s", new ArrayList<>(values.keySet())));
+        options.put("counts", byFacet);
+        return options;
+    }
+
+    // One GROUP BY per facet, values merged case-insensitively like the loaded counts
+    private Map<String, Map<String, Integer>> countInDatabase(VehicleType type, String status) {
+        Class<?> entity = switch (type) {
+            case CAR -> Car.class;
+            case MOTORCYCLE -> Motorcycle.class;
+            default -> CommercialVehicle.class;
+        };
+        Map<String, Map<String, Integer>> byFacet = new LinkedHashMap<>();
+        for (String facet : counts.get(type).facets()) {
+            byFacet.put(facet, countInDatabase(entity, facet, status));
+        }
+        return byFacet;
+    }
+
+    private <T> Map<String, Integer> countInDatabase(Class<T> entity, String facet, String status) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object[]> query = cb.createQuery(Object[].class);
+        Root<T> root = query.from(entity);
+        Path<Object> value = root.get(facet);
+        List<Predicate> where = new ArrayList<>(List.of(cb.isNotNull(value)));
+        if (status != null && !status.isBlank()) {
+            where.add(cb.equal(cb.upper(root.get("status")), status.toUpperCase()));
+        }
+        query.multiselect(value, cb.count(root)).where(where.toArray(new Predicate[0])).groupBy(value);
+
+        Map<String, Integer> counts = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Object[] row : entityManager.createQuery(query).getResultList()) {
+            counts.merge(String.valueOf(row[0]), ((Number) row[1]).intValue(), Integer::sum);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,103 @@
+package io.reflectoring.carshippingbackend.services;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Listing counts per facet value and status for one vehicle type, e.g. status APPROVED, facet brand,
+ * value Toyota: 42. Each listing's last counted values are remembered, so an update only moves that
+ * listing from its old values to its new ones.
+ *
+ * Reads are served from an immutable snapshot that is rebuilt after writes, at most once per read.
+ */
+class FacetCounts {
+
+    static final String ALL_STATUSES = "ALL";
+
+    private final List<String> facets;
+    private final Map<Long, Map<String, String>> counted = new HashMap<>();
+    // status -> facet -> value -> count
+    private final Map<String, Map<String, Map<String, Integer>>> counts = new HashMap<>();
+    // status -> listings, read without the lock
+    private final Map<String, Integer> totals = new ConcurrentHashMap<>();
+    private volatile Map<String, Map<String, Map<String, Integer>>> snapshot = Collections.emptyMap();
+    private volatile boolean dirty;
+
+    FacetCounts(List<String> facets) {
+        this.facets = facets;
+    }
+
+    List<String> facets() {
+        return facets;
+    }
+
+    synchronized void put(CatalogEntry entry) {
+        remove(entry.getId());
+        Map<String, String> values = new HashMap<>();
+        for (String facet : facets) {
+            String value = entry.facet(facet);
+            if (value != null) values.put(facet, value);
+        }
+        String status = entry.facet("status");
+        values.put("status", status == null ? "" : status.toUpperCase());
+        counted.put(entry.getId(), values);
+        add(values, 1);
+    }
+
+    synchronized void remove(Long id) {
+        Map<String, String> values = counted.remove(id);
+        if (values != null) add(values, -1);
+    }
+
+    /**
+     * Value counts of every facet for one status (or {@link #ALL_STATUSES}), values sorted by name.
+     */
+    Map<String, Map<String, Integer>> forStatus(String status) {
+        Map<String, Map<String, Map<String, Integer>>> current = snapshot;
+        if (dirty) {
+            synchronized (this) {
+                if (dirty) {
+                    snapshot = current = copy();
+                    dirty = false;
+                }
+            }
+        }
+        return current.getOrDefault(status.toUpperCase(), Collections.emptyMap());
+    }
+
+    /**
+     * Number of listings with one status (or {@link #ALL_STATUSES}).
+     */
+    int total(String status) {
+        return totals.getOrDefault(status.toUpperCase(), 0);
+    }
+
+    private void add(Map<String, String> values, int delta) {
+        for (String status : List.of(values.get("status"), ALL_STATUSES)) {
+            totals.merge(status, delta, Integer::sum);
+            Map<String, Map<String, Integer>> byFacet = counts.computeIfAbsent(status, s -> new HashMap<>());
+            values.forEach((facet, value) -> {
+                if (facet.equals("status")) return;
+                Map<String, Integer> byValue = byFacet.computeIfAbsent(facet, f -> new HashMap<>());
+                if (byValue.merge(value, delta, Integer::sum) <= 0) byValue.remove(value);
+            });
+        }
+        dirty = true;
+    }
+
+    private Map<String, Map<String, Map<String, Integer>>> copy() {
+        Map<String, Map<String, Map<String, Integer>>> result = new HashMap<>();
+        counts.forEach((status, byFacet) -> {
+            Map<String, Map<String, Integer>> facetCopy = new LinkedHashMap<>();
+            for (String facet : facets) {
+                // Case-insensitive like the MySQL collation, so "Toyota" and "toyota" are one value
+                Map<String, Integer> sorted = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+                byFacet.getOrDefault(facet, Collections.emptyMap()).forEach((value, count) ->
+                        sorted.merge(value, count, Integer::sum));
+                facetCopy.put(facet, Collections.unmodifiableMap(sorted));
+            }
+            result.put(status, Collections.unmodifiableMap(facetCopy));
+        });
+        return result;
+    }
+}
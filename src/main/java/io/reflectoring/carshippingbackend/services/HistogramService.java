@@ -0,0 +1,124 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.Histogram;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Price, year and mileage histograms of the APPROVED listings of a vehicle type matching a filter map,
+ * for the range sliders.
+ *
+ * The values come from the sorted numeric columns of the {@link CatalogIndex}, already in order, so
+ * bucketing is a single pass. Results are kept per catalog version: any committed change to the vehicle
+ * type makes the next request compute afresh.
+ */
+@Service
+@RequiredArgsConstructor
+public class HistogramService {
+
+    // Field -> whether its values are whole numbers (bucket widths are rounded up to those)
+    public static final Map<String, Boolean> FIELDS = Map.of("price", false, "year", true, "mileage", true);
+
+    public static final int MAX_BUCKETS = 100;
+    private static final int MAX_CACHED = 500;
+
+    private record Cached(long version, Histogram histogram) {}
+
+    private final CatalogIndexService catalogIndex;
+    private final CatalogVersionService versions;
+
+    private final Map<String, Cached> cache = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+            return size() > MAX_CACHED;
+        }
+    };
+
+    /**
+     * Histogram of one field in {@code buckets} equal buckets between its min and max, or, when
+     * {@code interval} is given, in buckets of that width aligned to its multiples. Empty while the
+     * catalog index is loading.
+     *
+     * @throws IllegalArgumentException for an unknown field or a bucket count out of range
+     */
+    public Optional<Histogram> histogram(VehicleType type, String field, Map<String, String> filters,
+                                         int buckets, Double interval) {
+        if (!FIELDS.containsKey(field)) {
+            throw new IllegalArgumentException("field must be one of " + new TreeSet<>(FIELDS.keySet()));
+        }
+        if (buckets < 1 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("buckets must be between 1 and " + MAX_BUCKETS);
+        }
+        if (interval != null && !(interval > 0)) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+
+        Map<String, String> approved = new HashMap<>(filters);
+        approved.put("status", "APPROVED");
+        String key = type + " " + field + " " + buckets + " " + interval + " " + SearchResultCache.canonical(approved);
+        // Read before computing: a change committed meanwhile moves the version past this entry
+        long version = versions.current(CatalogVersionService.catalogOf(type));
+        synchronized (cache) {
+            Cached cached = cache.get(key);
+            if (cached != null && cached.version() == version) return Optional.of(cached.histogram());
+        }
+
+        Optional<Histogram> histogram = catalogIndex.values(type, approved, field)
+                .map(values -> bucket(field, values, buckets, interval));
+        histogram.ifPresent(result -> {
+            synchronized (cache) {
+                cache.put(key, new Cached(version, result));
+            }
+        });
+        return histogram;
+    }
+
+    static Histogram bucket(String field, CatalogIndex.NumericValues values, int buckets, Double interval) {
+        double[] sorted = values.sorted();
+        if (sorted.length == 0) {
+            return new Histogram(field, null, null, 0, values.missing(), interval == null ? 0 : interval,
+                    Collections.emptyList());
+        }
+        double min = sorted[0];
+        double max = sorted[sorted.length - 1];
+        boolean whole = FIELDS.get(field);
+
+        double start;
+        double width;
+        int count;
+        if (interval != null) {
+            start = Math.floor(min / interval) * interval;
+            width = interval;
+            double span = Math.floor((max - start) / width) + 1;
+            if (span > MAX_BUCKETS) {
+                throw new IllegalArgumentException("interval " + interval + " gives more than " + MAX_BUCKETS + " buckets");
+            }
+            count = (int) span;
+        } else if (whole) {
+            // Whole-number widths, so a bucket never splits a year: 2015-2017, 2018-2020, ...
+            start = min;
+            width = Math.max(1, Math.ceil((max - min + 1) / buckets));
+            count = (int) Math.ceil((max - min + 1) / width);
+        } else {
+            start = min;
+            width = max > min ? (max - min) / buckets : 1;
+            count = max > min ? buckets : 1;
+        }
+
+        long[] counts = new long[count];
+        for (double value : sorted) {
+            counts[Math.min(count - 1, (int) ((value - start) / width))]++;
+        }
+        List<Histogram.Bucket> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double from = start + i * width;
+            // The last bucket of an equal split ends exactly at max, free of rounding drift
+            double to = interval == null && !whole && max > min && i == count - 1 ? max : from + width;
+            result.add(new Histogram.Bucket(from, to, counts[i]));
+        }
+        return new Histogram(field, min, max, sorted.length, values.missing(), width, result);
+    }
+}
@@ -23,6 +23,7 @@ import java.util.stream.Collectors;
 public class ImageRotationService {
     private final ImageRepository imageRepository;
     private final RotationConfigRepository configRepository;
+    private final CatalogVersionService versions;
 
     private static final int DEFAULT_ROTATION_INTERVAL_HOURS = 48;
 
@@ -138,6 +139,7 @@ public class ImageRotationService {
         // Update active status
         updateActiveStatus(String.valueOf(allImages.get(currentIndex).getId()));
 
+        versions.bumpAfterCommit(CatalogVersionService.IMAGES);
         log.info("Rotated to image index: {}", currentIndex);
     }
 
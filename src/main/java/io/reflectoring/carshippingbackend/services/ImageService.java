@@ -23,6 +23,8 @@ public class ImageService {
 
     private final ImageRepository imageRepository;
     private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
+    private final CatalogVersionService versions;
 
     @Transactional
     public Image uploadImage(MultipartFile file) throws IOException {
@@ -33,8 +35,8 @@ public class ImageService {
                 file.getOriginalFilename().replaceAll("\\s+", "_");
 
         // Upload to Cloudinary
-        Map uploadResult = cloudinary.uploader().upload(
-                file.getBytes(),
+        Map uploadResult = imageUploads.upload(
+                file,
                 ObjectUtils.asMap(
                         "public_id", publicId,
                         "resource_type", "image"
@@ -57,6 +59,7 @@ public class ImageService {
             image.setActive(true);
         }
 
+        versions.bumpAfterCommit(CatalogVersionService.IMAGES);
         return imageRepository.save(image);
     }
 
@@ -87,6 +90,7 @@ public class ImageService {
         }
 
         imageRepository.delete(image);
+        versions.bumpAfterCommit(CatalogVersionService.IMAGES);
     }
 
     @Transactional
@@ -113,6 +117,7 @@ public class ImageService {
 
         next.setActive(true);
         imageRepository.saveAll(images);
+        versions.bumpAfterCommit(CatalogVersionService.IMAGES);
 
         return next;
     }
@@ -0,0 +1,255 @@
+package io.reflectoring.carshippingbackend.services;
+
+import com.cloudinary.Cloudinary;
+import com.cloudinary.utils.ObjectUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Uploads a listing's or order's images to Cloudinary concurrently instead of one after another, so a
+ * 20-photo listing takes about as long as its slowest few uploads rather than the sum of all of them.
+ *
+ * Uploads run on a shared pool of max-concurrent threads (the cap across all requests); a single call
+ * keeps at most per-request uploads in flight so one big listing cannot take the whole pool. URLs come
+ * back in the order of the files. If any upload fails, the ones not yet started are cancelled, the ones
+ * already stored are deleted again, and the call fails, so a listing never ends up with half its images.
+ *
+ * Files are never read into memory whole: each one is streamed from its multipart temp file to
+ * Cloudinary's chunked upload API, chunk-size-mb at a time (or in one chunk when the file is smaller).
+ * Every upload first reserves what the uploader allocates for it, its chunk buffer plus the copy it makes
+ * of the last chunk, from a global in-flight-budget-mb; when the budget is used up, further uploads wait
+ * up to budget-wait-ms for room and are then refused, so a burst of large uploads cannot grow the heap
+ * past the budget.
+ *
+ * Each upload is timed in cloudinary.upload (tag outcome=success|failure); the budget in use is the
+ * cloudinary.upload.buffered.bytes gauge.
+ */
+@Slf4j
+@Service
+public class ImageUploadService {
+
+    private final Cloudinary cloudinary;
+    private final int perRequest;
+    private final int chunkSize;
+    private final int budgetKb;
+    private final long budgetWaitMs;
+    // Permits are KiB of upload buffer
+    private final Semaphore budget;
+    private final ThreadPoolExecutor executor;
+    private final Timer succeeded;
+    private final Timer failed;
+
+    public ImageUploadService(Cloudinary cloudinary, MeterRegistry meterRegistry,
+                              @Value("${app.image-upload.max-concurrent:16}") int maxConcurrent,
+                              @Value("${app.image-upload.per-request:4}") int perRequest,
+                              @Value("${app.image-upload.chunk-size-mb:8}") int chunkSizeMb,
+                              @Value("${app.image-upload.in-flight-budget-mb:128}") int budgetMb,
+                              @Value("${app.image-upload.budget-wait-ms:30000}") long budgetWaitMs) {
+        this.cloudinary = cloudinary;
+        this.perRequest = Math.max(1, perRequest);
+        // Cloudinary wants chunks of at least 5 MB (except the last)
+        this.chunkSize = Math.max(5, chunkSizeMb) * 1024 * 1024;
+        this.budgetKb = Math.max(budgetMb * 1024, 2 * chunkSize / 1024);
+        this.budgetWaitMs = budgetWaitMs;
+        this.budget = new Semaphore(budgetKb, true);
+        // Queued work is bounded by the per-request cap times the number of request threads
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("image-upload-"));
+        this.executor.allowCoreThreadTimeOut(true);
+        this.succeeded = Timer.builder("cloudinary.upload").tag("outcome", "success").register(meterRegistry);
+        this.failed = Timer.builder("cloudinary.upload").tag("outcome", "failure").register(meterRegistry);
+        Gauge.builder("cloudinary.upload.buffered.bytes", budget,
+                permits -> (budgetKb - permits.availablePermits()) * 1024.0).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Options that store the file as {@code <prefix><uuid>-<original name>} (e.g. prefix "uploads/").
+     */
+    public static Function<MultipartFile, Map> publicIdUnder(String prefix) {
+        return file -> ObjectUtils.asMap(
+                "public_id", prefix + UUID.randomUUID() + "-" +
+                        Objects.requireNonNull(file.getOriginalFilename()).replaceAll("\\s+", "_"),
+                "resource_type", "auto"
+        );
+    }
+
+    /**
+     * Options that let Cloudinary name the file inside {@code folder}.
+     */
+    public static Function<MultipartFile, Map> inFolder(String folder) {
+        return file -> ObjectUtils.asMap(
+                "folder", folder,
+                "resource_type", "auto"
+        );
+    }
+
+    /**
+     * Uploads the files and returns their secure URLs in the same order.
+     *
+     * @throws IOException when any upload fails (after cleaning up the others)
+     */
+    public List<String> uploadAll(List<MultipartFile> files, Function<MultipartFile, Map> options) throws IOException {
+        if (files == null || files.isEmpty()) return new ArrayList<>();
+
+        Semaphore inFlight = new Semaphore(perRequest);
+        AtomicBoolean anyFailed = new AtomicBoolean();
+        List<Upload> uploads = new ArrayList<>(files.size());
+        try {
+            for (MultipartFile file : files) {
+                inFlight.acquire();
+                // No point starting more once one has failed; the loop below reports that failure
+                if (anyFailed.get()) {
+                    inFlight.release();
+                    break;
+                }
+                AtomicBoolean started = new AtomicBoolean();
+                try {
+                    uploads.add(new Upload(started, executor.submit(() -> {
+                        try {
+                            // Discarded before it got a thread
+                            if (!started.compareAndSet(false, true)) return null;
+                            return upload(file, options.apply(file));
+                        } catch (Exception e) {
+                            anyFailed.set(true);
+                            throw e;
+                        } finally {
+                            inFlight.release();
+                        }
+                    })));
+                } catch (RejectedExecutionException e) {
+                    inFlight.release();
+                    throw e;
+                }
+            }
+
+            List<String> urls = new ArrayList<>(files.size());
+            for (Upload upload : uploads) {
+                urls.add((String) upload.result().get().get("secure_url"));
+            }
+            return urls;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(uploads);
+            throw new IOException("Image upload was interrupted", e);
+        } catch (ExecutionException e) {
+            discard(uploads);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            throw new IOException("Image upload failed: " + cause.getMessage(), cause);
+        } catch (RuntimeException e) {
+            discard(uploads);
+            throw e;
+        }
+    }
+
+    /**
+     * Streams one file to Cloudinary and returns the upload result (secure_url, public_id, ...).
+     *
+     * @throws IOException when the upload fails or no buffer budget frees up in time
+     */
+    public Map upload(MultipartFile file, Map options) throws IOException {
+        // uploadLarge allocates a buffer of this size and, for the last chunk, a copy of what it holds
+        int bufferSize = (int) Math.max(1, Math.min(file.getSize(), chunkSize));
+        int permits = (int) ((2L * bufferSize + 1023) / 1024);
+        try {
+            if (!budget.tryAcquire(permits, budgetWaitMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Too many uploads in progress, please try again shortly");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Upload was interrupted", e);
+        }
+
+        long start = System.nanoTime();
+        try (InputStream in = file.getInputStream()) {
+            Map result = cloudinary.uploader().uploadLarge(in, options, bufferSize);
+            long nanos = System.nanoTime() - start;
+            succeeded.record(nanos, TimeUnit.NANOSECONDS);
+            log.debug("Uploaded {} ({} bytes) in {} ms", file.getOriginalFilename(), file.getSize(),
+                    TimeUnit.NANOSECONDS.toMillis(nanos));
+            return result;
+        } catch (IOException | RuntimeException e) {
+            failed.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        } finally {
+            budget.release(permits);
+        }
+    }
+
+    // started is set by whichever comes first, the upload's thread or discard
+    private record Upload(AtomicBoolean started, Future<Map> result) {}
+
+    /**
+     * Cancels the uploads that have not started and deletes what the others stored. A running upload
+     * cannot be interrupted (the HTTP call ignores it), so the deletion waits for it to finish; that
+     * happens on the upload pool, not on the failing request.
+     */
+    private void discard(List<Upload> uploads) {
+        for (Upload upload : uploads) {
+            if (upload.started().compareAndSet(false, true)) {
+                upload.result().cancel(false);
+                continue;
+            }
+            try {
+                executor.execute(() -> destroyWhenDone(upload.result()));
+            } catch (RejectedExecutionException e) {
+                log.warn("Could not schedule the deletion of an orphaned upload: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void destroyWhenDone(Future<Map> upload) {
+        Map stored;
+        try {
+            stored = upload.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException | CancellationException e) {
+            // Failed: nothing was stored
+            return;
+        }
+        if (stored == null || stored.get("public_id") == null) return;
+        String publicId = stored.get("public_id").toString();
+        // Uploads use resource_type auto, so the stored type (image, video, raw) is only in the result
+        Object resourceType = stored.get("resource_type");
+        try {
+            cloudinary.uploader().destroy(publicId,
+                    ObjectUtils.asMap("resource_type", resourceType != null ? resourceType.toString() : "image"));
+        } catch (Exception e) {
+            log.warn("Could not delete orphaned upload {}: {}", publicId, e.getMessage());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
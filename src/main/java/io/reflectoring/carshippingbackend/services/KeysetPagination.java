@@ -0,0 +1,126 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.CursorPage;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset ("seek") pagination on top of the existing Specifications.
+ *
+ * Instead of OFFSET, each page continues after the sort key and id of the last row of the previous page,
+ * which the client gets back as an opaque cursor. A page is fetched with LIMIT size + 1 and no COUNT query,
+ * so page 500 costs the same as page 0. The id is always added as tie-breaker so rows sharing a sort value
+ * are neither skipped nor repeated.
+ */
+public class KeysetPagination {
+
+    record Cursor(String property, Sort.Direction direction, Long id, String value) {}
+
+    // A malformed or foreign cursor; controllers answer it with 400
+    static class InvalidCursorException extends IllegalArgumentException {
+        InvalidCursorException(String message) {
+            super(message);
+        }
+    }
+
+    public static <T> CursorPage<T> fetch(JpaSpecificationExecutor<T> repo, Specification<T> filters,
+                                          Sort sort, String cursor, int size) {
+        Sort.Order order = sort.isSorted() ? sort.iterator().next() : Sort.Order.desc("id");
+        Sort keyset = order.getProperty().equals("id")
+                ? Sort.by(order)
+                : Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+
+        Specification<T> spec = filters;
+        if (cursor != null && !cursor.isBlank()) {
+            spec = spec.and(after(decode(cursor, order)));
+        }
+
+        List<T> rows;
+        try {
+            rows = repo.findBy(spec, query -> query.sortBy(keyset).limit(size + 1).all());
+        } catch (InvalidDataAccessApiUsageException e) {
+            // The cursor value is converted inside the Specification, where the repository wraps the failure
+            if (e.getCause() instanceof InvalidCursorException invalid) throw invalid;
+            throw e;
+        }
+        boolean hasNext = rows.size() > size;
+        List<T> content = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? encode(order, content.get(content.size() - 1)) : null;
+        return new CursorPage<>(content, content.size(), hasNext, next);
+    }
+
+    // Rows strictly after the cursor in (sort value, id) order. MySQL puts NULLs first ascending, last descending.
+    @SuppressWarnings("unchecked")
+    private static <T> Specification<T> after(Cursor cursor) {
+        return (root, query, cb) -> {
+            boolean asc = cursor.direction().isAscending();
+            Path<Long> id = root.get("id");
+            Predicate idAfter = asc ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+            if (cursor.property().equals("id")) {
+                return idAfter;
+            }
+
+            Path<Comparable<Object>> key = root.get(cursor.property());
+            if (cursor.value() == null) {
+                Predicate sameNullKey = cb.and(cb.isNull(key), idAfter);
+                return asc ? cb.or(sameNullKey, cb.isNotNull(key)) : sameNullKey;
+            }
+
+            Comparable<Object> value = (Comparable<Object>) convert(cursor.value(), key.getJavaType());
+            Predicate keyAfter = asc ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+            Predicate sameKey = cb.and(cb.equal(key, value), idAfter);
+            return asc ? cb.or(keyAfter, sameKey) : cb.or(keyAfter, sameKey, cb.isNull(key));
+        };
+    }
+
+    private static String encode(Sort.Order order, Object lastRow) {
+        BeanWrapperImpl row = new BeanWrapperImpl(lastRow);
+        Object id = row.getPropertyValue("id");
+        Object value = row.getPropertyValue(order.getProperty());
+        String raw = order.getProperty() + "," + order.getDirection() + "," + id + ","
+                + (value == null ? "" : "=" + value);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor, Sort.Order order) {
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(",", 4);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+        if (parts.length != 4
+                || !parts[0].equals(order.getProperty())
+                || !parts[1].equals(order.getDirection().name())) {
+            throw new InvalidCursorException("Cursor does not match the requested sort");
+        }
+        try {
+            String value = parts[3].isEmpty() ? null : parts[3].substring(1);
+            return new Cursor(parts[0], order.getDirection(), Long.parseLong(parts[2]), value);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
+    private static Object convert(String value, Class<?> type) {
+        try {
+            if (type == Long.class) return Long.valueOf(value);
+            if (type == Integer.class) return Integer.valueOf(value);
+            if (type == Double.class) return Double.valueOf(value);
+            if (type == LocalDateTime.class) return LocalDateTime.parse(value);
+            return value;
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.reflectoring.carshippingbackend.services;
+
+import java.util.*;
+
+/**
+ * Trigram inverted index behind the free-text {@code search} parameter of {@link CatalogIndex}.
+ *
+ * Every searchable field is split into words and each word into overlapping three-letter grams; a gram
+ * keeps a {@link BitSet} of the entry slots containing it. A keyword is answered by AND-ing the bitsets
+ * of its own grams and then confirming the survivors with a plain substring check, so the result is
+ * exactly what {@code LIKE '%keyword%'} over the same fields returns, without scanning every row.
+ *
+ * Not thread-safe on its own: {@link CatalogIndex} calls it under its read/write lock.
+ */
+class KeywordIndex {
+
+    private static final int GRAM = 3;
+
+    record Field(String name, int weight) {}
+
+    private final List<Field> fields = new ArrayList<>();
+    private final Map<String, BitSet> grams = new HashMap<>();
+    // Lower-cased field values per slot, in the order of fields
+    private final Map<Integer, String[]> texts = new HashMap<>();
+
+    void field(String name, int weight) {
+        fields.add(new Field(name, weight));
+    }
+
+    boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    void add(int slot, CatalogEntry entry) {
+        String[] values = new String[fields.size()];
+        for (int i = 0; i < values.length; i++) {
+            String value = entry.text(fields.get(i).name());
+            values[i] = value == null ? null : value.toLowerCase();
+        }
+        texts.put(slot, values);
+        gramsOf(values).forEach(gram -> grams.computeIfAbsent(gram, g -> new BitSet()).set(slot));
+    }
+
+    void remove(int slot) {
+        String[] values = texts.remove(slot);
+        if (values == null) return;
+        for (String gram : gramsOf(values)) {
+            BitSet bits = grams.get(gram);
+            bits.clear(slot);
+            if (bits.isEmpty()) grams.remove(gram);
+        }
+    }
+
+    void clear() {
+        grams.clear();
+        texts.clear();
+    }
+
+    /**
+     * Slots of {@code within} having at least one field that contains {@code keyword} (lower-cased).
+     */
+    BitSet matching(String keyword, BitSet within) {
+        BitSet result = (BitSet) within.clone();
+        for (String gram : gramsOf(new String[]{keyword})) {
+            BitSet bits = grams.get(gram);
+            if (bits == null) return new BitSet();
+            result.and(bits);
+        }
+        // Grams only narrow the candidates (and keywords under three letters have none), so confirm each one
+        for (int slot = result.nextSetBit(0); slot >= 0; slot = result.nextSetBit(slot + 1)) {
+            if (score(slot, keyword) == 0) result.clear(slot);
+        }
+        return result;
+    }
+
+    /**
+     * Match quality of one slot: per field, 3 for an exact value, 2 when the keyword starts a word,
+     * 1 for any other substring, times the weight of the field. 0 means no match.
+     */
+    int score(int slot, String keyword) {
+        String[] values = texts.get(slot);
+        if (values == null) return 0;
+        int score = 0;
+        for (int i = 0; i < values.length; i++) {
+            String value = values[i];
+            if (value == null) continue;
+            int at = value.indexOf(keyword);
+            if (at < 0) continue;
+            int quality;
+            if (value.equals(keyword)) {
+                quality = 3;
+            } else if (at == 0 || !Character.isLetterOrDigit(value.charAt(at - 1))) {
+                quality = 2;
+            } else {
+                quality = 1;
+            }
+            score += quality * fields.get(i).weight();
+        }
+        return score;
+    }
+
+    // Grams never span words, so a keyword's grams are always a subset of those of any text containing it
+    private static Set<String> gramsOf(String[] values) {
+        Set<String> result = new HashSet<>();
+        for (String value : values) {
+            if (value == null) continue;
+            int start = -1;
+            for (int i = 0; i <= value.length(); i++) {
+                boolean inWord = i < value.length() && Character.isLetterOrDigit(value.charAt(i));
+                if (inWord && start < 0) {
+                    start = i;
+                } else if (!inWord && start >= 0) {
+                    for (int g = start; g + GRAM <= i; g++) result.add(value.substring(g, g + GRAM));
+                    start = -1;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * The newest APPROVED listings of one vehicle type, newest first, capped at a fixed capacity.
+ *
+ * The list is an immutable snapshot behind an {@link AtomicReference}: readers just take the current
+ * snapshot, writers build the next one and swap it in with compare-and-set, so neither ever blocks.
+ * Writes only happen on approvals, removals and refills, and the list is small, so copying it is cheap.
+ */
+class LatestArrivals {
+
+    // The sequence orders arrivals across vehicle types for the merged view
+    record Arrival(long sequence, ListingCardDTO card) {}
+
+    private final int capacity;
+    private final AtomicReference<List<Arrival>> newestFirst = new AtomicReference<>(List.of());
+
+    LatestArrivals(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Puts a listing at the front, moving it there when it is already held.
+     */
+    void add(long sequence, ListingCardDTO card) {
+        update(current -> {
+            List<Arrival> next = new ArrayList<>(current.size() + 1);
+            next.add(new Arrival(sequence, card));
+            for (Arrival arrival : current) {
+                if (!arrival.card().getId().equals(card.getId())) next.add(arrival);
+            }
+            if (next.size() > capacity) next.remove(next.size() - 1);
+            return List.copyOf(next);
+        });
+    }
+
+    /**
+     * Replaces the card of a held listing in place (an edit of an approved listing does not make it a
+     * new arrival).
+     */
+    void refresh(ListingCardDTO card) {
+        update(current -> current.stream()
+                .map(arrival -> arrival.card().getId().equals(card.getId())
+                        ? new Arrival(arrival.sequence(), card) : arrival)
+                .toList());
+    }
+
+    boolean holds(Long id) {
+        return snapshot().stream().anyMatch(arrival -> arrival.card().getId().equals(id));
+    }
+
+    /**
+     * @return whether the listing was held
+     */
+    boolean remove(Long id) {
+        boolean[] held = new boolean[1];
+        update(current -> {
+            List<Arrival> next = current.stream()
+                    .filter(arrival -> !arrival.card().getId().equals(id))
+                    .toList();
+            held[0] = next.size() < current.size();
+            return next;
+        });
+        return held[0];
+    }
+
+    boolean isFull() {
+        return snapshot().size() >= capacity;
+    }
+
+    /**
+     * Tops the list up to capacity from the newest listings in the database, newest first. Those not held
+     * yet go after the held ones, which are newer (anything approved since being read is held already).
+     */
+    void refill(List<ListingCardDTO> newest) {
+        update(current -> {
+            List<Arrival> next = new ArrayList<>(current);
+            long sequence = current.isEmpty() ? 0 : current.get(current.size() - 1).sequence();
+            for (ListingCardDTO card : newest) {
+                if (next.size() >= capacity) break;
+                if (next.stream().noneMatch(arrival -> arrival.card().getId().equals(card.getId()))) {
+                    next.add(new Arrival(--sequence, card));
+                }
+            }
+            return List.copyOf(next);
+        });
+    }
+
+    void reset(List<Arrival> newest) {
+        newestFirst.set(List.copyOf(newest.subList(0, Math.min(capacity, newest.size()))));
+    }
+
+    List<Arrival> snapshot() {
+        return newestFirst.get();
+    }
+
+    private void update(UnaryOperator<List<Arrival>> change) {
+        List<Arrival> current;
+        List<Arrival> next;
+        do {
+            current = newestFirst.get();
+            next = change.apply(current);
+        } while (!newestFirst.compareAndSet(current, next));
+    }
+}
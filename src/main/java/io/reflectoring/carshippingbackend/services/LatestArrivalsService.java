@@ -0,0 +1,149 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the newest APPROVED listings of every vehicle type in memory ({@link LatestArrivals}), so the
+ * homepage "latest arrivals" blocks, per type and merged across types, never query the database.
+ *
+ * The buffers are filled once when the application is ready; after that a listing enters when it is
+ * approved (or created already approved) and leaves when it is rejected, sold or deleted. A removal that
+ * leaves a buffer short is topped up from the database, so the blocks stay full while approved listings
+ * exist. Changes to one type are applied one at a time, so a top-up read just before a removal committed
+ * is always followed by that removal.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class LatestArrivalsService {
+
+    static final int CAPACITY = 24;
+
+    private final ListingCardService cards;
+
+    private final Map<VehicleType, LatestArrivals> latest = new EnumMap<>(Map.of(
+            VehicleType.CAR, new LatestArrivals(CAPACITY),
+            VehicleType.MOTORCYCLE, new LatestArrivals(CAPACITY),
+            VehicleType.COMMERCIALVEHICLE, new LatestArrivals(CAPACITY)
+    ));
+
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (VehicleType type : VehicleType.values()) {
+            List<ListingCardDTO> newest = newest(type);
+            List<LatestArrivals.Arrival> arrivals = new ArrayList<>();
+            // Approval times are not stored, so loaded listings rank by position: the newest of each type
+            // come first in the merged view, and all of them rank below anything approved since startup
+            for (int rank = 0; rank < newest.size(); rank++) {
+                arrivals.add(new LatestArrivals.Arrival(-rank, newest.get(rank)));
+            }
+            latest.get(type).reset(arrivals);
+        }
+        ready = true;
+    }
+
+    private List<ListingCardDTO> newest(VehicleType type) {
+        return switch (type) {
+            case CAR -> newest(Car.class, CarSpecification.byApprovedStatus(), Sort.by(Sort.Direction.DESC, "id"));
+            case MOTORCYCLE -> newest(Motorcycle.class, MotorcycleSpecification.byApprovedStatus(),
+                    Sort.by(Sort.Direction.DESC, "createdAt", "id"));
+            default -> newest(CommercialVehicle.class, CommercialVehicleSpecification.byApprovedStatus(),
+                    Sort.by(Sort.Direction.DESC, "id"));
+        };
+    }
+
+    private <T> List<ListingCardDTO> newest(Class<T> entity, Specification<T> approved, Sort newestFirst) {
+        return cards.find(entity, approved, PageRequest.of(0, CAPACITY, newestFirst)).getContent();
+    }
+
+    @Order(ListingChangedEvent.READ_MODELS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        LatestArrivals arrivals = latest.get(event.getVehicleType());
+        synchronized (arrivals) {
+            if (event.isDeleted() || !CatalogEntry.from(event.getListing()).isApproved()) {
+                if (arrivals.remove(event.getListingId()) && ready && !arrivals.isFull()) {
+                    arrivals.refill(newest(event.getVehicleType()));
+                }
+                return;
+            }
+            // An edit of a listing that was approved all along is not a new arrival: refresh its card if it
+            // is held, otherwise leave it where it ranks (below the newest CAPACITY)
+            boolean arrival = event.isNewlyApproved();
+            if (!arrival && !arrivals.holds(event.getListingId())) {
+                return;
+            }
+            // Built from the committed row, so the card has its first image without touching lazy collections
+            List<ListingCardDTO> card = cards.findByIds(entityOf(event.getVehicleType()),
+                    List.of(event.getListingId()));
+            if (card.isEmpty()) return;
+            if (arrival) {
+                arrivals.add(sequence.incrementAndGet(), card.get(0));
+            } else {
+                arrivals.refresh(card.get(0));
+            }
+        }
+    }
+
+    /**
+     * Ids of the newest approved listings of one type, newest first. Empty until loaded.
+     */
+    public Optional<List<Long>> latestIds(VehicleType type, int limit) {
+        return latest(type, limit).map(list -> list.stream().map(ListingCardDTO::getId).toList());
+    }
+
+    /**
+     * Cards of the newest approved listings of one type, newest first. Empty until loaded.
+     */
+    public Optional<List<ListingCardDTO>> latest(VehicleType type, int limit) {
+        if (!ready) return Optional.empty();
+        return Optional.of(latest.get(type).snapshot().stream()
+                .limit(limit)
+                .map(LatestArrivals.Arrival::card)
+                .toList());
+    }
+
+    /**
+     * Cards of the newest approved listings across all vehicle types, newest first. Empty until loaded.
+     */
+    public Optional<List<ListingCardDTO>> latest(int limit) {
+        if (!ready) return Optional.empty();
+        return Optional.of(latest.values().stream()
+                .flatMap(arrivals -> arrivals.snapshot().stream())
+                .sorted(Comparator.comparingLong(LatestArrivals.Arrival::sequence).reversed())
+                .limit(limit)
+                .map(LatestArrivals.Arrival::card)
+                .toList());
+    }
+
+    private static Class<?> entityOf(VehicleType type) {
+        switch (type) {
+            case CAR:
+                return Car.class;
+            case MOTORCYCLE:
+                return Motorcycle.class;
+            default:
+                return CommercialVehicle.class;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads search results as {@link ListingCardDTO}s instead of whole entities.
+ *
+ * The card columns are selected with a constructor expression, so MySQL only reads those columns and
+ * never the LONGTEXT ones; the first image of every card on the page comes from one extra IN (...) query.
+ * The full entity is still loaded by the GET /{id} endpoints.
+ */
+@Service
+public class ListingCardService {
+
+    // Entity property behind each card column; a null property selects NULL (only cars have a refNo)
+    private record Columns(VehicleType vehicleType, String refNo, String year, String price) {}
+
+    private static final Map<Class<?>, Columns> COLUMNS = Map.of(
+            Car.class, new Columns(VehicleType.CAR, "refNo", "yearValue", "priceKesValue"),
+            Motorcycle.class, new Columns(VehicleType.MOTORCYCLE, null, "year", "price"),
+            CommercialVehicle.class, new Columns(VehicleType.COMMERCIALVEHICLE, null, "yearValue", "priceKes")
+    );
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * One page of cards matching a Specification, with the same paging and COUNT semantics as findAll.
+     */
+    public <T> Page<ListingCardDTO> find(Class<T> type, Specification<T> spec, Pageable pageable) {
+        TypedQuery<ListingCardDTO> typed = query(type, spec, pageable);
+        if (pageable.isPaged()) {
+            typed.setFirstResult((int) pageable.getOffset());
+            typed.setMaxResults(pageable.getPageSize());
+        }
+        List<ListingCardDTO> content = withImages(type, typed.getResultList());
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(type, spec));
+    }
+
+    /**
+     * As {@link #find}, but without the COUNT: one extra row is fetched to tell whether a next page exists.
+     */
+    public <T> Slice<ListingCardDTO> findSlice(Class<T> type, Specification<T> spec, Pageable pageable) {
+        TypedQuery<ListingCardDTO> typed = query(type, spec, pageable);
+        typed.setFirstResult((int) pageable.getOffset());
+        typed.setMaxResults(pageable.getPageSize() + 1);
+        List<ListingCardDTO> rows = typed.getResultList();
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        List<ListingCardDTO> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+        return new SliceImpl<>(withImages(type, content), pageable, hasNext);
+    }
+
+    private <T> TypedQuery<ListingCardDTO> query(Class<T> type, Specification<T> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ListingCardDTO> query = cb.createQuery(ListingCardDTO.class);
+        Root<T> root = query.from(type);
+        select(type, query, root, cb);
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) query.where(where);
+        query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    /**
+     * The cards of the given listings, in the order of the ids (missing ids are skipped).
+     */
+    public <T> List<ListingCardDTO> findByIds(Class<T> type, List<Long> ids) {
+        if (ids.isEmpty()) return Collections.emptyList();
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ListingCardDTO> query = cb.createQuery(ListingCardDTO.class);
+        Root<T> root = query.from(type);
+        select(type, query, root, cb);
+        query.where(root.get("id").in(ids));
+
+        Map<Long, ListingCardDTO> byId = entityManager.createQuery(query).getResultList().stream()
+                .collect(Collectors.toMap(ListingCardDTO::getId, Function.identity()));
+        List<ListingCardDTO> cards = ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return withImages(type, cards);
+    }
+
+    private <T> void select(Class<T> type, CriteriaQuery<ListingCardDTO> query, Root<T> root, CriteriaBuilder cb) {
+        Columns columns = COLUMNS.get(type);
+        query.select(cb.construct(ListingCardDTO.class,
+                root.get("id"),
+                columns.refNo() == null ? cb.nullLiteral(String.class) : root.get(columns.refNo()),
+                root.get("brand"),
+                root.get("model"),
+                root.get(columns.year()),
+                root.get(columns.price()),
+                root.get("location")));
+    }
+
+    private <T> long count(Class<T> type, Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(type);
+        query.select(cb.count(root));
+        Predicate where = spec.toPredicate(root, query, cb);
+        if (where != null) query.where(where);
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    // First image URL of each card, in the same order the entity's imageUrls list would load them
+    private <T> List<ListingCardDTO> withImages(Class<T> type, List<ListingCardDTO> cards) {
+        if (cards.isEmpty()) return cards;
+        List<Long> ids = cards.stream().map(ListingCardDTO::getId).collect(Collectors.toList());
+        List<Object[]> rows = entityManager.createQuery(
+                        "SELECT l.id, i FROM " + type.getSimpleName() + " l JOIN l.imageUrls i WHERE l.id IN :ids",
+                        Object[].class)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Long, String> firstImage = new HashMap<>();
+        for (Object[] row : rows) {
+            firstImage.putIfAbsent((Long) row[0], (String) row[1]);
+        }
+        String vehicleType = COLUMNS.get(type).vehicleType().name();
+        cards.forEach(card -> {
+            card.setVehicleType(vehicleType);
+            card.setImageUrl(firstImage.get(card.getId()));
+        });
+        return cards;
+    }
+}
@@ -0,0 +1,55 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+
+/**
+ * Published by the listing services whenever a car, motorcycle or commercial
+ * vehicle is created, updated, approved, rejected, sold or deleted, together with the status the
+ * listing had before the change.
+ * In-memory read models listen for it instead of re-querying the database.
+ */
+@Getter
+@RequiredArgsConstructor
+public class ListingChangedEvent {
+
+    /**
+     * Listener order: the in-memory read models apply a change first, and only then are the caches and
+     * catalog versions derived from them invalidated. The other way round, a request in between would
+     * read the old models and store the result under the new version or cache generation.
+     */
+    public static final int READ_MODELS = 0;
+    public static final int DERIVED = Ordered.LOWEST_PRECEDENCE;
+
+    private final VehicleType vehicleType;
+    private final Long listingId;
+    private final Object listing; // null when the listing was deleted
+    private final String previousStatus; // status before this change; null for a new listing
+
+    public static ListingChangedEvent created(VehicleType vehicleType, Long listingId, Object listing) {
+        return new ListingChangedEvent(vehicleType, listingId, listing, null);
+    }
+
+    public static ListingChangedEvent saved(VehicleType vehicleType, Long listingId, Object listing,
+                                            String previousStatus) {
+        return new ListingChangedEvent(vehicleType, listingId, listing, previousStatus);
+    }
+
+    public static ListingChangedEvent deleted(VehicleType vehicleType, Long listingId) {
+        return new ListingChangedEvent(vehicleType, listingId, null, null);
+    }
+
+    public boolean isDeleted() {
+        return listing == null;
+    }
+
+    /**
+     * True unless the listing was already APPROVED before this change, i.e. for new listings and for
+     * approvals, but not for edits of a listing that was approved all along.
+     */
+    public boolean isNewlyApproved() {
+        return !"APPROVED".equalsIgnoreCase(previousStatus);
+    }
+}
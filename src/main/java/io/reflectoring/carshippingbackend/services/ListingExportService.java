@@ -0,0 +1,324 @@
+package io.reflectoring.carshippingbackend.services;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reflectoring.carshippingbackend.repository.CarRepository;
+import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
+import io.reflectoring.carshippingbackend.repository.ContainerRepository;
+import io.reflectoring.carshippingbackend.repository.MotorcycleRepository;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Container;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Admin export of the whole inventory as NDJSON or CSV.
+ *
+ * Rows come from a forward-only streamed query (the repositories' streamAllForExport), are written to
+ * the output stream as they arrive and are then detached, so memory stays flat however many rows there
+ * are. Only plain columns are exported: loading an image list would need a second query on the
+ * connection that is still streaming, which MySQL does not allow. Review tokens are left out.
+ */
+@Service
+@Slf4j
+public class ListingExportService {
+
+    public enum Kind {
+        CARS, MOTORCYCLES, COMMERCIAL_VEHICLES, CONTAINERS;
+
+        // "cars", "motorcycles", "commercial-vehicles", "containers"
+        public static Optional<Kind> parse(String value) {
+            for (Kind kind : values()) {
+                if (kind.name().replace('_', '-').equalsIgnoreCase(value)) return Optional.of(kind);
+            }
+            return Optional.empty();
+        }
+
+        public String fileName() {
+            return name().toLowerCase().replace('_', '-');
+        }
+    }
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public static Optional<Format> parse(String value) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(value)) return Optional.of(format);
+            }
+            return Optional.empty();
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return extension;
+        }
+    }
+
+    private record Column<T>(String name, Function<T, Object> value) {}
+
+    private static <T> Column<T> column(String name, Function<T, Object> value) {
+        return new Column<>(name, value);
+    }
+
+    private static final List<Column<Car>> CAR_COLUMNS = List.of(
+            column("id", Car::getId), column("refNo", Car::getRefNo), column("brand", Car::getBrand),
+            column("model", Car::getModel), column("yearOfManufacture", Car::getYearOfManufacture),
+            column("conditionType", Car::getConditionType), column("bodyType", Car::getBodyType),
+            column("color", Car::getColor), column("engineType", Car::getEngineType),
+            column("engineCapacityCc", Car::getEngineCapacityCc), column("fuelType", Car::getFuelType),
+            column("transmission", Car::getTransmission), column("seats", Car::getSeats),
+            column("doors", Car::getDoors), column("mileageKm", Car::getMileageKm),
+            column("priceKes", Car::getPriceKes), column("location", Car::getLocation),
+            column("ownerType", Car::getOwnerType), column("seller", Car::getSeller),
+            column("postedBy", Car::getPostedBy), column("postedRole", Car::getPostedRole),
+            column("status", Car::getStatus), column("refLink", Car::getRefLink),
+            column("description", Car::getDescription), column("features", Car::getFeatures),
+            column("customSpecs", Car::getCustomSpecs), column("buyerName", Car::getBuyerName),
+            column("buyerEmail", Car::getBuyerEmail), column("buyerPhoneNumber", Car::getBuyerPhoneNumber),
+            column("soldAt", Car::getSoldAt), column("reviewSubmitted", Car::getReviewSubmitted));
+
+    private static final List<Column<Motorcycle>> MOTORCYCLE_COLUMNS = List.of(
+            column("id", Motorcycle::getId), column("brand", Motorcycle::getBrand),
+            column("model", Motorcycle::getModel), column("type", Motorcycle::getType),
+            column("engineCapacity", Motorcycle::getEngineCapacity), column("year", Motorcycle::getYear),
+            column("mileageKm", Motorcycle::getMileageKm), column("price", Motorcycle::getPrice),
+            column("location", Motorcycle::getLocation), column("owner", Motorcycle::getOwner),
+            column("seller", Motorcycle::getSeller), column("status", Motorcycle::getStatus),
+            column("description", Motorcycle::getDescription), column("createdAt", Motorcycle::getCreatedAt),
+            column("updatedAt", Motorcycle::getUpdatedAt), column("buyerName", Motorcycle::getBuyerName),
+            column("buyerEmail", Motorcycle::getBuyerEmail),
+            column("buyerPhoneNumber", Motorcycle::getBuyerPhoneNumber), column("soldAt", Motorcycle::getSoldAt),
+            column("reviewSubmitted", Motorcycle::getReviewSubmitted));
+
+    private static final List<Column<CommercialVehicle>> COMMERCIAL_VEHICLE_COLUMNS = List.of(
+            column("id", CommercialVehicle::getId), column("brand", CommercialVehicle::getBrand),
+            column("model", CommercialVehicle::getModel), column("type", CommercialVehicle::getType),
+            column("yearOfManufacture", CommercialVehicle::getYearOfManufacture),
+            column("conditionType", CommercialVehicle::getConditionType),
+            column("bodyType", CommercialVehicle::getBodyType), column("color", CommercialVehicle::getColor),
+            column("engineType", CommercialVehicle::getEngineType),
+            column("engineCapacityCc", CommercialVehicle::getEngineCapacityCc),
+            column("fuelType", CommercialVehicle::getFuelType),
+            column("transmission", CommercialVehicle::getTransmission), column("seats", CommercialVehicle::getSeats),
+            column("doors", CommercialVehicle::getDoors), column("mileageKm", CommercialVehicle::getMileageKm),
+            column("payloadCapacityKg", CommercialVehicle::getPayloadCapacityKg),
+            column("cargoVolumeM3", CommercialVehicle::getCargoVolumeM3),
+            column("sleeperCapacity", CommercialVehicle::getSleeperCapacity),
+            column("camperFeatures", CommercialVehicle::getCamperFeatures),
+            column("priceKes", CommercialVehicle::getPriceKes), column("location", CommercialVehicle::getLocation),
+            column("ownerType", CommercialVehicle::getOwnerType), column("seller", CommercialVehicle::getSeller),
+            column("ownerEmail", CommercialVehicle::getOwnerEmail), column("status", CommercialVehicle::getStatus),
+            column("rejectionReason", CommercialVehicle::getRejectionReason),
+            column("description", CommercialVehicle::getDescription),
+            column("features", CommercialVehicle::getFeatures),
+            column("customSpecs", CommercialVehicle::getCustomSpecs),
+            column("buyerName", CommercialVehicle::getBuyerName),
+            column("buyerEmail", CommercialVehicle::getBuyerEmail),
+            column("buyerPhoneNumber", CommercialVehicle::getBuyerPhoneNumber),
+            column("soldAt", CommercialVehicle::getSoldAt),
+            column("reviewSubmitted", CommercialVehicle::getReviewSubmitted));
+
+    private static final List<Column<Container>> CONTAINER_COLUMNS = List.of(
+            column("id", Container::getId), column("containerNumber", Container::getContainerNumber),
+            column("size", Container::getSize), column("type", Container::getType),
+            column("price", Container::getPrice), column("status", Container::getStatus));
+
+    private final CarRepository carRepository;
+    private final MotorcycleRepository motorcycleRepository;
+    private final CommercialVehicleRepository commercialVehicleRepository;
+    private final ContainerRepository containerRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnly;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ListingExportService(CarRepository carRepository, MotorcycleRepository motorcycleRepository,
+                                CommercialVehicleRepository commercialVehicleRepository,
+                                ContainerRepository containerRepository, ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager) {
+        this.carRepository = carRepository;
+        this.motorcycleRepository = motorcycleRepository;
+        this.commercialVehicleRepository = commercialVehicleRepository;
+        this.containerRepository = containerRepository;
+        this.objectMapper = objectMapper;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * Writes every row of one kind to {@code out}. The stream is flushed but not closed.
+     */
+    public void export(Kind kind, Format format, OutputStream out) throws IOException {
+        long started = System.currentTimeMillis();
+        long rows;
+        try (RowWriter writer = format == Format.CSV ? new CsvWriter(out) : new NdjsonWriter(out, objectMapper)) {
+            switch (kind) {
+                case CARS:
+                    rows = export(carRepository::streamAllForExport, CAR_COLUMNS, writer);
+                    break;
+                case MOTORCYCLES:
+                    rows = export(motorcycleRepository::streamAllForExport, MOTORCYCLE_COLUMNS, writer);
+                    break;
+                case COMMERCIAL_VEHICLES:
+                    rows = export(commercialVehicleRepository::streamAllForExport, COMMERCIAL_VEHICLE_COLUMNS, writer);
+                    break;
+                default:
+                    rows = export(containerRepository::streamAllForExport, CONTAINER_COLUMNS, writer);
+            }
+        } catch (UncheckedIOException e) {
+            // Usually the client going away mid-download
+            throw e.getCause();
+        }
+        log.info("Exported {} {} as {} in {} ms", rows, kind.fileName(), format.extension(),
+                System.currentTimeMillis() - started);
+    }
+
+    private <T> long export(Supplier<Stream<T>> query, List<Column<T>> columns, RowWriter writer) throws IOException {
+        List<String> names = columns.stream().map(Column::name).toList();
+        writer.header(names);
+        Long rows = readOnly.execute(status -> {
+            long count = 0;
+            try (Stream<T> stream = query.get()) {
+                for (T row : (Iterable<T>) stream::iterator) {
+                    Object[] values = new Object[columns.size()];
+                    for (int i = 0; i < values.length; i++) {
+                        values[i] = columns.get(i).value().apply(row);
+                    }
+                    entityManager.detach(row);
+                    try {
+                        writer.row(names, values);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count++;
+                }
+            }
+            return count;
+        });
+        return rows == null ? 0 : rows;
+    }
+
+    // ==================== WRITERS ====================
+
+    private interface RowWriter extends Closeable {
+        void header(List<String> names) throws IOException;
+
+        void row(List<String> names, Object[] values) throws IOException;
+    }
+
+    // One JSON object per line
+    private static class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator json;
+
+        NdjsonWriter(OutputStream out, ObjectMapper objectMapper) throws IOException {
+            this.json = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8);
+            this.json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void header(List<String> names) {
+        }
+
+        @Override
+        public void row(List<String> names, Object[] values) throws IOException {
+            json.writeStartObject();
+            for (int i = 0; i < values.length; i++) {
+                json.writeFieldName(names.get(i));
+                json.writeObject(values[i]);
+            }
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            json.close();
+        }
+    }
+
+    // RFC 4180: a header line, then one line per row, values quoted when they need it and text that a
+    // spreadsheet would evaluate as a formula prefixed with '
+    private static class CsvWriter implements RowWriter {
+
+        private final Writer out;
+
+        CsvWriter(OutputStream out) {
+            this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void header(List<String> names) throws IOException {
+            line(names.toArray());
+        }
+
+        @Override
+        public void row(List<String> names, Object[] values) throws IOException {
+            line(values);
+        }
+
+        private void line(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) out.write(',');
+                if (values[i] instanceof Number number) {
+                    out.write(number.toString());
+                } else if (values[i] != null) {
+                    out.write(escape(defuse(values[i].toString())));
+                }
+            }
+            out.write("\r\n");
+        }
+
+        // Spreadsheets run a cell starting with one of these as a formula; a leading ' keeps it text
+        private static String defuse(String value) {
+            if (value.isEmpty()) return value;
+            char first = value.charAt(0);
+            if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+                return "'" + value;
+            }
+            return value;
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Flush only: the response stream belongs to the caller
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.reflectoring.carshippingbackend.services;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Helpers for the in-memory read models, which answer with listing ids in their own order
+ * (search rank, similarity, arrival) and leave loading the entities to the caller.
+ */
+public class ListingIds {
+
+    /**
+     * Loads the rows behind a list of ids with one lookup and returns them in the order of the ids.
+     * Ids whose row no longer exists are skipped.
+     */
+    public static <T> List<T> loadInOrder(List<Long> ids, Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        if (ids.isEmpty()) return List.of();
+        Map<Long, T> byId = loader.apply(ids).stream()
+                .collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Feeds every row matching spec (all rows when null) to action in id order, one batch at a time.
+     * Each batch starts after the last id read rather than at an offset, so rows inserted or deleted while
+     * the walk runs never shift a later batch onto rows already read or past rows not read yet.
+     */
+    public static <T> void forEachById(JpaSpecificationExecutor<T> repository, Specification<T> spec,
+                                       int batchSize, Function<T, Long> idOf, Consumer<T> action) {
+        Long after = null;
+        List<T> batch;
+        do {
+            Long last = after;
+            Specification<T> afterLast = (root, query, cb) ->
+                    last == null ? cb.conjunction() : cb.greaterThan(root.get("id"), last);
+            batch = repository.findBy(spec == null ? afterLast : spec.and(afterLast),
+                    q -> q.sortBy(Sort.by("id")).limit(batchSize).all());
+            batch.forEach(action);
+            if (!batch.isEmpty()) after = idOf.apply(batch.get(batch.size() - 1));
+        } while (batch.size() == batchSize);
+    }
+}
@@ -1,14 +1,17 @@
 package io.reflectoring.carshippingbackend.services;
 
-import com.cloudinary.Cloudinary;
-import com.cloudinary.utils.ObjectUtils;
+import io.reflectoring.carshippingbackend.DTO.CursorPage;
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
 import io.reflectoring.carshippingbackend.DTO.MotorcycleRequestDTO;
 import io.reflectoring.carshippingbackend.DTO.MotorcycleResponseDTO;
+import io.reflectoring.carshippingbackend.DTO.SlicePage;
 import io.reflectoring.carshippingbackend.DTO.SoldRequest;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
 import io.reflectoring.carshippingbackend.repository.MotorcycleRepository;
 import io.reflectoring.carshippingbackend.tables.Motorcycle;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -24,35 +27,24 @@ import java.util.stream.Collectors;
 public class MotorcycleService {
 
     private final MotorcycleRepository repo;
-    private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
     private final EmailService emailService;
     private final AuxiliaryService auxiliaryService;
+    private final CatalogIndexService catalogIndex;
+    private final ListingCardService cards;
+    private final SimilarityService similarity;
+    private final LatestArrivalsService latestArrivals;
+    private final FacetCountService facetCounts;
+    private final ApplicationEventPublisher events;
 
     // ==================== HELPER METHODS ====================
 
-    // Upload single image
-    private String uploadSingleImage(MultipartFile image) throws IOException {
-        String uniqueFileName = UUID.randomUUID() + "-" +
-                Objects.requireNonNull(image.getOriginalFilename()).replaceAll("\\s+", "_");
-        Map uploadResult = cloudinary.uploader().upload(
-                image.getBytes(),
-                ObjectUtils.asMap(
-                        "public_id", "uploads/motorcycle/" + uniqueFileName,
-                        "resource_type", "auto"
-                )
-        );
-        return (String) uploadResult.get("secure_url");
-    }
-
-    // Upload multiple images
-    private List<String> uploadImages(MultipartFile[] images) throws IOException {
-        List<String> urls = new ArrayList<>();
-        for (MultipartFile image : images) {
-            if (!image.isEmpty()) {
-                urls.add(uploadSingleImage(image));
-            }
-        }
-        return urls;
+    // Upload images (empty parts are skipped), in parallel, in the order given
+    private List<String> uploadImages(Collection<MultipartFile> images) throws IOException {
+        List<MultipartFile> files = images.stream()
+                .filter(image -> image != null && !image.isEmpty())
+                .collect(Collectors.toList());
+        return imageUploads.uploadAll(files, ImageUploadService.publicIdUnder("uploads/motorcycle/"));
     }
 
     // Convert Entity → DTO
@@ -116,19 +108,7 @@ public class MotorcycleService {
 
         // UPLOAD IMAGES
         if (dto.getImages() != null && !dto.getImages().isEmpty()) {
-            List<String> imageUrls = new ArrayList<>();
-            for (MultipartFile image : dto.getImages()) {
-                if (image != null && !image.isEmpty()) {
-                    try {
-                        String url = uploadSingleImage(image);
-                        imageUrls.add(url);
-                        System.out.println("Uploaded image: " + url);
-                    } catch (IOException e) {
-                        System.err.println("Failed to upload image: " + e.getMessage());
-                    }
-                }
-            }
-            motorcycle.setImageUrls(imageUrls);
+            motorcycle.setImageUrls(uploadImages(dto.getImages()));
         }
 
         // DEBUG LOG
@@ -142,6 +122,7 @@ public class MotorcycleService {
 
         try {
             Motorcycle saved = repo.save(motorcycle);
+            events.publishEvent(ListingChangedEvent.created(VehicleType.MOTORCYCLE, saved.getId(), saved));
             System.out.println("SAVED successfully with ID: " + saved.getId());
             System.out.println("Saved owner in DB: " + saved.getOwner()); // Add this
             return toDto(saved);
@@ -159,6 +140,7 @@ public class MotorcycleService {
 
         Motorcycle existing = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Motorcycle not found with id " + id));
+        String previousStatus = existing.getStatus();
 
         // Update only provided fields (partial update)
         if (motorcycleData.containsKey("brand")) existing.setBrand(motorcycleData.get("brand"));
@@ -215,16 +197,18 @@ public class MotorcycleService {
 
         // Update images if provided
         if (images != null && images.length > 0) {
-            existing.setImageUrls(uploadImages(images));
+            existing.setImageUrls(uploadImages(Arrays.asList(images)));
         }
 
         Motorcycle updated = repo.save(existing);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.MOTORCYCLE, updated.getId(), updated, previousStatus));
         return toDto(updated);
     }
 
     // DELETE
     public void deleteMotorcycle(Long id) {
         repo.deleteById(id);
+        events.publishEvent(ListingChangedEvent.deleted(VehicleType.MOTORCYCLE, id));
     }
 
     // ==================== ADMIN OPERATIONS ====================
@@ -232,17 +216,21 @@ public class MotorcycleService {
     public MotorcycleResponseDTO approveMotorcycle(Long id) {
         Motorcycle motorcycle = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Motorcycle not found"));
+        String previousStatus = motorcycle.getStatus();
         motorcycle.setStatus("APPROVED");
         repo.save(motorcycle);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.MOTORCYCLE, id, motorcycle, previousStatus));
         return toDto(motorcycle);
     }
 
     public MotorcycleResponseDTO rejectMotorcycle(Long id, String reason) {
         Motorcycle motorcycle = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Motorcycle not found"));
+        String previousStatus = motorcycle.getStatus();
         motorcycle.setStatus("REJECTED");
         // Optional: Add rejection reason to entity if needed
         repo.save(motorcycle);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.MOTORCYCLE, id, motorcycle, previousStatus));
         return toDto(motorcycle);
     }
 
@@ -260,10 +248,77 @@ public class MotorcycleService {
             filters.put("status", "APPROVED");
         }
 
-        Specification<Motorcycle> spec = MotorcycleSpecification.byFilters(filters);
-        Page<Motorcycle> results = repo.findAll(spec, pageable);
+        return searchListings(filters, pageable).map(this::toDto);
+    }
 
-        return results.map(this::toDto);
+    // 1a. Card view of searchByFilters: only the columns a result card shows, no LOBs
+    public Page<ListingCardDTO> searchByFiltersCards(
+            Map<String, String> filters,
+            int page, int size, Sort sort) {
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        if (!filters.containsKey("status")) {
+            filters.put("status", "APPROVED");
+        }
+
+        var hits = catalogIndex.search(VehicleType.MOTORCYCLE, filters, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toPage(hits.get(), ids -> cards.findByIds(Motorcycle.class, ids),
+                    ListingCardDTO::getId, pageable);
+        }
+        return cards.find(Motorcycle.class, MotorcycleSpecification.byFilters(filters), pageable);
+    }
+
+    // 1c. Count-free variants of searchByFilters and searchByFiltersCards for infinite scroll: size + 1 rows, no COUNT
+    public SlicePage<MotorcycleResponseDTO> searchByFiltersSlice(
+            Map<String, String> filters,
+            int page, int size, Sort sort) {
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        if (!filters.containsKey("status")) {
+            filters.put("status", "APPROVED");
+        }
+
+        var hits = catalogIndex.search(VehicleType.MOTORCYCLE, filters, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toSlice(hits.get(), ids -> repo.findAllById(ids), Motorcycle::getId, pageable)
+                    .map(this::toDto);
+        }
+        return sliceWithSpecification(MotorcycleSpecification.byFilters(filters), filters, pageable).map(this::toDto);
+    }
+
+    public SlicePage<ListingCardDTO> searchByFiltersCardsSlice(
+            Map<String, String> filters,
+            int page, int size, Sort sort) {
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        if (!filters.containsKey("status")) {
+            filters.put("status", "APPROVED");
+        }
+
+        var hits = catalogIndex.search(VehicleType.MOTORCYCLE, filters, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toSlice(hits.get(), ids -> cards.findByIds(Motorcycle.class, ids),
+                    ListingCardDTO::getId, pageable);
+        }
+        return SlicePage.of(cards.findSlice(Motorcycle.class, MotorcycleSpecification.byFilters(filters), pageable),
+                facetCounts.total(VehicleType.MOTORCYCLE, filters.get("status"), filters));
+    }
+
+    // 1b. Keyset-paginated variant of searchByFilters: no OFFSET scan and no COUNT query
+    public CursorPage<MotorcycleResponseDTO> searchByFiltersAfter(
+            Map<String, String> filters,
+            String cursor, int size, Sort sort) {
+
+        if (!filters.containsKey("status")) {
+            filters.put("status", "APPROVED");
+        }
+
+        Specification<Motorcycle> spec = MotorcycleSpecification.byFilters(filters);
+        return KeysetPagination.fetch(repo, spec, sort, cursor, size).map(this::toDto);
     }
 
     // 2. Get single motorcycle by ID
@@ -298,6 +353,29 @@ public class MotorcycleService {
         return results.map(this::toDto);
     }
 
+    // 3a. Count-free variant of searchByUserRole; a seller's listing has no total
+    public SlicePage<MotorcycleResponseDTO> searchByUserRoleSlice(
+            Map<String, String> allParams,
+            int page, int size, Sort sort,
+            String currentUserEmail, String currentUserRole) {
+
+        Pageable pageable = PageRequest.of(page, size, sort);
+        String role = currentUserRole.replace("ROLE_", "").toUpperCase();
+
+        switch (role) {
+            case "ADMIN":
+                return sliceWithSpecification(MotorcycleSpecification.byFilters(allParams), allParams, pageable)
+                        .map(this::toDto);
+            case "SELLER":
+                Specification<Motorcycle> spec = MotorcycleSpecification
+                        .byOwner(currentUserEmail)
+                        .and(MotorcycleSpecification.byFilters(allParams));
+                return SlicePage.of(repo.findBy(spec, q -> q.slice(pageable)), null).map(this::toDto);
+            default:
+                throw new RuntimeException("Unauthorized access");
+        }
+    }
+
     // ==================== EXISTING SEARCH & FILTER METHODS ====================
 
     // Public search (APPROVED only)
@@ -311,10 +389,24 @@ public class MotorcycleService {
         // Force APPROVED status for public access
         filters.put("status", "APPROVED");
 
+        return searchListings(filters, pageable).map(this::toDto);
+    }
+
+    // Served from the in-memory catalog index when it can answer the filters
+    private Page<Motorcycle> searchListings(Map<String, String> filters, Pageable pageable) {
+        var hits = catalogIndex.search(VehicleType.MOTORCYCLE, filters, pageable);
+        if (hits.isPresent()) {
+            return catalogIndex.toPage(hits.get(), ids -> repo.findAllById(ids), Motorcycle::getId, pageable);
+        }
         Specification<Motorcycle> spec = MotorcycleSpecification.byFilters(filters);
-        Page<Motorcycle> results = repo.findAll(spec, pageable);
+        return repo.findAll(spec, pageable);
+    }
 
-        return results.map(this::toDto);
+    // One slice of a filter-map query over every owner, its total from the facet counters when unfiltered
+    private SlicePage<Motorcycle> sliceWithSpecification(
+            Specification<Motorcycle> spec, Map<String, String> filters, Pageable pageable) {
+        return SlicePage.of(repo.findBy(spec, q -> q.slice(pageable)),
+                facetCounts.total(VehicleType.MOTORCYCLE, filters.get("status"), filters));
     }
 
     // Specification-based search methods (internal)
@@ -346,6 +438,27 @@ public class MotorcycleService {
             String make, String type,
             String priceRange, String year) {
 
+        Map<String, String> filters = legacyFilters(make, type, priceRange, year);
+
+        Pageable pageable = PageRequest.of(page, size);
+        Specification<Motorcycle> spec = MotorcycleSpecification.byFilters(filters);
+        Page<Motorcycle> results = repo.findAll(spec, pageable);
+
+        return results.map(this::toDto);
+    }
+
+    // Count-free variant of filterMotorcycles
+    public SlicePage<MotorcycleResponseDTO> filterMotorcyclesSlice(
+            int page, int size,
+            String make, String type,
+            String priceRange, String year) {
+
+        Map<String, String> filters = legacyFilters(make, type, priceRange, year);
+        Pageable pageable = PageRequest.of(page, size);
+        return sliceWithSpecification(MotorcycleSpecification.byFilters(filters), filters, pageable).map(this::toDto);
+    }
+
+    private static Map<String, String> legacyFilters(String make, String type, String priceRange, String year) {
         Map<String, String> filters = new HashMap<>();
         if (make != null && !make.isBlank()) filters.put("brand", make);
         if (type != null && !type.isBlank()) filters.put("type", type);
@@ -361,12 +474,7 @@ public class MotorcycleService {
         }
 
         filters.put("status", "APPROVED");
-
-        Pageable pageable = PageRequest.of(page, size);
-        Specification<Motorcycle> spec = MotorcycleSpecification.byFilters(filters);
-        Page<Motorcycle> results = repo.findAll(spec, pageable);
-
-        return results.map(this::toDto);
+        return filters;
     }
 
     // Legacy search (for backward compatibility)
@@ -399,14 +507,26 @@ public class MotorcycleService {
     // Latest arrivals
     public List<MotorcycleResponseDTO> getLatestArrivals() {
         Pageable pageable = PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "createdAt"));
-        return repo.findAll(pageable).getContent().stream()
+        List<Motorcycle> motorcycles = latestArrivals.latestIds(VehicleType.MOTORCYCLE, 4)
+                .map(ids -> ListingIds.loadInOrder(ids, repo::findAllById, Motorcycle::getId))
+                .orElseGet(() -> repo.findAll(MotorcycleSpecification.byApprovedStatus(), pageable).getContent());
+        return motorcycles.stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
     }
 
+    // Card view of the latest arrivals, served from memory once loaded
+    public List<ListingCardDTO> getLatestArrivalCards() {
+        return latestArrivals.latest(VehicleType.MOTORCYCLE, 4)
+                .orElseGet(() -> cards.find(Motorcycle.class, MotorcycleSpecification.byApprovedStatus(),
+                        PageRequest.of(0, 4, Sort.by(Sort.Direction.DESC, "createdAt"))).getContent());
+    }
+
     // Similar motorcycles
     public List<MotorcycleResponseDTO> getSimilarMotorcycles(String brand, String model, Long excludeId) {
-        List<Motorcycle> motorcycles = repo.findByBrandAndModelAndIdNot(brand, model, excludeId);
+        List<Motorcycle> motorcycles = similarity.similar(VehicleType.MOTORCYCLE, brand, model, excludeId)
+                .map(ids -> ListingIds.loadInOrder(ids, repo::findAllById, Motorcycle::getId))
+                .orElseGet(() -> repo.findByBrandAndModelAndIdNot(brand, model, excludeId));
         return motorcycles.stream()
                 .map(this::toDto)
                 .collect(Collectors.toList());
@@ -414,6 +534,7 @@ public class MotorcycleService {
 
     // Get distinct brands with count (for filter options)
     public List<Map<String, Object>> getDistinctBrandsWithCount() {
+        if (facetCounts.isReady()) return facetCounts.namesWithCount(VehicleType.MOTORCYCLE, "brand");
         return repo.findDistinctBrandsWithCount();
     }
 
@@ -422,41 +543,16 @@ public class MotorcycleService {
         return repo.findDistinctModelsByBrand(brand);
     }
 
-    // Filter options for dropdowns
-    public Map<String, List<String>> getFilterOptions() {
-        Map<String, List<String>> options = new HashMap<>();
-
-        List<String> brands = repo.findAll().stream()
-                .map(Motorcycle::getBrand)
-                .filter(brand -> brand != null && !brand.trim().isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-        options.put("brands", brands);
-
-        List<String> types = repo.findAll().stream()
-                .map(Motorcycle::getType)
-                .filter(type -> type != null && !type.trim().isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-        options.put("types", types);
-
-        List<String> locations = repo.findAll().stream()
-                .map(Motorcycle::getLocation)
-                .filter(location -> location != null && !location.trim().isEmpty())
-                .distinct()
-                .sorted()
-                .collect(Collectors.toList());
-        options.put("locations", locations);
-
-        return options;
+    // Filter options for dropdowns (all statuses unless one is given)
+    public Map<String, Object> getFilterOptions(String status) {
+        return facetCounts.filterOptions(VehicleType.MOTORCYCLE, status);
     }
     @Transactional
     public MotorcycleResponseDTO markAsSold(Long id, SoldRequest request) {
 
         Motorcycle m = repo.findById(id)
                 .orElseThrow(() -> new RuntimeException("Motorcycle not found"));
+        String previousStatus = m.getStatus();
 
         m.setStatus("SOLD");
 
@@ -472,6 +568,7 @@ public class MotorcycleService {
         m.setReviewSubmitted("NOTSENT");
 
         repo.save(m);
+        events.publishEvent(ListingChangedEvent.saved(VehicleType.MOTORCYCLE, id, m, previousStatus));
 
         emailService.sendReviewEmail(
                 m.getBuyerEmail(),
@@ -0,0 +1,75 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.repository.CarRepository;
+import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Fills the typed numeric columns (price_kes_value, year_value, ...) of rows saved before those columns
+ * existed. New and updated rows get them from the entity's @PrePersist/@PreUpdate hook, so this only has
+ * work to do once after deploying; afterwards every run finds nothing.
+ *
+ * Rows are walked by id in small batches, each in its own transaction, so the job never holds long locks.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class NumericColumnBackfill {
+
+    private static final int BATCH_SIZE = 200;
+
+    private final CarRepository carRepository;
+    private final CommercialVehicleRepository commercialVehicleRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.numeric-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (enabled) run();
+    }
+
+    public void run() {
+        int cars = backfill(carRepository::findNumericBackfillBatch, Car::getId, Car::syncNumericColumns);
+        int commercialVehicles = backfill(commercialVehicleRepository::findNumericBackfillBatch,
+                CommercialVehicle::getId, CommercialVehicle::syncNumericColumns);
+        log.info("Numeric column backfill finished: {} cars, {} commercial vehicles", cars, commercialVehicles);
+    }
+
+    private <T> int backfill(BiFunction<Long, Pageable, List<T>> fetch, Function<T, Long> idOf, Consumer<T> sync) {
+        Pageable batch = PageRequest.of(0, BATCH_SIZE);
+        long afterId = 0;
+        int updated = 0;
+        while (true) {
+            long from = afterId;
+            // Rows stay managed inside the transaction, so the dirty fields are flushed on commit
+            List<T> rows = transactionTemplate.execute(status -> {
+                List<T> found = fetch.apply(from, batch);
+                found.forEach(sync);
+                return found;
+            });
+            if (rows == null || rows.isEmpty()) return updated;
+            updated += rows.size();
+            // Rows whose text does not parse keep NULL columns; moving past them by id avoids refetching them
+            afterId = idOf.apply(rows.get(rows.size() - 1));
+        }
+    }
+}
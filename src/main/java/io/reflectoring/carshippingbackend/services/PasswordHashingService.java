@@ -0,0 +1,99 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the BCrypt password checks of logins on a small pool of their own, so a burst of login attempts
+ * can use at most that many cores and never the request threads the catalog endpoints need.
+ *
+ * The pool has a short queue; when it is full (or a check waits longer than timeout-ms) the login is
+ * refused with {@link BusyException} instead of queueing without end. Check latency is recorded in the
+ * auth.password.check timer and refusals in auth.password.rejected (tag reason).
+ */
+@Service
+public class PasswordHashingService {
+
+    /**
+     * The hashing pool is saturated; the caller should answer 503 and let the client retry later.
+     */
+    public static class BusyException extends RuntimeException {
+        public BusyException(String message) {
+            super(message);
+        }
+    }
+
+    private final PasswordEncoder passwordEncoder;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final Timer checkTimer;
+    private final Counter queueFull;
+    private final Counter timedOut;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+                                  @Value("${app.password-hashing.threads:0}") int threads,
+                                  @Value("${app.password-hashing.queue-capacity:32}") int queueCapacity,
+                                  @Value("${app.password-hashing.timeout-ms:5000}") long timeoutMs) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMs = timeoutMs;
+        // Half the cores by default: the other half stays with the request threads
+        int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.executor = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("password-hashing-"));
+        this.checkTimer = Timer.builder("auth.password.check").register(meterRegistry);
+        this.queueFull = Counter.builder("auth.password.rejected").tag("reason", "queue_full").register(meterRegistry);
+        this.timedOut = Counter.builder("auth.password.rejected").tag("reason", "timeout").register(meterRegistry);
+        Gauge.builder("auth.password.queue", executor, pool -> pool.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * {@link PasswordEncoder#matches} on the hashing pool.
+     *
+     * @throws BusyException when the pool cannot take or finish the check in time
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        Future<Boolean> check;
+        try {
+            check = executor.submit(() -> checkTimer.recordCallable(
+                    () -> passwordEncoder.matches(rawPassword, encodedPassword)));
+        } catch (RejectedExecutionException e) {
+            queueFull.increment();
+            throw new BusyException("Too many sign-in attempts right now, please try again shortly");
+        }
+        try {
+            return check.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            timedOut.increment();
+            throw new BusyException("Too many sign-in attempts right now, please try again shortly");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusyException("Sign-in was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password check failed", e.getCause());
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
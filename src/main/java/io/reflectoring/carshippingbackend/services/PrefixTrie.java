@@ -0,0 +1,200 @@
+package io.reflectoring.carshippingbackend.services;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compressed (radix) trie of the values of one facet, each with the number of listings having it, for
+ * typeahead suggestions.
+ *
+ * Keys are lower-cased, so "Toyota" and "toyota" are one suggestion, shown in its most used spelling.
+ * Every node knows the highest count below it, so the top N completions of a prefix are found best
+ * first without visiting the rest of the subtree. Counts move one listing at a time and nodes are split
+ * and merged as values come and go, so the trie never needs rebuilding.
+ */
+class PrefixTrie {
+
+    record Suggestion(String value, int count) {}
+
+    private static final class Terminal {
+        final Map<String, Integer> spellings = new TreeMap<>();
+        int count;
+
+        String display() {
+            return Collections.max(spellings.entrySet(), Map.Entry.comparingByValue()).getKey();
+        }
+    }
+
+    private static final class Node {
+        String edge;
+        Map<Character, Node> children = new HashMap<>();
+        Terminal terminal;
+        // Highest count of any terminal in this subtree
+        int best;
+
+        Node(String edge) {
+            this.edge = edge;
+        }
+    }
+
+    private record Candidate(int score, String path, Node node, Terminal terminal) {}
+
+    // Higher counts first, then alphabetically; a value comes before the longer ones it prefixes
+    private static final Comparator<Candidate> BEST_FIRST = Comparator.comparingInt(Candidate::score).reversed()
+            .thenComparing(Candidate::path)
+            .thenComparing(candidate -> candidate.terminal() == null);
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Node root = new Node("");
+
+    void add(String value) {
+        update(value, 1);
+    }
+
+    void remove(String value) {
+        update(value, -1);
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            root = new Node("");
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The {@code limit} values starting with {@code prefix} (case-insensitive) with the highest counts.
+     */
+    List<Suggestion> top(String prefix, int limit) {
+        // Only leading blanks go: a trailing one still means "the next word follows"
+        String key = prefix == null ? "" : prefix.stripLeading().toLowerCase();
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            String path = "";
+            int at = 0;
+            while (at < key.length()) {
+                Node child = node.children.get(key.charAt(at));
+                if (child == null) return Collections.emptyList();
+                int common = commonPrefix(child.edge, key, at);
+                if (at + common == key.length()) {
+                    // The prefix ends on this edge (or exactly at its end): the whole subtree matches
+                    node = child;
+                    path += child.edge;
+                    break;
+                }
+                if (common < child.edge.length()) return Collections.emptyList();
+                node = child;
+                path += child.edge;
+                at += common;
+            }
+
+            List<Suggestion> result = new ArrayList<>(limit);
+            PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+            queue.add(new Candidate(node.best, path, node, null));
+            while (!queue.isEmpty() && result.size() < limit) {
+                Candidate candidate = queue.poll();
+                if (candidate.terminal() != null) {
+                    result.add(new Suggestion(candidate.terminal().display(), candidate.terminal().count));
+                    continue;
+                }
+                Node current = candidate.node();
+                if (current.terminal != null) {
+                    queue.add(new Candidate(current.terminal.count, candidate.path(), null, current.terminal));
+                }
+                for (Node child : current.children.values()) {
+                    queue.add(new Candidate(child.best, candidate.path() + child.edge, child, null));
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(String value, int delta) {
+        if (value == null) return;
+        String spelling = value.trim();
+        String key = normalize(spelling);
+        if (key.isEmpty()) return;
+
+        lock.writeLock().lock();
+        try {
+            Deque<Node> path = new ArrayDeque<>();
+            Node node = root;
+            path.push(node);
+            int at = 0;
+            while (at < key.length()) {
+                Node child = node.children.get(key.charAt(at));
+                if (child == null) {
+                    if (delta < 0) return;
+                    child = new Node(key.substring(at));
+                    node.children.put(key.charAt(at), child);
+                    node = child;
+                    path.push(node);
+                    break;
+                }
+                int common = commonPrefix(child.edge, key, at);
+                if (common < child.edge.length()) {
+                    if (delta < 0) return;
+                    // Split the edge where the key leaves it
+                    Node middle = new Node(child.edge.substring(0, common));
+                    child.edge = child.edge.substring(common);
+                    middle.children.put(child.edge.charAt(0), child);
+                    node.children.put(middle.edge.charAt(0), middle);
+                    child = middle;
+                }
+                node = child;
+                path.push(node);
+                at += common;
+            }
+
+            Terminal terminal = node.terminal;
+            if (terminal == null) {
+                if (delta < 0) return;
+                terminal = node.terminal = new Terminal();
+            }
+            terminal.count += delta;
+            if (terminal.spellings.merge(spelling, delta, Integer::sum) <= 0) terminal.spellings.remove(spelling);
+            if (terminal.count <= 0 || terminal.spellings.isEmpty()) node.terminal = null;
+
+            // Back up to the root: drop emptied nodes, merge chains left behind and refresh the best counts
+            Node below = null;
+            while (!path.isEmpty()) {
+                Node current = path.pop();
+                if (below != null) {
+                    if (below.terminal == null && below.children.isEmpty()) {
+                        current.children.remove(below.edge.charAt(0));
+                    } else if (below.terminal == null && below.children.size() == 1) {
+                        Node only = below.children.values().iterator().next();
+                        below.edge += only.edge;
+                        below.children = only.children;
+                        below.terminal = only.terminal;
+                        below.best = only.best;
+                    }
+                }
+                int best = current.terminal == null ? 0 : current.terminal.count;
+                for (Node child : current.children.values()) best = Math.max(best, child.best);
+                current.best = best;
+                below = current;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int commonPrefix(String edge, String key, int offset) {
+        int length = 0;
+        while (length < edge.length() && offset + length < key.length()
+                && edge.charAt(length) == key.charAt(offset + length)) {
+            length++;
+        }
+        return length;
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase();
+    }
+}
@@ -0,0 +1,84 @@
+package io.reflectoring.carshippingbackend.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the principal behind each signed-in token for a short while, so an authenticated request does not
+ * reload the user and its roles from the database every time.
+ *
+ * Entries are keyed by email and token id and live at most ttl-seconds (max-entries in total, least
+ * recently used out first). {@link UserService} evicts a user's entries whenever it changes their roles,
+ * status or password, or deletes them.
+ */
+@Service
+public class PrincipalCache {
+
+    private record Entry(UserDetails principal, long expiresAt) {}
+
+    private final CustomUserDetailsService userDetailsService;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    // Moved by every eviction, so a load that raced one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    public PrincipalCache(CustomUserDetailsService userDetailsService,
+                          @Value("${app.principal-cache.enabled:true}") boolean enabled,
+                          @Value("${app.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${app.principal-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.userDetailsService = userDetailsService;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The principal for a verified token, loaded through {@link CustomUserDetailsService} on a miss.
+     */
+    public UserDetails load(String email, String tokenId) {
+        if (!enabled) return userDetailsService.loadUserByUsername(email);
+
+        String key = key(email) + tokenId;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() >= System.currentTimeMillis()) return entry.principal();
+            if (entry != null) entries.remove(key);
+        }
+
+        long loadedAt = generation.get();
+        UserDetails principal = userDetailsService.loadUserByUsername(email);
+        synchronized (entries) {
+            if (generation.get() == loadedAt) {
+                entries.put(key, new Entry(principal, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Drops every cached principal of a user, whichever token it came with.
+     */
+    public void evict(String email) {
+        if (email == null) return;
+        String prefix = key(email);
+        synchronized (entries) {
+            generation.incrementAndGet();
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private static String key(String email) {
+        return email.toLowerCase() + " ";
+    }
+}
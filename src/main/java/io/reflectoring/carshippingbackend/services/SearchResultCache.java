@@ -0,0 +1,163 @@
+package io.reflectoring.carshippingbackend.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches the public search responses served to logged-out visitors, who mostly repeat the same few
+ * filter combinations.
+ *
+ * Entries are keyed by vehicle type, endpoint and the canonical form of the request parameters (sorted by
+ * name, blank filters dropped, filter values trimmed and lower-cased since every filter matches
+ * case-insensitively). A response is stored as the JSON it was sent as, so a hit never touches the
+ * entities again. The cache holds at most max-entries responses, least recently used out first, each
+ * for at most ttl-seconds, and a {@link ListingChangedEvent} drops every entry of its vehicle type.
+ *
+ * Hits and misses are counted in the search.cache.requests meter (tags type and result), visible
+ * through /actuator/metrics.
+ */
+@Service
+@Slf4j
+public class SearchResultCache {
+
+    // Not filters: kept exactly as sent, even when blank (an empty cursor asks for the first cursor page)
+    private static final Set<String> VERBATIM = Set.of("sort", "cursor");
+
+    private record Entry(byte[] json, long expiresAt) {}
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private final Map<VehicleType, AtomicLong> generations = new EnumMap<>(VehicleType.class);
+    private final Map<VehicleType, Counter> hits = new EnumMap<>(VehicleType.class);
+    private final Map<VehicleType, Counter> misses = new EnumMap<>(VehicleType.class);
+
+    public SearchResultCache(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                             @Value("${app.search-cache.enabled:true}") boolean enabled,
+                             @Value("${app.search-cache.max-entries:500}") int maxEntries,
+                             @Value("${app.search-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        for (VehicleType type : VehicleType.values()) {
+            generations.put(type, new AtomicLong());
+            hits.put(type, Counter.builder("search.cache.requests")
+                    .tag("type", type.name()).tag("result", "hit").register(meterRegistry));
+            misses.put(type, Counter.builder("search.cache.requests")
+                    .tag("type", type.name()).tag("result", "miss").register(meterRegistry));
+        }
+        Gauge.builder("search.cache.size", this, SearchResultCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached response for these parameters, or runs the search and caches its response when
+     * it succeeded. Signed-in users always get a fresh search.
+     */
+    public ResponseEntity<?> cached(VehicleType type, String endpoint, Map<String, String> params,
+                                    Supplier<ResponseEntity<?>> search) {
+        if (!enabled || !isAnonymous()) return search.get();
+
+        String key = type + " " + endpoint + " " + canonical(params);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt() < System.currentTimeMillis()) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            hits.get(type).increment();
+            return json(entry.json());
+        }
+        misses.get(type).increment();
+
+        // A change committed while the search ran bumps the generation, and its stale result is not kept
+        long generation = generations.get(type).get();
+        ResponseEntity<?> response = search.get();
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) return response;
+
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(response.getBody());
+        } catch (JsonProcessingException e) {
+            log.warn("Search response for {} not cached: {}", key, e.getMessage());
+            return response;
+        }
+        synchronized (entries) {
+            if (generations.get(type).get() == generation) {
+                entries.put(key, new Entry(json, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return json(json);
+    }
+
+    @Order(ListingChangedEvent.DERIVED)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        VehicleType type = event.getVehicleType();
+        String prefix = type + " ";
+        synchronized (entries) {
+            generations.get(type).incrementAndGet();
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    static String canonical(Map<String, String> params) {
+        StringBuilder key = new StringBuilder();
+        new TreeMap<>(params).forEach((name, value) -> {
+            if (value == null) return;
+            String normalized = value;
+            if (!VERBATIM.contains(name)) {
+                if (value.isBlank()) return;
+                normalized = value.trim().toLowerCase();
+            }
+            key.append(name).append('=').append(URLEncoder.encode(normalized, StandardCharsets.UTF_8)).append('&');
+        });
+        return key.toString();
+    }
+
+    private static boolean isAnonymous() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null
+                || authentication instanceof AnonymousAuthenticationToken
+                || !authentication.isAuthenticated();
+    }
+
+    private static ResponseEntity<byte[]> json(byte[] json) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(json);
+    }
+}
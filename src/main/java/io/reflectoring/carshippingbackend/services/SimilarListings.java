@@ -0,0 +1,261 @@
+package io.reflectoring.carshippingbackend.services;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Precomputed "similar listings" of the APPROVED listings of one vehicle type.
+ *
+ * A listing's candidates are the {@link #CANDIDATES_PER_GROUP} listings nearest to it by price among
+ * those sharing its brand, and as many among those sharing its body type, so adding a listing costs the
+ * same however large its groups grow. A candidate is scored on brand, model and body type, plus how close
+ * price, year and mileage are; every listing keeps its best {@link #TOP_K} candidates. When a listing is
+ * added it is offered to its own candidates, and when one is removed only the listings that held it need
+ * their list recomputed. Nearness is not quite symmetric, so a listing just past another's nearest
+ * candidates may miss the new one: the lists are close to, not exactly, the best K.
+ */
+class SimilarListings {
+
+    static final int TOP_K = 12;
+
+    static final int CANDIDATES_PER_GROUP = 100;
+
+    record Neighbour(long id, double score) {}
+
+    // Position of a listing within its groups; listings without a price sort last
+    private record Priced(double price, long id) {
+        static final Comparator<Priced> ORDER = Comparator.comparingDouble(Priced::price)
+                .thenComparingLong(Priced::id);
+
+        static Priced of(CatalogEntry entry) {
+            Double price = entry.number("price");
+            return new Priced(price == null ? Double.MAX_VALUE : price, entry.getId());
+        }
+    }
+
+    // Best first; equal scores put the newer (higher id) listing first
+    private static final Comparator<Neighbour> BEST_FIRST = Comparator.comparingDouble(Neighbour::score)
+            .thenComparingLong(Neighbour::id)
+            .reversed();
+
+    private final String bodyFacet;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, CatalogEntry> entries = new HashMap<>();
+    private final Map<String, NavigableSet<Priced>> byBrand = new HashMap<>();
+    private final Map<String, NavigableSet<Priced>> byBody = new HashMap<>();
+    private final Map<Long, List<Neighbour>> neighbours = new HashMap<>();
+    private final Map<Long, Set<Long>> heldBy = new HashMap<>();
+
+    SimilarListings(String bodyFacet) {
+        this.bodyFacet = bodyFacet;
+    }
+
+    // ==================== WRITES ====================
+
+    void upsert(CatalogEntry entry) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(entry.getId());
+            if (!entry.isApproved()) return;
+
+            Long id = entry.getId();
+            entries.put(id, entry);
+            group(byBrand, entry.facet("brand"), entry);
+            group(byBody, entry.facet(bodyFacet), entry);
+
+            recompute(id);
+            for (Long other : nearestCandidates(entry)) {
+                offer(other, new Neighbour(id, score(entries.get(other), entry)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeLocked(Long id) {
+        CatalogEntry entry = entries.remove(id);
+        if (entry == null) return;
+        ungroup(byBrand, entry.facet("brand"), entry);
+        ungroup(byBody, entry.facet(bodyFacet), entry);
+        for (Neighbour neighbour : neighbours.remove(id)) {
+            release(neighbour.id(), id);
+        }
+        Set<Long> holders = heldBy.remove(id);
+        if (holders != null) {
+            holders.forEach(this::recompute);
+        }
+    }
+
+    // ==================== READS ====================
+
+    /**
+     * The precomputed neighbours of an indexed listing, or null when the listing is not indexed.
+     */
+    List<Long> similarTo(Long id, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Neighbour> list = neighbours.get(id);
+            if (list == null) return null;
+            return list.stream().limit(limit).map(Neighbour::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Listings closest to a brand/model pair, for callers that do not have an indexed listing at hand.
+     * A probe has no price to be near, so it scores every listing of its groups.
+     */
+    List<Long> similarTo(CatalogEntry probe, Long excludeId, int limit) {
+        lock.readLock().lock();
+        try {
+            return allCandidates(probe).stream()
+                    .filter(id -> !id.equals(excludeId))
+                    .map(id -> new Neighbour(id, score(probe, entries.get(id))))
+                    .sorted(BEST_FIRST)
+                    .limit(limit)
+                    .map(Neighbour::id)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== NEIGHBOUR LISTS ====================
+
+    private void recompute(Long id) {
+        for (Neighbour old : neighbours.getOrDefault(id, Collections.emptyList())) {
+            release(old.id(), id);
+        }
+        CatalogEntry entry = entries.get(id);
+        List<Neighbour> best = nearestCandidates(entry).stream()
+                .map(other -> new Neighbour(other, score(entry, entries.get(other))))
+                .sorted(BEST_FIRST)
+                .limit(TOP_K)
+                .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+        neighbours.put(id, best);
+        best.forEach(neighbour -> heldBy.computeIfAbsent(neighbour.id(), n -> new HashSet<>()).add(id));
+    }
+
+    // Puts a new candidate into the list of owner if it beats the weakest one there
+    private void offer(Long owner, Neighbour candidate) {
+        List<Neighbour> list = neighbours.get(owner);
+        if (list.size() >= TOP_K && BEST_FIRST.compare(candidate, list.get(list.size() - 1)) >= 0) return;
+
+        int at = Collections.binarySearch(list, candidate, BEST_FIRST);
+        list.add(at < 0 ? -at - 1 : at, candidate);
+        heldBy.computeIfAbsent(candidate.id(), n -> new HashSet<>()).add(owner);
+        if (list.size() > TOP_K) {
+            release(list.remove(list.size() - 1).id(), owner);
+        }
+    }
+
+    private void release(long neighbour, Long owner) {
+        Set<Long> holders = heldBy.get(neighbour);
+        if (holders == null) return;
+        holders.remove(owner);
+        if (holders.isEmpty()) heldBy.remove(neighbour);
+    }
+
+    private Set<Long> nearestCandidates(CatalogEntry entry) {
+        Set<Long> result = new HashSet<>();
+        Priced at = Priced.of(entry);
+        nearest(group(byBrand, entry.facet("brand")), at, result);
+        nearest(group(byBody, entry.facet(bodyFacet)), at, result);
+        result.remove(entry.getId());
+        return result;
+    }
+
+    private Set<Long> allCandidates(CatalogEntry entry) {
+        Set<Long> result = new HashSet<>();
+        group(byBrand, entry.facet("brand")).forEach(priced -> result.add(priced.id()));
+        group(byBody, entry.facet(bodyFacet)).forEach(priced -> result.add(priced.id()));
+        result.remove(entry.getId());
+        return result;
+    }
+
+    // Walks outwards from at in both directions, taking whichever side is closer in price next
+    private static void nearest(NavigableSet<Priced> group, Priced at, Set<Long> into) {
+        Iterator<Priced> below = group.headSet(at, false).descendingIterator();
+        Iterator<Priced> above = group.tailSet(at, false).iterator();
+        Priced lower = below.hasNext() ? below.next() : null;
+        Priced higher = above.hasNext() ? above.next() : null;
+        for (int taken = 0; taken < CANDIDATES_PER_GROUP && (lower != null || higher != null); taken++) {
+            if (higher == null || (lower != null && at.price() - lower.price() <= higher.price() - at.price())) {
+                into.add(lower.id());
+                lower = below.hasNext() ? below.next() : null;
+            } else {
+                into.add(higher.id());
+                higher = above.hasNext() ? above.next() : null;
+            }
+        }
+    }
+
+    // ==================== SCORING ====================
+
+    private double score(CatalogEntry a, CatalogEntry b) {
+        double score = 0;
+        if (same(a.facet("brand"), b.facet("brand"))) score += 3;
+        if (same(a.facet("model"), b.facet("model"))) score += 2;
+        if (same(a.facet(bodyFacet), b.facet(bodyFacet))) score += 1;
+        score += relativeCloseness(a.number("price"), b.number("price"));
+        score += yearCloseness(a.number("year"), b.number("year"));
+        score += relativeCloseness(a.number("mileage"), b.number("mileage"));
+        return score;
+    }
+
+    private static boolean same(String a, String b) {
+        return a != null && a.equalsIgnoreCase(b);
+    }
+
+    // 1 for equal values, 0.5 when one is double the other, 0 when either is unknown
+    private static double relativeCloseness(Double a, Double b) {
+        if (a == null || b == null) return 0;
+        double larger = Math.max(Math.abs(a), Math.abs(b));
+        if (larger == 0) return 1;
+        return 1 - Math.min(1, Math.abs(a - b) / larger);
+    }
+
+    // 1 for the same year, down to 0 at ten years apart
+    private static double yearCloseness(Double a, Double b) {
+        if (a == null || b == null) return 0;
+        return 1 - Math.min(1, Math.abs(a - b) / 10);
+    }
+
+    // Listings without a value are left out of the group, so a missing brand never matches another one
+    private static void group(Map<String, NavigableSet<Priced>> groups, String value, CatalogEntry entry) {
+        if (value == null) return;
+        groups.computeIfAbsent(value.toLowerCase(), k -> new TreeSet<>(Priced.ORDER)).add(Priced.of(entry));
+    }
+
+    private static void ungroup(Map<String, NavigableSet<Priced>> groups, String value, CatalogEntry entry) {
+        if (value == null) return;
+        NavigableSet<Priced> members = groups.get(value.toLowerCase());
+        if (members == null) return;
+        members.remove(Priced.of(entry));
+        if (members.isEmpty()) groups.remove(value.toLowerCase());
+    }
+
+    private static NavigableSet<Priced> group(Map<String, NavigableSet<Priced>> groups, String value) {
+        if (value == null) return Collections.emptyNavigableSet();
+        return groups.getOrDefault(value.toLowerCase(), Collections.emptyNavigableSet());
+    }
+}
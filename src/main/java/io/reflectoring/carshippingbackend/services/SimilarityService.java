@@ -0,0 +1,130 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.repository.CarRepository;
+import io.reflectoring.carshippingbackend.repository.CommercialVehicleRepository;
+import io.reflectoring.carshippingbackend.repository.MotorcycleRepository;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+
+/**
+ * Serves the /similar endpoints from precomputed top-K neighbour lists ({@link SimilarListings}), one per
+ * vehicle type. The lists are built when the application is ready and refreshed from
+ * {@link ListingChangedEvent}s; until then callers fall back to their repository queries. As with
+ * {@link CatalogIndexService}, a rebuild computes fresh lists off to the side, replays the changes that
+ * arrived meanwhile and swaps them in.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class SimilarityService {
+
+    private static final int LOAD_BATCH_SIZE = 500;
+
+    private final CarRepository carRepository;
+    private final MotorcycleRepository motorcycleRepository;
+    private final CommercialVehicleRepository commercialVehicleRepository;
+
+    // Replaced as a whole by a rebuild
+    private volatile Map<VehicleType, SimilarListings> listings = emptyListings();
+
+    // Guards applying a change against the swap; changes is non-null while a rebuild is loading
+    private final Object swap = new Object();
+    private List<Change> changes;
+
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        synchronized (swap) {
+            changes = new ArrayList<>();
+        }
+
+        Map<VehicleType, SimilarListings> fresh = emptyListings();
+        try {
+            ListingIds.forEachById(carRepository, CarSpecification.byApprovedStatus(), LOAD_BATCH_SIZE,
+                    Car::getId, car -> fresh.get(VehicleType.CAR).upsert(CatalogEntry.ofCar(car)));
+            ListingIds.forEachById(motorcycleRepository, MotorcycleSpecification.byApprovedStatus(), LOAD_BATCH_SIZE,
+                    Motorcycle::getId,
+                    motorcycle -> fresh.get(VehicleType.MOTORCYCLE).upsert(CatalogEntry.ofMotorcycle(motorcycle)));
+            ListingIds.forEachById(commercialVehicleRepository, CommercialVehicleSpecification.byApprovedStatus(),
+                    LOAD_BATCH_SIZE, CommercialVehicle::getId,
+                    vehicle -> fresh.get(VehicleType.COMMERCIALVEHICLE).upsert(CatalogEntry.ofCommercialVehicle(vehicle)));
+        } catch (RuntimeException e) {
+            synchronized (swap) {
+                changes = null;
+            }
+            throw e;
+        }
+
+        int replayed;
+        synchronized (swap) {
+            replayed = changes.size();
+            changes.forEach(change -> change.applyTo(fresh));
+            changes = null;
+            listings = fresh;
+        }
+        ready = true;
+        log.info("Similar listings computed in {} ms: {} cars, {} motorcycles, {} commercial vehicles ({} changes replayed)",
+                System.currentTimeMillis() - started,
+                fresh.get(VehicleType.CAR).size(),
+                fresh.get(VehicleType.MOTORCYCLE).size(),
+                fresh.get(VehicleType.COMMERCIALVEHICLE).size(),
+                replayed);
+    }
+
+    private static Map<VehicleType, SimilarListings> emptyListings() {
+        return new EnumMap<>(Map.of(
+                VehicleType.CAR, new SimilarListings("bodyType"),
+                VehicleType.MOTORCYCLE, new SimilarListings("type"),
+                VehicleType.COMMERCIALVEHICLE, new SimilarListings("bodyType")
+        ));
+    }
+
+    @Order(ListingChangedEvent.READ_MODELS)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onListingChanged(ListingChangedEvent event) {
+        Change change = new Change(event.getVehicleType(), event.getListingId(),
+                event.isDeleted() ? null : CatalogEntry.from(event.getListing()));
+        synchronized (swap) {
+            change.applyTo(listings);
+            if (changes != null) changes.add(change);
+        }
+    }
+
+    // A change as read from its event, so replaying it later does not touch the entity again
+    private record Change(VehicleType type, Long id, CatalogEntry entry) {
+        void applyTo(Map<VehicleType, SimilarListings> listings) {
+            if (entry == null) {
+                listings.get(type).remove(id);
+            } else {
+                listings.get(type).upsert(entry);
+            }
+        }
+    }
+
+    /**
+     * Ids of the listings most similar to the listing being viewed (excludeId), best first. When that
+     * listing is not an APPROVED one, ranks by brand and model alone. Empty means not loaded yet.
+     */
+    public Optional<List<Long>> similar(VehicleType type, String brand, String model, Long excludeId) {
+        if (!ready) return Optional.empty();
+        SimilarListings similar = listings.get(type);
+        List<Long> ids = excludeId == null ? null : similar.similarTo(excludeId, SimilarListings.TOP_K);
+        if (ids == null) {
+            ids = similar.similarTo(CatalogEntry.probe(type, brand, model), excludeId, SimilarListings.TOP_K);
+        }
+        return Optional.of(ids);
+    }
+}
@@ -0,0 +1,264 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Keeps a few connected, authenticated SMTP transports open so consecutive emails skip the TCP, TLS and
+ * AUTH handshakes that {@code JavaMailSender.send} repeats for every call. {@link #sendBatch} sends a
+ * whole batch over one borrowed connection.
+ *
+ * At most max-connections are open at a time. Idle connections are reused newest first and closed after
+ * idle-timeout-seconds (most servers drop them soon after anyway), and a connection is retired after
+ * max-messages-per-connection. A reused connection that turns out to be dead is replaced and the message
+ * retried once. The connection settings are the spring.mail ones, so pointing spring.mail.host/port at a
+ * local SMTP stand-in is all a test needs.
+ *
+ * Metrics: email.smtp.send (per message), email.smtp.connections (tag outcome=opened|reused),
+ * email.smtp.connection.reuse.ratio and email.smtp.connections.idle.
+ */
+@Slf4j
+@Service
+public class SmtpConnectionPool {
+
+    private static final class Connection {
+        final Transport transport;
+        long lastUsed;
+        int sent;
+
+        Connection(Transport transport) {
+            this.transport = transport;
+            this.lastUsed = System.currentTimeMillis();
+        }
+    }
+
+    private final JavaMailSenderImpl mailSender;
+    private final boolean enabled;
+    private final long idleTimeoutMs;
+    private final int maxMessagesPerConnection;
+    private final long acquireTimeoutMs;
+    private final Semaphore permits;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed;
+
+    private final Timer sendTimer;
+    private final Counter opened;
+    private final Counter reused;
+
+    public SmtpConnectionPool(JavaMailSenderImpl mailSender, MeterRegistry meterRegistry,
+                              @Value("${app.smtp-pool.enabled:true}") boolean enabled,
+                              @Value("${app.smtp-pool.max-connections:4}") int maxConnections,
+                              @Value("${app.smtp-pool.idle-timeout-seconds:30}") long idleTimeoutSeconds,
+                              @Value("${app.smtp-pool.max-messages-per-connection:100}") int maxMessagesPerConnection,
+                              @Value("${app.smtp-pool.acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        this.mailSender = mailSender;
+        this.enabled = enabled;
+        this.idleTimeoutMs = idleTimeoutSeconds * 1000;
+        this.maxMessagesPerConnection = maxMessagesPerConnection;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.permits = new Semaphore(Math.max(1, maxConnections));
+        this.evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "smtp-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeoutMs / 2);
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+
+        this.sendTimer = Timer.builder("email.smtp.send").register(meterRegistry);
+        this.opened = Counter.builder("email.smtp.connections").tag("outcome", "opened").register(meterRegistry);
+        this.reused = Counter.builder("email.smtp.connections").tag("outcome", "reused").register(meterRegistry);
+        Gauge.builder("email.smtp.connection.reuse.ratio", this, pool -> pool.reuseRatio()).register(meterRegistry);
+        Gauge.builder("email.smtp.connections.idle", idle, pool -> {
+            synchronized (pool) {
+                return pool.size();
+            }
+        }).register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        evictor.shutdownNow();
+        List<Connection> toClose;
+        synchronized (idle) {
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        toClose.forEach(SmtpConnectionPool::close);
+    }
+
+    /**
+     * Sends the messages in order over one connection.
+     *
+     * @return one entry per message: null when it was accepted by the server, otherwise the failure
+     */
+    public List<Exception> sendBatch(List<MimeMessage> messages) {
+        return sendBatch(messages, index -> true);
+    }
+
+    /**
+     * Like {@link #sendBatch(List)}, but asks {@code beforeSend} right before each message goes out; a
+     * message it rejects is not sent and gets a {@link CancellationException} as its result.
+     */
+    public List<Exception> sendBatch(List<MimeMessage> messages, IntPredicate beforeSend) {
+        List<Exception> results = new ArrayList<>(messages.size());
+        if (messages.isEmpty()) return results;
+
+        if (!enabled) {
+            for (MimeMessage message : messages) {
+                if (!beforeSend.test(results.size())) {
+                    results.add(new CancellationException("Skipped"));
+                    continue;
+                }
+                try {
+                    sendTimer.record(() -> mailSender.send(message));
+                    results.add(null);
+                } catch (Exception e) {
+                    results.add(e);
+                }
+            }
+            return results;
+        }
+
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                Exception busy = new IllegalStateException("No SMTP connection available");
+                messages.forEach(message -> results.add(busy));
+                return results;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            messages.forEach(message -> results.add(e));
+            return results;
+        }
+
+        Connection connection = null;
+        try {
+            for (MimeMessage message : messages) {
+                if (!beforeSend.test(results.size())) {
+                    results.add(new CancellationException("Skipped"));
+                    continue;
+                }
+                Exception failure;
+                try {
+                    if (connection == null) connection = borrow();
+                    failure = send(connection, message);
+                    if (failure != null && !connection.transport.isConnected()) {
+                        // The server dropped the connection (idle timeout, restart); retry once on a fresh one
+                        close(connection);
+                        connection = null;
+                        connection = open();
+                        failure = send(connection, message);
+                    }
+                } catch (MessagingException e) {
+                    failure = e;
+                }
+                results.add(failure);
+            }
+        } finally {
+            if (connection != null) release(connection);
+            permits.release();
+        }
+        return results;
+    }
+
+    private Exception send(Connection connection, MimeMessage message) {
+        try {
+            sendTimer.recordCallable(() -> {
+                if (message.getSentDate() == null) message.setSentDate(new Date());
+                message.saveChanges();
+                connection.transport.sendMessage(message, message.getAllRecipients());
+                return null;
+            });
+            connection.sent++;
+            return null;
+        } catch (Exception e) {
+            return e;
+        }
+    }
+
+    private Connection borrow() throws MessagingException {
+        long now = System.currentTimeMillis();
+        while (true) {
+            Connection connection;
+            synchronized (idle) {
+                connection = idle.pollFirst();
+            }
+            if (connection == null) return open();
+            if (now - connection.lastUsed < idleTimeoutMs) {
+                reused.increment();
+                return connection;
+            }
+            close(connection);
+        }
+    }
+
+    private Connection open() throws MessagingException {
+        Transport transport = mailSender.getSession().getTransport(
+                mailSender.getProtocol() == null ? "smtp" : mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                mailSender.getUsername(), mailSender.getPassword());
+        opened.increment();
+        return new Connection(transport);
+    }
+
+    private void release(Connection connection) {
+        if (closed || connection.sent >= maxMessagesPerConnection) {
+            close(connection);
+            return;
+        }
+        connection.lastUsed = System.currentTimeMillis();
+        synchronized (idle) {
+            idle.offerFirst(connection);
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMs;
+        List<Connection> expired = new ArrayList<>();
+        synchronized (idle) {
+            // Newest first, so the expired ones are at the tail
+            while (!idle.isEmpty() && idle.peekLast().lastUsed < cutoff) {
+                expired.add(idle.pollLast());
+            }
+        }
+        expired.forEach(SmtpConnectionPool::close);
+    }
+
+    private double reuseRatio() {
+        double total = opened.count() + reused.count();
+        return total == 0 ? 0 : reused.count() / total;
+    }
+
+    private static void close(Connection connection) {
+        try {
+            connection.transport.close();
+        } catch (MessagingException e) {
+            log.debug("Closing SMTP connection failed: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
+import io.reflectoring.carshippingbackend.DTO.UnifiedSearchPage;
+import io.reflectoring.carshippingbackend.Enum.VehicleType;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Backs GET /api/search: one search over cars, motorcycles and commercial vehicles at once.
+ *
+ * The three searches run in parallel, each served by its {@link CatalogIndex} or else its Specification
+ * query, and each returns its first (page + 1) * size cards in the requested sort order. Those lists are
+ * k-way merged by the sort key and the requested page is cut from the merged order. The whole fan-out
+ * shares one time budget; a vehicle type that has not answered by then is left out and reported.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class UnifiedSearchService {
+
+    static final int MAX_PAGE_SIZE = 48;
+    // Deepest row a page may reach; every type loads that many cards, so deep pages get expensive fast
+    static final int MAX_WINDOW = 480;
+
+    private static final List<VehicleType> TYPES =
+            List.of(VehicleType.CAR, VehicleType.MOTORCYCLE, VehicleType.COMMERCIALVEHICLE);
+    private static final List<String> COMMON_PARAMS =
+            List.of("search", "brand", "model", "location", "minPrice", "maxPrice", "minYear", "maxYear");
+
+    private final CatalogIndexService catalogIndex;
+    private final ListingCardService cards;
+
+    @Value("${app.unified-search.timeout-ms:1500}")
+    private long timeoutMs;
+
+    // Bounded, so a burst of searches queues up to a limit and is then refused instead of piling up threads
+    private final ThreadPoolExecutor executor = new ThreadPoolExecutor(6, 6, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(60), daemonThreads("unified-search-"));
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * One merged page of APPROVED listings of every vehicle type.
+     *
+     * @param params common filters: search, brand, model, location, minPrice, maxPrice, minYear, maxYear
+     * @param sort   "price" or "year", optionally followed by ",asc" or ",desc" (default "price,desc")
+     */
+    public UnifiedSearchPage search(Map<String, String> params, int page, int size, String sort) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("page must be >= 0 and size between 1 and " + MAX_PAGE_SIZE);
+        }
+        int window = (page + 1) * size;
+        if (window > MAX_WINDOW) {
+            throw new IllegalArgumentException("Only the first " + MAX_WINDOW + " results can be paged through");
+        }
+        SortKey key = SortKey.parse(sort);
+        Map<String, String> filters = new HashMap<>();
+        COMMON_PARAMS.forEach(name -> {
+            String value = params.get(name);
+            if (value != null && !value.isBlank()) filters.put(name, value.trim());
+        });
+
+        Map<VehicleType, CompletableFuture<Page<ListingCardDTO>>> futures = new EnumMap<>(VehicleType.class);
+        for (VehicleType type : TYPES) {
+            futures.put(type, submit(() -> searchType(type, filters, key, window)));
+        }
+        awaitAll(futures.values());
+
+        Map<String, UnifiedSearchPage.TypeSummary> types = new LinkedHashMap<>();
+        List<List<ListingCardDTO>> lists = new ArrayList<>();
+        long total = 0;
+        boolean partial = false;
+        for (VehicleType type : TYPES) {
+            CompletableFuture<Page<ListingCardDTO>> future = futures.get(type);
+            if (!future.isDone()) {
+                // The query itself runs on; its result is simply not waited for
+                future.cancel(true);
+                types.put(type.name(), new UnifiedSearchPage.TypeSummary("TIMEOUT", 0));
+                partial = true;
+            } else if (future.isCompletedExceptionally()) {
+                future.exceptionally(e -> {
+                    log.warn("Unified search failed for {}: {}", type, e.getMessage());
+                    return null;
+                });
+                types.put(type.name(), new UnifiedSearchPage.TypeSummary("FAILED", 0));
+                partial = true;
+            } else {
+                Page<ListingCardDTO> result = future.join();
+                types.put(type.name(), new UnifiedSearchPage.TypeSummary("OK", result.getTotalElements()));
+                lists.add(result.getContent());
+                total += result.getTotalElements();
+            }
+        }
+
+        List<ListingCardDTO> content = merge(lists, key.comparator(), page * size, size);
+        int totalPages = (int) ((total + size - 1) / size);
+        return new UnifiedSearchPage(content, page, size, total, totalPages, partial, types);
+    }
+
+    // ==================== PER-TYPE SEARCHES ====================
+
+    // The first window cards of one type, in sort order; keyword hits are not ranked so the lists merge
+    private Page<ListingCardDTO> searchType(VehicleType type, Map<String, String> filters, SortKey key, int window) {
+        switch (type) {
+            case CAR: {
+                Map<String, String> params = new HashMap<>(filters);
+                rename(params, "minPrice", "price_gte");
+                rename(params, "maxPrice", "price_lte");
+                rename(params, "minYear", "year_gte");
+                rename(params, "maxYear", "year_lte");
+                return searchType(type, Car.class, params, key.isPrice() ? "priceKesValue" : "yearValue",
+                        key.direction(), window,
+                        CarSpecification.byFilters(params).and(CarSpecification.byApprovedStatus()));
+            }
+            case MOTORCYCLE: {
+                Map<String, String> params = new HashMap<>(filters);
+                params.put("status", "APPROVED");
+                return searchType(type, Motorcycle.class, params, key.isPrice() ? "price" : "year",
+                        key.direction(), window, MotorcycleSpecification.byFilters(params));
+            }
+            default: {
+                Map<String, String> params = new HashMap<>(filters);
+                params.put("status", "APPROVED");
+                return searchType(type, CommercialVehicle.class, params, key.isPrice() ? "priceKes" : "yearValue",
+                        key.direction(), window, CommercialVehicleSpecification.byFilters(params));
+            }
+        }
+    }
+
+    private <T> Page<ListingCardDTO> searchType(VehicleType type, Class<T> entity, Map<String, String> params,
+                                                String property, Sort.Direction direction, int window,
+                                                Specification<T> spec) {
+        var hits = catalogIndex.searchInSortOrder(type, params,
+                PageRequest.of(0, window, Sort.by(direction, property)));
+        if (hits.isPresent()) {
+            return catalogIndex.toPage(hits.get(), ids -> cards.findByIds(entity, ids), ListingCardDTO::getId,
+                    PageRequest.of(0, window));
+        }
+        // id breaks ties, so a deeper window never reorders the rows a shallower one returned
+        return cards.find(entity, spec, PageRequest.of(0, window, Sort.by(direction, property, "id")));
+    }
+
+    private static void rename(Map<String, String> params, String from, String to) {
+        String value = params.remove(from);
+        if (value != null) params.put(to, value);
+    }
+
+    // ==================== FAN-OUT AND MERGE ====================
+
+    private CompletableFuture<Page<ListingCardDTO>> submit(Callable<Page<ListingCardDTO>> search) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return search.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // Waits for all searches, but never longer than the budget in total
+    private void awaitAll(Collection<CompletableFuture<Page<ListingCardDTO>>> futures) {
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Inspected per type by the caller
+        }
+    }
+
+    private record Head(int list, int position, ListingCardDTO card) {}
+
+    // K-way merge of lists already in comparator order; equal keys keep the order of the lists
+    static List<ListingCardDTO> merge(List<List<ListingCardDTO>> lists, Comparator<ListingCardDTO> order,
+                                      int offset, int limit) {
+        PriorityQueue<Head> heads = new PriorityQueue<>(lists.size() + 1,
+                Comparator.comparing(Head::card, order).thenComparingInt(Head::list));
+        for (int i = 0; i < lists.size(); i++) {
+            if (!lists.get(i).isEmpty()) heads.add(new Head(i, 0, lists.get(i).get(0)));
+        }
+        List<ListingCardDTO> page = new ArrayList<>(limit);
+        int skipped = 0;
+        while (!heads.isEmpty() && page.size() < limit) {
+            Head head = heads.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                page.add(head.card());
+            }
+            List<ListingCardDTO> list = lists.get(head.list());
+            int next = head.position() + 1;
+            if (next < list.size()) heads.add(new Head(head.list(), next, list.get(next)));
+        }
+        return page;
+    }
+
+    record SortKey(boolean isPrice, Sort.Direction direction) {
+
+        static SortKey parse(String sort) {
+            String[] parts = (sort == null || sort.isBlank() ? "price,desc" : sort).split(",");
+            String property = parts[0].trim().toLowerCase();
+            if (!property.equals("price") && !property.equals("year")) {
+                throw new IllegalArgumentException("sort must be price or year");
+            }
+            Sort.Direction direction = parts.length > 1 && parts[1].trim().equalsIgnoreCase("asc")
+                    ? Sort.Direction.ASC
+                    : Sort.Direction.DESC;
+            return new SortKey(property.equals("price"), direction);
+        }
+
+        // Same order MySQL and the catalog index produce: NULLs first ascending, last descending
+        Comparator<ListingCardDTO> comparator() {
+            Function<ListingCardDTO, Double> value = isPrice
+                    ? ListingCardDTO::getPrice
+                    : card -> card.getYear() == null ? null : card.getYear().doubleValue();
+            Comparator<ListingCardDTO> ascending =
+                    Comparator.comparing(value, Comparator.nullsFirst(Comparator.naturalOrder()));
+            return direction.isAscending() ? ascending : ascending.reversed();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
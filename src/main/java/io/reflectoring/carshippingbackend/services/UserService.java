@@ -30,7 +30,9 @@ public class UserService implements UserDetailsService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final Cloudinary cloudinary;
+    private final ImageUploadService imageUploads;
     private final EmailService emailService;
+    private final PrincipalCache principalCache;
 
     public User createUser(SignupRequest signupRequest, Set<Role> roles) {
         if (userRepository.existsByEmail(signupRequest.getEmail())) {
@@ -113,6 +115,7 @@ public class UserService implements UserDetailsService {
     public User updateUser(Long id, UpdateUserRequest request) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        String previousEmail = user.getEmail();
 
         // Update basic fields if provided
         if (request.getFirstName() != null) user.setFirstName(request.getFirstName());
@@ -143,7 +146,10 @@ public class UserService implements UserDetailsService {
         if (request.getBusinessPermitNumber() != null) user.setBusinessPermitNumber(request.getBusinessPermitNumber());
         if (request.getCompanyAddress() != null) user.setCompanyAddress(request.getCompanyAddress());
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // The email is the principal's name, so signed-in sessions under the old one must not linger
+        principalCache.evict(previousEmail);
+        return saved;
     }
 
     public User updateUserRoles(Long id, String role, String action) {
@@ -161,7 +167,9 @@ public class UserService implements UserDetailsService {
                 throw new RuntimeException("Invalid action. Use 'ADD' or 'REMOVE'");
             }
 
-            return userRepository.save(user);
+            User saved = userRepository.save(user);
+            principalCache.evict(saved.getEmail());
+            return saved;
         } catch (IllegalArgumentException e) {
             throw new RuntimeException("Invalid role: " + role);
         }
@@ -171,6 +179,7 @@ public class UserService implements UserDetailsService {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         userRepository.delete(user);
+        principalCache.evict(user.getEmail());
     }
 
     public String saveProfilePicture(Long userId, MultipartFile file) {
@@ -196,8 +205,8 @@ public class UserService implements UserDetailsService {
                     Objects.requireNonNull(file.getOriginalFilename()).replaceAll("\\s+", "_");
 
             // Upload to Cloudinary
-            Map uploadResult = cloudinary.uploader().upload(
-                    file.getBytes(),
+            Map uploadResult = imageUploads.upload(
+                    file,
                     ObjectUtils.asMap(
                             "public_id", "profile-pictures/" + uniqueFileName,
                             "resource_type", "auto",
@@ -270,6 +279,7 @@ public class UserService implements UserDetailsService {
 
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCache.evict(user.getEmail());
     }
 
     public User save(User user) {
@@ -314,7 +324,9 @@ public class UserService implements UserDetailsService {
                 user.getFirstName()
         );
 
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        principalCache.evict(saved.getEmail());
+        return saved;
     }
 
     public Page<User> findAllUsers(Pageable pageable) {
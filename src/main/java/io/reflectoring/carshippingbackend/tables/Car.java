@@ -1,6 +1,9 @@
 package io.reflectoring.carshippingbackend.tables;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.reflectoring.carshippingbackend.Util.NumberNormalizer;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -12,7 +15,11 @@ import java.util.UUID;
 @Getter
 @Setter
 @Entity
-@Table(name = "cars")
+@Table(name = "cars", indexes = {
+        @Index(name = "idx_cars_status_price", columnList = "status, price_kes_value"),
+        @Index(name = "idx_cars_year_value", columnList = "year_value"),
+        @Index(name = "idx_cars_mileage_km_value", columnList = "mileage_km_value")
+})
 public class Car {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -58,6 +65,23 @@ public class Car {
     @Column(name = "price_kes")
     private String priceKes;
 
+    // Typed shadows of the free-text columns above, kept in sync on every write for range filters and sorting
+    @JsonIgnore
+    @Column(name = "price_kes_value")
+    private Double priceKesValue;
+
+    @JsonIgnore
+    @Column(name = "year_value")
+    private Integer yearValue;
+
+    @JsonIgnore
+    @Column(name = "mileage_km_value")
+    private Integer mileageKmValue;
+
+    @JsonIgnore
+    @Column(name = "engine_capacity_cc_value")
+    private Integer engineCapacityCcValue;
+
     // FIX 1: Change LONGTEXT to CLOB for Oracle
     @Lob
     @Column(columnDefinition = "LONGTEXT")
@@ -80,6 +104,7 @@ public class Car {
     private String customSpecs;
 
     // Image URLs mapped to a separate table with FK to cars
+    @BatchSize(size = 50)
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(
             name = "car_image_urls",
@@ -105,4 +130,13 @@ public class Car {
     private String buyerEmail;
     @Column(name = "source_type")
     private String sourceType = "CAR";
+
+    @PrePersist
+    @PreUpdate
+    public void syncNumericColumns() {
+        this.priceKesValue = NumberNormalizer.toDouble(priceKes);
+        this.yearValue = NumberNormalizer.toInteger(yearOfManufacture);
+        this.mileageKmValue = NumberNormalizer.toInteger(mileageKm);
+        this.engineCapacityCcValue = NumberNormalizer.toInteger(engineCapacityCc);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package io.reflectoring.carshippingbackend.tables;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.reflectoring.carshippingbackend.Util.NumberNormalizer;
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -11,7 +14,11 @@ import java.util.List;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@Table(name = "commercial_vehicle")
+@Table(name = "commercial_vehicle", indexes = {
+        @Index(name = "idx_commercial_vehicle_status_price", columnList = "status, price_kes"),
+        @Index(name = "idx_commercial_vehicle_year_value", columnList = "year_value"),
+        @Index(name = "idx_commercial_vehicle_mileage_km_value", columnList = "mileage_km_value")
+})
 public class CommercialVehicle {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -63,6 +70,23 @@ public class CommercialVehicle {
     @Column(name = "price_kes")
     private Double priceKes;
 
+    // Typed shadows of the free-text columns above, kept in sync on every write for range filters and sorting
+    @JsonIgnore
+    @Column(name = "year_value")
+    private Integer yearValue;
+
+    @JsonIgnore
+    @Column(name = "mileage_km_value")
+    private Integer mileageKmValue;
+
+    @JsonIgnore
+    @Column(name = "engine_capacity_cc_value")
+    private Integer engineCapacityCcValue;
+
+    @JsonIgnore
+    @Column(name = "payload_capacity_kg_value")
+    private Integer payloadCapacityKgValue;
+
     private String description;
     private String location;
 
@@ -83,6 +107,7 @@ public class CommercialVehicle {
     @Column(columnDefinition = "LONGTEXT")
     private String customSpecs; // JSON string
 
+    @BatchSize(size = 50)
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(
             name = "commercial_vehicle_images",
@@ -108,4 +133,13 @@ public class CommercialVehicle {
 
     @Column(name = "source_type")
     private String sourceType = "COMMERCIALVEHICLE";
+
+    @PrePersist
+    @PreUpdate
+    public void syncNumericColumns() {
+        this.yearValue = NumberNormalizer.toInteger(yearOfManufacture);
+        this.mileageKmValue = NumberNormalizer.toInteger(mileageKm);
+        this.engineCapacityCcValue = NumberNormalizer.toInteger(engineCapacityCc);
+        this.payloadCapacityKgValue = NumberNormalizer.toInteger(payloadCapacityKg);
+    }
 }
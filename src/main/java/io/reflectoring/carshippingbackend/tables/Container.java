@@ -1,6 +1,7 @@
 package io.reflectoring.carshippingbackend.tables;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.*;
 
 import java.util.List;
@@ -32,6 +33,7 @@ public class Container {
     private String status; // e.g. Available, Sold
 
     // FIX: Add proper collection mapping for Oracle
+    @BatchSize(size = 50)
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(
             name = "container_images",
@@ -0,0 +1,68 @@
+package io.reflectoring.carshippingbackend.tables;
+
+import io.reflectoring.carshippingbackend.Enum.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An email waiting to be sent (or kept for a while after). Written in the same transaction as the change
+ * it reports on and delivered later by {@link io.reflectoring.carshippingbackend.services.EmailOutboxService}.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_due", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_email_outbox_coalesce", columnList = "coalesce_key, recipient"),
+        @Index(name = "idx_email_outbox_age", columnList = "status, created_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EmailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String recipient;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Lob
+    @Column(nullable = false, columnDefinition = "LONGTEXT")
+    private String body;
+
+    private boolean html;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private OutboxStatus status;
+
+    private int attempts;
+
+    // When PENDING: not before this time; when SENDING: the claim lapses at this time
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime sentAt;
+
+    @Column(length = 1000)
+    private String lastError;
+
+    // Later notifications with the same key and recipient are merged into this row while it is PENDING
+    @Column(name = "coalesce_key", length = 100)
+    private String coalesceKey;
+
+    // Whatever the sender needs to merge the next notification in (e.g. the changes listed so far)
+    @Lob
+    @Column(columnDefinition = "TEXT")
+    private String coalesceState;
+}
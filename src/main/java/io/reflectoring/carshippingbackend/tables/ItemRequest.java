@@ -1,6 +1,7 @@
 package io.reflectoring.carshippingbackend.tables;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.Data;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -32,6 +33,7 @@ public class ItemRequest {
     @Column(length = 1000)
     private String description;
 
+    @BatchSize(size = 50)
     @ElementCollection
     @CollectionTable(name = "item_images", joinColumns = @JoinColumn(name = "item_request_id"))
     private List<String> imageUrls;
@@ -1,6 +1,7 @@
 package io.reflectoring.carshippingbackend.tables;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import lombok.*;
 
 import java.time.LocalDateTime;
@@ -31,6 +32,7 @@ public class Motorcycle {
     private Integer year;
  private  Integer mileageKm;
     // FIX: Proper collection mapping for features
+    @BatchSize(size = 50)
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(
             name = "motorcycle_features",
@@ -40,6 +42,7 @@ public class Motorcycle {
     private List<String> features;
 
     // FIX: Proper collection mapping for images + change TEXT to VARCHAR2
+    @BatchSize(size = 50)
     @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(
             name = "motorcycle_images",
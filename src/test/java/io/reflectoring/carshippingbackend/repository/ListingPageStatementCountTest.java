@@ -0,0 +1,196 @@
+package io.reflectoring.carshippingbackend.repository;
+
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
+import io.reflectoring.carshippingbackend.services.CarSpecification;
+import io.reflectoring.carshippingbackend.services.CommercialVehicleSpecification;
+import io.reflectoring.carshippingbackend.services.ListingCardService;
+import io.reflectoring.carshippingbackend.services.MotorcycleSpecification;
+import io.reflectoring.carshippingbackend.tables.Car;
+import io.reflectoring.carshippingbackend.tables.CommercialVehicle;
+import io.reflectoring.carshippingbackend.tables.ItemRequest;
+import io.reflectoring.carshippingbackend.tables.Motorcycle;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against an in-memory H2 database in MySQL mode instead of MySQL
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:listings;MODE=MySQL;NON_KEYWORDS=YEAR,VALUE",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import(ListingCardService.class)
+class ListingPageStatementCountTest {
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private MotorcycleRepository motorcycleRepository;
+
+	@Autowired
+	private CommercialVehicleRepository commercialVehicleRepository;
+
+	@Autowired
+	private ItemRequestRepository itemRequestRepository;
+
+	@Autowired
+	private ListingCardService cards;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < 30; i++) {
+			Car car = new Car();
+			car.setBrand("Toyota");
+			car.setModel("Model " + i);
+			car.setStatus("APPROVED");
+			car.setImageUrls(images(i));
+			entityManager.persist(car);
+
+			Motorcycle motorcycle = new Motorcycle();
+			motorcycle.setBrand("Honda");
+			motorcycle.setModel("Model " + i);
+			motorcycle.setStatus("APPROVED");
+			motorcycle.setFeatures(List.of("ABS", "Heated grips"));
+			motorcycle.setImageUrls(images(i));
+			entityManager.persist(motorcycle);
+
+			CommercialVehicle vehicle = new CommercialVehicle();
+			vehicle.setBrand("Isuzu");
+			vehicle.setModel("Model " + i);
+			vehicle.setStatus("APPROVED");
+			vehicle.setImageUrls(images(i));
+			entityManager.persist(vehicle);
+
+			ItemRequest request = new ItemRequest();
+			request.setRequestId("REQ-" + i);
+			request.setClientName("Client " + i);
+			request.setClientEmail("client" + i + "@example.com");
+			request.setItemName("Item " + i);
+			request.setStatus("PENDING");
+			request.setImageUrls(images(i));
+			entityManager.persist(request);
+		}
+		entityManager.flush();
+		entityManager.clear();
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	@Test
+	void carPageRunsTheSameStatementsWhateverItsSize() {
+		// The page query, the count query and one batched load of the image URLs
+		assertStatements(3, pageable -> {
+			Page<Car> page = carRepository.findAll(CarSpecification.byApprovedStatus(), pageable);
+			page.forEach(car -> assertThat(car.getImageUrls()).hasSize(2));
+			return page.getNumberOfElements();
+		});
+	}
+
+	@Test
+	void motorcyclePageLoadsBothCollectionsInOneBatchEach() {
+		// The page query, the count query, one batched load of the features and one of the image URLs
+		assertStatements(4, pageable -> {
+			Page<Motorcycle> page = motorcycleRepository.findAll(MotorcycleSpecification.byApprovedStatus(), pageable);
+			page.forEach(motorcycle -> {
+				assertThat(motorcycle.getFeatures()).hasSize(2);
+				assertThat(motorcycle.getImageUrls()).hasSize(2);
+			});
+			return page.getNumberOfElements();
+		});
+	}
+
+	@Test
+	void motorcycleSliceLoadsBothCollectionsWithoutACount() {
+		assertStatements(3, pageable -> {
+			Slice<Motorcycle> slice = motorcycleRepository.findBy(MotorcycleSpecification.byApprovedStatus(),
+					q -> q.slice(pageable));
+			slice.forEach(motorcycle -> {
+				assertThat(motorcycle.getFeatures()).hasSize(2);
+				assertThat(motorcycle.getImageUrls()).hasSize(2);
+			});
+			return slice.getNumberOfElements();
+		});
+	}
+
+	@Test
+	void commercialVehiclePageRunsTheSameStatementsWhateverItsSize() {
+		assertStatements(3, pageable -> {
+			Page<CommercialVehicle> page = commercialVehicleRepository.findAll(
+					CommercialVehicleSpecification.byApprovedStatus(), pageable);
+			page.forEach(vehicle -> assertThat(vehicle.getImageUrls()).hasSize(2));
+			return page.getNumberOfElements();
+		});
+	}
+
+	@Test
+	void itemRequestPageRunsTheSameStatementsWhateverItsSize() {
+		assertStatements(3, pageable -> {
+			Page<ItemRequest> page = itemRequestRepository.findAllWithFilters(null, null, pageable);
+			page.forEach(request -> assertThat(request.getImageUrls()).hasSize(2));
+			return page.getNumberOfElements();
+		});
+	}
+
+	@Test
+	void cardPageAndSliceRunTheSameStatementsWhateverTheirSize() {
+		// The card query, the first-image query and, for the page, the count query
+		assertStatements(3, pageable -> {
+			Page<ListingCardDTO> page = cards.find(Motorcycle.class, MotorcycleSpecification.byApprovedStatus(), pageable);
+			page.forEach(card -> assertThat(card.getImageUrl()).isNotNull());
+			return page.getNumberOfElements();
+		});
+		assertStatements(2, pageable -> {
+			Slice<ListingCardDTO> slice = cards.findSlice(Car.class, CarSpecification.byApprovedStatus(), pageable);
+			slice.forEach(card -> assertThat(card.getImageUrl()).isNotNull());
+			return slice.getNumberOfElements();
+		});
+	}
+
+	// Renders a page of 5 and one of 25 (touching what rendering touches) and counts the statements of each
+	private void assertStatements(long expected, Function<Pageable, Integer> render) {
+		for (int size : new int[]{5, 25}) {
+			entityManager.clear();
+			statistics.clear();
+
+			int rendered = render.apply(PageRequest.of(0, size, Sort.by("id")));
+
+			assertThat(rendered).isEqualTo(size);
+			assertThat(statistics.getPrepareStatementCount()).as("statements for a page of %d", size)
+					.isEqualTo(expected);
+		}
+	}
+
+	private static List<String> images(int i) {
+		return List.of("https://res.cloudinary.com/demo/" + i + "-a.jpg",
+				"https://res.cloudinary.com/demo/" + i + "-b.jpg");
+	}
+}
@@ -0,0 +1,41 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AuthRateLimiterTest {
+
+	private final AuthRateLimiter limiter = new AuthRateLimiter(new SimpleMeterRegistry(), true, 5, 1, 1000, 10, 4);
+
+	@Test
+	void successfulLoginsNeverUseUpTheAccountBucket() {
+		for (int i = 0; i < 20; i++) {
+			assertThat(limiter.checkAttempt("login", "owner@example.com", "10.0.0.1")).isZero();
+		}
+	}
+
+	@Test
+	void failedLoginsThrottleOnlyTheAddressMakingThem() {
+		for (int i = 0; i < 5; i++) {
+			assertThat(limiter.checkAttempt("login", "owner@example.com", "10.6.6.6")).isZero();
+			limiter.recordFailure("login", "owner@example.com", "10.6.6.6");
+		}
+
+		assertThat(limiter.checkAttempt("login", "owner@example.com", "10.6.6.6")).isPositive();
+		assertThat(limiter.checkAttempt("login", "Owner@Example.com", "10.0.0.1")).isZero();
+		assertThat(limiter.tryAcquire("forgot-password", "owner@example.com", "10.0.0.1")).isZero();
+	}
+
+	@Test
+	void madeUpEmailsCannotFlushAThrottlingBucket() {
+		for (int i = 0; i < 5; i++) limiter.recordFailure("login", "owner@example.com", "10.6.6.6");
+
+		for (int i = 0; i < 5000; i++) {
+			limiter.recordFailure("login", "made-up-" + i + "@example.com", "10.6.6.6");
+		}
+
+		assertThat(limiter.checkAttempt("login", "owner@example.com", "10.6.6.6")).isPositive();
+	}
+}
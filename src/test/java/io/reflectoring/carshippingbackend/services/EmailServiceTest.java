@@ -0,0 +1,82 @@
+package io.reflectoring.carshippingbackend.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.reflectoring.carshippingbackend.tables.ItemRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+class EmailServiceTest {
+
+	private final EmailOutboxService outbox = mock(EmailOutboxService.class);
+	private final List<EmailOutboxService.Draft> drafts = new ArrayList<>();
+	private final EmailService emails = new EmailService(outbox, new ObjectMapper(), templateEngine());
+
+	// Stands in for one pending outbox row: each coalesced notification is merged into the last draft
+	EmailServiceTest() {
+		ReflectionTestUtils.setField(emails, "appDomain", "https://f-carshipping.com");
+		doAnswer(invocation -> {
+			Function<String, EmailOutboxService.Draft> draft = invocation.getArgument(2);
+			drafts.add(draft.apply(drafts.isEmpty() ? null : drafts.get(drafts.size() - 1).state()));
+			return null;
+		}).when(outbox).enqueueCoalesced(eq("client@example.com"), any(), any());
+	}
+
+	@Test
+	void deliveryDigestCarriesTheStatusesAndTheReviewLink() {
+		ItemRequest order = order();
+		order.setStatus("IN_TRANSIT");
+		emails.sendStatusUpdateEmail(order, "token-1");
+		order.setStatus("DELIVERED");
+		emails.sendStatusUpdateEmail(order, "token-1");
+		emails.sendReviewRequestEmail(order, "token-1");
+
+		EmailOutboxService.Draft digest = drafts.get(drafts.size() - 1);
+		assertThat(digest.subject()).isEqualTo("Order Update - REQ-042");
+		assertThat(digest.body())
+				.contains("Delivered")
+				.contains("In Transit")
+				.contains("https://f-carshipping.com/Reviews/token-1")
+				.contains("Your order has arrived");
+	}
+
+	@Test
+	void reviewRequestOnItsOwnKeepsItsOwnEmail() {
+		emails.sendReviewRequestEmail(order(), "token-1");
+
+		assertThat(drafts.get(0).subject()).isEqualTo("Share your experience with Roof box");
+		assertThat(drafts.get(0).body()).contains("https://f-carshipping.com/Reviews/token-1");
+	}
+
+	private static ItemRequest order() {
+		ItemRequest order = new ItemRequest();
+		order.setId(42L);
+		order.setRequestId("REQ-042");
+		order.setClientName("Ada");
+		order.setClientEmail("client@example.com");
+		order.setItemName("Roof box");
+		order.setCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 0));
+		return order;
+	}
+
+	private static SpringTemplateEngine templateEngine() {
+		ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+		resolver.setPrefix("templates/");
+		resolver.setSuffix(".html");
+		SpringTemplateEngine engine = new SpringTemplateEngine();
+		engine.setTemplateResolver(resolver);
+		return engine;
+	}
+}
@@ -0,0 +1,64 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.DTO.ListingCardDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatestArrivalsTest {
+
+	private final LatestArrivals arrivals = new LatestArrivals(4);
+
+	@Test
+	void refillTopsUpBehindTheHeldListings() {
+		arrivals.reset(loaded(10, 9, 8, 7));
+		arrivals.add(1, card(11));
+
+		arrivals.remove(9L);
+		arrivals.remove(8L);
+		assertThat(arrivals.isFull()).isFalse();
+
+		// What the database now holds, newest first
+		arrivals.refill(cards(11, 10, 7, 6, 5));
+
+		assertThat(ids()).containsExactly(11L, 10L, 7L, 6L);
+		assertThat(arrivals.snapshot()).extracting(LatestArrivals.Arrival::sequence).isSortedAccordingTo(
+				(a, b) -> Long.compare(b, a));
+	}
+
+	@Test
+	void anApprovalMovesAHeldListingToTheFront() {
+		arrivals.reset(loaded(10, 9, 8, 7));
+
+		arrivals.add(1, card(8));
+		arrivals.refresh(card(9));
+
+		assertThat(ids()).containsExactly(8L, 10L, 9L, 7L);
+	}
+
+	private List<Long> ids() {
+		return arrivals.snapshot().stream().map(arrival -> arrival.card().getId()).toList();
+	}
+
+	private static List<LatestArrivals.Arrival> loaded(long... ids) {
+		List<LatestArrivals.Arrival> loaded = new ArrayList<>();
+		for (int rank = 0; rank < ids.length; rank++) {
+			loaded.add(new LatestArrivals.Arrival(-rank, card(ids[rank])));
+		}
+		return loaded;
+	}
+
+	private static List<ListingCardDTO> cards(long... ids) {
+		return LongStream.of(ids).mapToObj(LatestArrivalsTest::card).toList();
+	}
+
+	private static ListingCardDTO card(long id) {
+		ListingCardDTO card = new ListingCardDTO();
+		card.setId(id);
+		return card;
+	}
+}
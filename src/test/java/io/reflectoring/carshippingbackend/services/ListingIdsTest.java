@@ -0,0 +1,75 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.repository.CarRepository;
+import io.reflectoring.carshippingbackend.tables.Car;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs against an in-memory H2 database in MySQL mode instead of MySQL
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DataJpaTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:listing-ids;MODE=MySQL;NON_KEYWORDS=YEAR,VALUE",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.datasource.driver-class-name=org.h2.Driver",
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+class ListingIdsTest {
+
+	@Autowired
+	private CarRepository carRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private final List<Long> ids = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < 10; i++) {
+			Car car = new Car();
+			car.setBrand("Toyota");
+			car.setModel("Model " + i);
+			car.setStatus(i % 5 == 4 ? "PENDING" : "APPROVED");
+			ids.add(entityManager.persistAndGetId(car, Long.class));
+		}
+		entityManager.flush();
+		entityManager.clear();
+	}
+
+	@Test
+	void walksTheMatchingRowsInIdOrder() {
+		List<Long> visited = new ArrayList<>();
+
+		ListingIds.forEachById(carRepository, CarSpecification.byApprovedStatus(), 3, Car::getId,
+				car -> visited.add(car.getId()));
+
+		assertThat(visited).containsExactly(ids.get(0), ids.get(1), ids.get(2), ids.get(3),
+				ids.get(5), ids.get(6), ids.get(7), ids.get(8));
+	}
+
+	@Test
+	void deletingRowsAlreadyReadDoesNotSkipTheNextBatch() {
+		List<Long> visited = new ArrayList<>();
+
+		ListingIds.forEachById(carRepository, null, 3, Car::getId, car -> {
+			visited.add(car.getId());
+			// Shifts every later row one place down, which an OFFSET walk would skip over
+			if (visited.size() == 3) {
+				carRepository.deleteById(ids.get(0));
+				carRepository.flush();
+			}
+		});
+
+		assertThat(visited).containsExactlyElementsOf(ids);
+	}
+}
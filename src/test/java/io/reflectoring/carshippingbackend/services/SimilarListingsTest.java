@@ -0,0 +1,50 @@
+package io.reflectoring.carshippingbackend.services;
+
+import io.reflectoring.carshippingbackend.tables.Car;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimilarListingsTest {
+
+	private final SimilarListings similar = new SimilarListings("bodyType");
+
+	@Test
+	void ranksTheClosestPricesOfALargeBodyTypeGroup() {
+		for (long id = 1; id <= 20_000; id++) {
+			similar.upsert(car(id, "Brand " + id, 1000.0 * id));
+		}
+
+		assertThat(similar.size()).isEqualTo(20_000);
+		assertThat(similar.similarTo(10_000L, SimilarListings.TOP_K))
+				.hasSize(SimilarListings.TOP_K)
+				.allMatch(id -> Math.abs(id - 10_000) <= SimilarListings.TOP_K / 2);
+	}
+
+	@Test
+	void prefersTheSameBrandAndDropsRemovedListings() {
+		for (long id = 1; id <= 500; id++) {
+			similar.upsert(car(id, id % 10 == 0 ? "Toyota" : "Brand " + id, 1000.0 * id));
+		}
+
+		List<Long> ids = similar.similarTo(250L, SimilarListings.TOP_K);
+		// The nearest Toyotas, the newer one first on equal scores
+		assertThat(ids).startsWith(260L, 240L);
+
+		similar.remove(240L);
+
+		assertThat(similar.similarTo(250L, SimilarListings.TOP_K)).startsWith(260L).doesNotContain(240L);
+	}
+
+	private static CatalogEntry car(long id, String brand, double price) {
+		Car car = new Car();
+		car.setId(id);
+		car.setBrand(brand);
+		car.setBodyType("SUV");
+		car.setStatus("APPROVED");
+		car.setPriceKes(String.valueOf((long) price));
+		return CatalogEntry.ofCar(car);
+	}
+}
@@ -0,0 +1,93 @@
+package io.reflectoring.carshippingbackend.services;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SmtpConnectionPoolTest {
+
+	@RegisterExtension
+	static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+	private SimpleMeterRegistry meterRegistry;
+	private JavaMailSenderImpl mailSender;
+	private SmtpConnectionPool pool;
+
+	@BeforeEach
+	void setUp() {
+		meterRegistry = new SimpleMeterRegistry();
+		mailSender = new JavaMailSenderImpl();
+		mailSender.setHost(ServerSetupTest.SMTP.getBindAddress());
+		mailSender.setPort(ServerSetupTest.SMTP.getPort());
+		pool = new SmtpConnectionPool(mailSender, meterRegistry, true, 2, 30, 100, 5000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		pool.shutdown();
+	}
+
+	@Test
+	void sendsABatchOverOneConnection() throws Exception {
+		List<Exception> results = pool.sendBatch(messages(10, "first"));
+
+		assertThat(results).hasSize(10).containsOnlyNulls();
+		assertThat(greenMail.getReceivedMessages()).hasSize(10);
+		assertThat(connections("opened")).isEqualTo(1);
+		assertThat(connections("reused")).isZero();
+	}
+
+	@Test
+	void reusesTheIdleConnectionForTheNextBatch() throws Exception {
+		pool.sendBatch(messages(5, "first"));
+		List<Exception> results = pool.sendBatch(messages(5, "second"));
+
+		assertThat(results).containsOnlyNulls();
+		assertThat(greenMail.getReceivedMessages()).hasSize(10);
+		assertThat(connections("opened")).isEqualTo(1);
+		assertThat(connections("reused")).isEqualTo(1);
+	}
+
+	@Test
+	void skipsMessagesRejectedRightBeforeSending() throws Exception {
+		List<Exception> results = pool.sendBatch(messages(4, "batch"), index -> index % 2 == 0);
+
+		assertThat(results.get(0)).isNull();
+		assertThat(results.get(1)).isInstanceOf(CancellationException.class);
+		assertThat(results.get(2)).isNull();
+		assertThat(results.get(3)).isInstanceOf(CancellationException.class);
+		assertThat(greenMail.getReceivedMessages()).extracting(MimeMessage::getSubject)
+				.containsExactly("batch 0", "batch 2");
+	}
+
+	private List<MimeMessage> messages(int count, String subject) throws Exception {
+		List<MimeMessage> messages = new ArrayList<>();
+		for (int i = 0; i < count; i++) {
+			MimeMessage message = mailSender.createMimeMessage();
+			MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+			helper.setTo("buyer" + i + "@example.com");
+			helper.setFrom("noreply@example.com");
+			helper.setSubject(subject + " " + i);
+			helper.setText("Body " + i);
+			messages.add(message);
+		}
+		return messages;
+	}
+
+	private double connections(String outcome) {
+		return meterRegistry.get("email.smtp.connections").tag("outcome", outcome).counter().count();
+	}
+}